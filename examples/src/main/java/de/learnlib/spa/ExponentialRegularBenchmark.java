@@ -14,7 +14,9 @@
  */
 package de.learnlib.spa;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -30,6 +32,7 @@ import de.learnlib.oracle.membership.SimulatorOracle.DFASimulatorOracle;
 import de.learnlib.spa.benchmark.AbstractBenchmark;
 import de.learnlib.spa.benchmark.LearningRun;
 import de.learnlib.spa.benchmark.LearningStatistics;
+import de.learnlib.spa.benchmark.StatisticsWriter;
 import de.learnlib.spa.config.DiscriminationTreeAdapter;
 import de.learnlib.spa.config.KearnsVaziraniAdapter;
 import de.learnlib.spa.config.LStarBaseAdapter;
@@ -76,15 +79,24 @@ public class ExponentialRegularBenchmark {
     }
 
     public static void main(String[] args) {
-        runExperiment("REG [LStar]", (mqOracle) -> new LStarBaseAdapter<>(ALPHABET, mqOracle));
-        runExperiment("REG [RS]", (mqOracle) -> new RivestSchapireAdapter<>(ALPHABET, mqOracle));
-        runExperiment("REG [KV]", (mqOracle) -> new KearnsVaziraniAdapter<>(ALPHABET, mqOracle));
-        runExperiment("REG [DT]", (mqOracle) -> new DiscriminationTreeAdapter<>(ALPHABET, mqOracle));
-        runExperiment("REG [TTT]", (mqOracle) -> new TTTAdapter<>(ALPHABET, mqOracle));
+        final Map<String, List<LearningStatistics<Character>>> results = new LinkedHashMap<>();
+
+        results.put("REG [LStar]",
+                    runExperiment("REG [LStar]", (mqOracle) -> new LStarBaseAdapter<>(ALPHABET, mqOracle)));
+        results.put("REG [RS]",
+                    runExperiment("REG [RS]", (mqOracle) -> new RivestSchapireAdapter<>(ALPHABET, mqOracle)));
+        results.put("REG [KV]",
+                    runExperiment("REG [KV]", (mqOracle) -> new KearnsVaziraniAdapter<>(ALPHABET, mqOracle)));
+        results.put("REG [DT]",
+                    runExperiment("REG [DT]", (mqOracle) -> new DiscriminationTreeAdapter<>(ALPHABET, mqOracle)));
+        results.put("REG [TTT]",
+                    runExperiment("REG [TTT]", (mqOracle) -> new TTTAdapter<>(ALPHABET, mqOracle)));
+
+        StatisticsWriter.writeIfRequested(results);
     }
 
-    static <M extends DFA<?, Character>> void runExperiment(final String name,
-                                                            final Function<MembershipOracle<Character, Boolean>, LearningAlgorithm<? extends M, Character, Boolean>> learner) {
+    static <M extends DFA<?, Character>> List<LearningStatistics<Character>> runExperiment(final String name,
+                                                                                           final Function<MembershipOracle<Character, Boolean>, LearningAlgorithm<? extends M, Character, Boolean>> learner) {
 
         final MembershipOracle<Character, Boolean> mqOracle = new DFASimulatorOracle<>(TARGET);
         final EquivalenceOracle<M, Character, Boolean> eqOracle =
@@ -101,6 +113,8 @@ public class ExponentialRegularBenchmark {
 
         LOGGER.info(name);
         AbstractBenchmark.printAverages(results);
+
+        return results;
     }
 
 }
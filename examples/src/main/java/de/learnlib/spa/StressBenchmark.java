@@ -0,0 +1,143 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.algorithm.LearningAlgorithm;
+import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.benchmark.AbstractBenchmark;
+import de.learnlib.spa.benchmark.LearningRun;
+import de.learnlib.spa.benchmark.LearningStatistics;
+import de.learnlib.spa.benchmark.StatisticsWriter;
+import de.learnlib.spa.config.DiscriminationTreeAdapter;
+import de.learnlib.spa.config.KearnsVaziraniAdapter;
+import de.learnlib.spa.config.LStarBaseAdapter;
+import de.learnlib.spa.config.RivestSchapireAdapter;
+import de.learnlib.spa.config.TTTAdapter;
+import de.learnlib.spa.learner.SPALearner;
+import de.learnlib.spa.util.SPAEquivalence;
+import de.learnlib.spa.util.SPAGenerator;
+import de.learnlib.spa.util.SPAGenerator.CallGraphShape;
+import net.automatalib.words.Alphabet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A stress benchmark that learns randomly generated systems of procedural automata (see {@link SPAGenerator}) of
+ * increasing size with each of the available procedural learners and reports the resulting scaling curves.
+ * <p>
+ * The numbers of procedures can be passed as program arguments (default: {@code 10 50 100 200}).
+ *
+ * @author frohme
+ */
+public class StressBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StressBenchmark.class);
+
+    private static final int[] DEFAULT_PROCEDURES = {10, 50, 100, 200};
+    private static final int NUM_INTERNALS = 10;
+    private static final int PROCEDURE_SIZE = 10;
+    private static final int DEPTH = 5;
+    private static final int MAX_CALLEES = 3;
+    private static final int NUM_OF_RUNS = 3;
+
+    public static void main(String[] args) {
+
+        final int[] procedures;
+
+        if (args.length == 0) {
+            procedures = DEFAULT_PROCEDURES;
+        } else {
+            procedures = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                procedures[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        final Map<String, List<LearningStatistics<Integer>>> results = new LinkedHashMap<>();
+
+        for (final CallGraphShape shape : CallGraphShape.values()) {
+            runExperiments(results, shape, "LStar", procedures, LStarBaseAdapter::new);
+            runExperiments(results, shape, "RS", procedures, RivestSchapireAdapter::new);
+            runExperiments(results, shape, "KV", procedures, KearnsVaziraniAdapter::new);
+            runExperiments(results, shape, "DT", procedures, DiscriminationTreeAdapter::new);
+            runExperiments(results, shape, "TTT", procedures, TTTAdapter::new);
+        }
+
+        StatisticsWriter.writeIfRequested(results);
+    }
+
+    private static <L extends LearningAlgorithm.DFALearner<Integer> & SupportsGrowingAlphabet<Integer> & AccessSequenceTransformer<Integer> & LocalRefinementCounter> void runExperiments(
+            final Map<String, List<LearningStatistics<Integer>>> results,
+            final CallGraphShape shape,
+            final String learnerName,
+            final int[] procedures,
+            final BiFunction<Alphabet<Integer>, MembershipOracle<Integer, Boolean>, L> subLearner) {
+
+        final List<String> curve = new ArrayList<>(procedures.length);
+
+        for (final int numProcedures : procedures) {
+            final String name = shape + " [" + learnerName + "] n=" + numProcedures;
+            final SPAAlphabet<Integer> alphabet = SPAGenerator.createAlphabet(NUM_INTERNALS, numProcedures);
+            final List<LearningStatistics<Integer>> runs = new ArrayList<>(NUM_OF_RUNS);
+
+            for (int i = 0; i < NUM_OF_RUNS; i++) {
+                LOGGER.info("{}, run {}", name, i + 1);
+
+                // use the same systems for every learner
+                final SPA<?, Integer> spa = SPAGenerator.generate(new Random(i),
+                                                                  alphabet,
+                                                                  shape,
+                                                                  DEPTH,
+                                                                  MAX_CALLEES,
+                                                                  PROCEDURE_SIZE);
+
+                runs.add(LearningRun.<SPA<?, Integer>, Integer, Boolean>run(alphabet,
+                                                                            () -> new SimulatorOracle<>(spa),
+                                                                            mq -> new SPAEquivalence<>(spa),
+                                                                            mq -> new SPALearner<>(alphabet,
+                                                                                                   mq,
+                                                                                                   subLearner)));
+            }
+
+            LOGGER.info(name);
+            AbstractBenchmark.printAverages(runs);
+            results.put(name, runs);
+
+            curve.add(String.format("%d\t%.1f\t%.1f\t%.1f\t%.1f",
+                                    numProcedures,
+                                    runs.stream().mapToLong(LearningStatistics::getNumberOfMQs).average().orElse(0),
+                                    runs.stream().mapToLong(LearningStatistics::getNumberOfSymbols).average().orElse(0),
+                                    runs.stream().mapToLong(ls -> ls.getStopWatch().getTime()).average().orElse(0),
+                                    runs.stream().mapToLong(LearningStatistics::getSize).average().orElse(0)));
+        }
+
+        LOGGER.info("Scaling curve {} [{}] (procedures, queries, symbols, time [ms], size):", shape, learnerName);
+        for (final String point : curve) {
+            LOGGER.info("  {}", point);
+        }
+    }
+}
@@ -15,7 +15,9 @@
 package de.learnlib.spa.benchmark;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -23,6 +25,7 @@ import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import de.learnlib.acex.analyzers.AbstractNamedAcexAnalyzer;
 import de.learnlib.acex.analyzers.AcexAnalyzers;
 import de.learnlib.algorithms.discriminationtree.vpda.DTLearnerVPDA;
 import de.learnlib.algorithms.ttt.vpda.TTTLearnerVPDA;
@@ -32,12 +35,18 @@ import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
 import de.learnlib.api.oracle.EquivalenceOracle;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.spa.LocalRefinementCounter;
+import de.learnlib.spa.api.ATRProvider;
 import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
+import de.learnlib.spa.benchmark.PhaseProfiler.PhaseStatistics;
+import de.learnlib.spa.config.AdapterBuilder;
 import de.learnlib.spa.config.DiscriminationTreeAdapter;
 import de.learnlib.spa.config.KearnsVaziraniAdapter;
 import de.learnlib.spa.config.LStarBaseAdapter;
 import de.learnlib.spa.config.RivestSchapireAdapter;
 import de.learnlib.spa.config.TTTAdapter;
+import de.learnlib.spa.impl.OptimizingATRProvider;
+import de.learnlib.spa.learner.LearningPhase;
 import de.learnlib.spa.learner.SPALearner;
 import net.automatalib.ts.acceptors.DeterministicAcceptorTS;
 import net.automatalib.words.Alphabet;
@@ -49,6 +58,20 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractBenchmark<I> {
 
+    /**
+     * System property that, if set to {@code true}, additionally benchmarks every combination of sub-learner and
+     * (local) counterexample analyzer, as well as every analyzer for the global counterexample analysis of the {@link
+     * SPALearner}.
+     */
+    public static final String SWEEP_ANALYZERS_PROPERTY = "learnlib.spa.sweepAnalyzers";
+
+    /**
+     * System property that denotes the execution cost of a call symbol, relative to internal symbols and the return
+     * symbol (which cost {@code 1}). If set, the {@link SPALearner}s select access, terminating and return sequences by
+     * their cost instead of their length, and the total cost of the queries is reported for every run.
+     */
+    public static final String CALL_COST_PROPERTY = "learnlib.spa.callCost";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBenchmark.class);
 
     public static <I> void printAverages(Collection<LearningStatistics<I>> source) {
@@ -61,18 +84,41 @@ public abstract class AbstractBenchmark<I> {
         LOGGER.info("Symbols: {}, {}",
                     computeAverage(source, LearningStatistics::getNumberOfSymbols),
                     computeStandardDeviation(source, LearningStatistics::getNumberOfSymbols));
+        LOGGER.info("Cost: {}, {}",
+                    computeAverage(source, LearningStatistics::getTotalCost),
+                    computeStandardDeviation(source, LearningStatistics::getTotalCost));
         LOGGER.info("Size: {}", computeAverage(source, LearningStatistics::getSize));
         LOGGER.info("Learning Time: {} ms", computeAverage(source, ls -> ls.getStopWatch().getTime()));
+
+        if (source.stream().allMatch(ls -> ls.getPhaseProfiler() != null)) {
+            final boolean allocations = source.stream().allMatch(ls -> ls.getPhaseProfiler().isTrackingAllocations());
+
+            for (LearningPhase phase : LearningPhase.values()) {
+                final Function<LearningStatistics<I>, PhaseStatistics> stats =
+                        ls -> ls.getPhaseProfiler().getStatistics().get(phase);
+
+                LOGGER.info("  {}: {} ms, {} queries, {} symbols{}",
+                            phase,
+                            computeAverage(source, ls -> stats.apply(ls).getTimeMillis()),
+                            computeAverage(source, ls -> stats.apply(ls).getQueries()),
+                            computeAverage(source, ls -> stats.apply(ls).getSymbols()),
+                            allocations ?
+                                    ", " + computeAverage(source, ls -> stats.apply(ls).getAllocatedBytes()) +
+                                    " bytes" :
+                                    "");
+            }
+        }
+
         LOGGER.info("================");
     }
 
     private static <I> double computeAverage(Collection<LearningStatistics<I>> source,
-                                             ToLongFunction<LearningStatistics> extractor) {
+                                             ToLongFunction<LearningStatistics<I>> extractor) {
         return source.stream().mapToLong(extractor).average().getAsDouble();
     }
 
     private static <I> double computeStandardDeviation(Collection<LearningStatistics<I>> source,
-                                                       ToLongFunction<LearningStatistics> extractor) {
+                                                       ToLongFunction<LearningStatistics<I>> extractor) {
         final double avg = computeAverage(source, extractor);
         double tmp = 0;
 
@@ -94,26 +140,25 @@ public abstract class AbstractBenchmark<I> {
         final List<LearningStatistics<I>> dtResult = testOP(spaAlphabet, numOfRuns);
         final List<LearningStatistics<I>> tttResult = testTTT(spaAlphabet, numOfRuns);
 
-        LOGGER.info("SPA [LStar]");
-        printAverages(proceduralResultLStar);
+        final Map<String, List<LearningStatistics<I>>> results = new LinkedHashMap<>();
+        results.put("SPA [LStar]", proceduralResultLStar);
+        results.put("SPA [RS]", proceduralResultRS);
+        results.put("SPA [KV]", proceduralResultKV);
+        results.put("SPA [DT]", proceduralResultDT);
+        results.put("SPA [TTT]", proceduralResultTTT);
+        results.put("VPA [DT]", dtResult);
+        results.put("VPA [TTT]", tttResult);
 
-        LOGGER.info("SPA [RS]");
-        printAverages(proceduralResultRS);
-
-        LOGGER.info("SPA [KV]");
-        printAverages(proceduralResultKV);
-
-        LOGGER.info("SPA [DT]");
-        printAverages(proceduralResultDT);
-
-        LOGGER.info("SPA [TTT]");
-        printAverages(proceduralResultTTT);
+        if (Boolean.getBoolean(SWEEP_ANALYZERS_PROPERTY)) {
+            sweepAnalyzers(spaAlphabet, numOfRuns, results);
+        }
 
-        LOGGER.info("VPA [DT]");
-        printAverages(dtResult);
+        for (Map.Entry<String, List<LearningStatistics<I>>> e : results.entrySet()) {
+            LOGGER.info(e.getKey());
+            printAverages(e.getValue());
+        }
 
-        LOGGER.info("VPA [TTT]");
-        printAverages(tttResult);
+        StatisticsWriter.writeIfRequested(results);
     }
 
     private List<LearningStatistics<I>> testProceduralLStar(SPAAlphabet<I> alphabet, int numOfRuns) {
@@ -142,10 +187,63 @@ public abstract class AbstractBenchmark<I> {
         return buildAndRunTest(alphabet, buildProceduralLearnerProvider(alphabet, TTTAdapter::new), numOfRuns);
     }
 
+    private void sweepAnalyzers(SPAAlphabet<I> alphabet,
+                                int numOfRuns,
+                                Map<String, List<LearningStatistics<I>>> results) {
+
+        for (AbstractNamedAcexAnalyzer analyzer : AcexAnalyzers.getAllAnalyzers()) {
+            final String name = analyzer.getName();
+
+            results.put("SPA [RS, " + name + ']',
+                        testProceduralSweep(alphabet, RivestSchapireAdapter.builder(), analyzer, numOfRuns));
+            results.put("SPA [KV, " + name + ']',
+                        testProceduralSweep(alphabet, KearnsVaziraniAdapter.builder(), analyzer, numOfRuns));
+            results.put("SPA [DT, " + name + ']',
+                        testProceduralSweep(alphabet, DiscriminationTreeAdapter.builder(), analyzer, numOfRuns));
+            results.put("SPA [TTT, " + name + ']',
+                        testProceduralSweep(alphabet, TTTAdapter.builder(), analyzer, numOfRuns));
+        }
+
+        for (AbstractNamedAcexAnalyzer analyzer : AcexAnalyzers.getAllAnalyzers()) {
+            results.put("SPA [TTT, global " + analyzer.getName() + ']',
+                        buildAndRunTest(alphabet, mqo -> {
+                            final SPALearner<I, TTTAdapter<I>> learner =
+                                    new SPALearner<>(alphabet, mqo, TTTAdapter::new, createATRProvider(alphabet));
+                            learner.setAnalyzer(analyzer);
+                            return learner;
+                        }, numOfRuns));
+        }
+    }
+
+    private <L extends LearningAlgorithm.DFALearner<I> & SupportsGrowingAlphabet<I> & AccessSequenceTransformer<I> & LocalRefinementCounter> List<LearningStatistics<I>> testProceduralSweep(
+            SPAAlphabet<I> alphabet,
+            AdapterBuilder<I, L> builder,
+            AbstractNamedAcexAnalyzer analyzer,
+            int numOfRuns) {
+        return buildAndRunTest(alphabet,
+                               buildProceduralLearnerProvider(alphabet, builder.withAnalyzer(analyzer)::create),
+                               numOfRuns);
+    }
+
     private <L extends LearningAlgorithm.DFALearner<I> & SupportsGrowingAlphabet<I> & AccessSequenceTransformer<I> & LocalRefinementCounter> Function<MembershipOracle<I, Boolean>, LearningAlgorithm<? extends DeterministicAcceptorTS<?, I>, I, Boolean>> buildProceduralLearnerProvider(
             SPAAlphabet<I> alphabet,
             BiFunction<Alphabet<I>, MembershipOracle<I, Boolean>, L> subLearner) {
-        return mqo -> new SPALearner<>(alphabet, mqo, subLearner);
+        return mqo -> new SPALearner<>(alphabet, mqo, subLearner, createATRProvider(alphabet));
+    }
+
+    private ATRProvider<I> createATRProvider(SPAAlphabet<I> alphabet) {
+        final SymbolCostModel<I> costModel = getCostModel(alphabet);
+        return costModel == null ?
+                new OptimizingATRProvider<>(alphabet) :
+                new OptimizingATRProvider<>(alphabet, costModel);
+    }
+
+    /**
+     * @return the cost model configured via the {@link #CALL_COST_PROPERTY}, or {@code null} if the property is not set
+     */
+    private SymbolCostModel<I> getCostModel(SPAAlphabet<I> alphabet) {
+        final Long callCost = Long.getLong(CALL_COST_PROPERTY);
+        return callCost == null ? null : SymbolCostModel.bySymbolType(alphabet, 1, callCost, 1);
     }
 
     private List<LearningStatistics<I>> testTTT(SPAAlphabet<I> alphabet, int numOfRuns) {
@@ -169,7 +267,8 @@ public abstract class AbstractBenchmark<I> {
                         .mapToObj(i -> LearningRun.run(alphabet,
                                                        getMembershipOracleSupplier(),
                                                        getEquivalenceOracleSupplier(),
-                                                       learnerFunction))
+                                                       learnerFunction,
+                                                       getCostModel(alphabet)))
                         .collect(Collectors.toList());
     }
 
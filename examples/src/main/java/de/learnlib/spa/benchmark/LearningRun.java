@@ -17,11 +17,16 @@ package de.learnlib.spa.benchmark;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import de.learnlib.api.algorithm.LearningAlgorithm;
 import de.learnlib.api.oracle.EquivalenceOracle;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
-import de.learnlib.filter.statistic.oracle.JointCounterOracle;
+import de.learnlib.spa.api.SymbolCostModel;
+import de.learnlib.spa.impl.ConcurrentCounterOracle;
+import de.learnlib.spa.learner.LearningPhase;
+import de.learnlib.spa.learner.SPALearner;
 import net.automatalib.ts.acceptors.DeterministicAcceptorTS;
 import net.automatalib.words.Alphabet;
 import org.apache.commons.lang3.time.StopWatch;
@@ -31,20 +36,46 @@ import org.apache.commons.lang3.time.StopWatch;
  */
 public final class LearningRun {
 
+    /**
+     * System property that enables the measurement of allocated bytes per {@link LearningPhase}.
+     */
+    public static final String TRACK_ALLOCATIONS_PROPERTY = "learnlib.spa.trackAllocations";
+
     private LearningRun() {}
 
     public static <M extends DeterministicAcceptorTS<?, I>, I, D> LearningStatistics<I> run(final Alphabet<I> inputAlphabet,
                                                                                             final Supplier<MembershipOracle<I, D>> membershipOracleSupplier,
                                                                                             final Function<MembershipOracle<I, D>, EquivalenceOracle<M, I, D>> equivalenceOracleFunction,
                                                                                             final Function<MembershipOracle<I, D>, LearningAlgorithm<? extends M, I, D>> learningAlgorithmFunction) {
+        return run(inputAlphabet, membershipOracleSupplier, equivalenceOracleFunction, learningAlgorithmFunction, null);
+    }
+
+    /**
+     * Performs a learning run and additionally accumulates the execution cost of the membership queries according to
+     * the given cost model (see {@link LearningStatistics#getTotalCost()}).
+     */
+    public static <M extends DeterministicAcceptorTS<?, I>, I, D> LearningStatistics<I> run(final Alphabet<I> inputAlphabet,
+                                                                                            final Supplier<MembershipOracle<I, D>> membershipOracleSupplier,
+                                                                                            final Function<MembershipOracle<I, D>, EquivalenceOracle<M, I, D>> equivalenceOracleFunction,
+                                                                                            final Function<MembershipOracle<I, D>, LearningAlgorithm<? extends M, I, D>> learningAlgorithmFunction,
+                                                                                            @Nullable final SymbolCostModel<I> costModel) {
 
         final MembershipOracle<I, D> mqOracle = membershipOracleSupplier.get();
-        final JointCounterOracle<I, D> statMq = new JointCounterOracle<>(mqOracle);
+        final ConcurrentCounterOracle<I, D> statMq = new ConcurrentCounterOracle<>(mqOracle, costModel);
+        final ConcurrentCounterOracle<I, D> statEq = new ConcurrentCounterOracle<>(mqOracle);
 
-        final EquivalenceOracle<M, I, D> eqOracle = equivalenceOracleFunction.apply(mqOracle);
+        final EquivalenceOracle<M, I, D> eqOracle = equivalenceOracleFunction.apply(statEq);
 
         final LearningAlgorithm<? extends M, I, D> learner = learningAlgorithmFunction.apply(statMq);
 
+        final PhaseProfiler profiler = new PhaseProfiler(() -> statMq.getQueryCount() + statEq.getQueryCount(),
+                                                         () -> statMq.getSymbolCount() + statEq.getSymbolCount(),
+                                                         Boolean.getBoolean(TRACK_ALLOCATIONS_PROPERTY));
+
+        if (learner instanceof SPALearner) {
+            ((SPALearner<?, ?>) learner).setPhaseListener(profiler);
+        }
+
         learner.startLearning();
 
         DefaultQuery<I, D> ce;
@@ -54,7 +85,7 @@ public final class LearningRun {
         final StopWatch sw = StopWatch.createStarted();
         sw.suspend();
 
-        while ((ce = eqOracle.findCounterExample(learner.getHypothesisModel(), inputAlphabet)) != null) {
+        while ((ce = findCounterExample(eqOracle, learner, inputAlphabet, profiler)) != null) {
             numberOfCEs++;
             sw.resume();
             while (learner.refineHypothesis(ce)) {}
@@ -63,11 +94,42 @@ public final class LearningRun {
 
         sw.stop();
 
+        if (learner instanceof SPALearner) {
+            final SPALearner<?, ?> spaLearner = (SPALearner<?, ?>) learner;
+            return new LearningStatistics<>(numberOfCEs,
+                                            statMq.getQueryCount(),
+                                            statMq.getSymbolCount(),
+                                            sw,
+                                            learner.getHypothesisModel(),
+                                            spaLearner.getNumberOfGlobalRefinements(),
+                                            spaLearner.getNumberOfLocalRefinements(),
+                                            spaLearner.getSumOfLocalCELengths(),
+                                            profiler,
+                                            statMq.getCost());
+        }
+
         return new LearningStatistics<>(numberOfCEs,
                                         statMq.getQueryCount(),
                                         statMq.getSymbolCount(),
                                         sw,
-                                        learner.getHypothesisModel());
+                                        learner.getHypothesisModel(),
+                                        -1,
+                                        -1,
+                                        -1,
+                                        profiler,
+                                        statMq.getCost());
+    }
+
+    private static <M, I, D> DefaultQuery<I, D> findCounterExample(EquivalenceOracle<M, I, D> eqOracle,
+                                                                   LearningAlgorithm<? extends M, I, D> learner,
+                                                                   Alphabet<I> inputAlphabet,
+                                                                   PhaseProfiler profiler) {
+        profiler.enterPhase(LearningPhase.EQUIVALENCE_QUERY);
+        try {
+            return eqOracle.findCounterExample(learner.getHypothesisModel(), inputAlphabet);
+        } finally {
+            profiler.exitPhase(LearningPhase.EQUIVALENCE_QUERY);
+        }
     }
 
 }
@@ -14,6 +14,8 @@
  */
 package de.learnlib.spa.benchmark;
 
+import javax.annotation.Nullable;
+
 import de.learnlib.spa.api.SPA;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.automata.vpda.OneSEVPA;
@@ -33,16 +35,60 @@ public class LearningStatistics<I> {
 
     private final DeterministicAcceptorTS<?, I> hypothesis;
 
+    private final long numberOfGlobalRefinements;
+    private final long numberOfLocalRefinements;
+    private final long sumOfLocalCELengths;
+
+    @Nullable
+    private final PhaseProfiler phaseProfiler;
+
+    private final long totalCost;
+
+    /**
+     * Constructor.
+     *
+     * @param numberOfCEs
+     *         the number of counterexamples
+     * @param numberOfMQs
+     *         the number of membership queries
+     * @param numberOfSymbols
+     *         the number of symbols of the membership queries
+     * @param stopWatch
+     *         the (stopped) stop watch of the learning process
+     * @param hypothesis
+     *         the final hypothesis
+     * @param numberOfGlobalRefinements
+     *         the number of global refinements, {@code -1} if not applicable
+     * @param numberOfLocalRefinements
+     *         the number of local refinements, {@code -1} if not applicable
+     * @param sumOfLocalCELengths
+     *         the sum of local counterexample lengths, {@code -1} if not applicable
+     * @param phaseProfiler
+     *         the per-phase breakdown, may be {@code null}
+     * @param totalCost
+     *         the total execution cost of the membership queries, {@code numberOfSymbols} if no cost model has been
+     *         used
+     */
     public LearningStatistics(long numberOfCEs,
                               long numberOfMQs,
                               long numberOfSymbols,
                               StopWatch stopWatch,
-                              DeterministicAcceptorTS<?, I> hypothesis) {
+                              DeterministicAcceptorTS<?, I> hypothesis,
+                              long numberOfGlobalRefinements,
+                              long numberOfLocalRefinements,
+                              long sumOfLocalCELengths,
+                              @Nullable PhaseProfiler phaseProfiler,
+                              long totalCost) {
         this.numberOfCEs = numberOfCEs;
         this.numberOfMQs = numberOfMQs;
         this.numberOfSymbols = numberOfSymbols;
         this.stopWatch = stopWatch;
         this.hypothesis = hypothesis;
+        this.numberOfGlobalRefinements = numberOfGlobalRefinements;
+        this.numberOfLocalRefinements = numberOfLocalRefinements;
+        this.sumOfLocalCELengths = sumOfLocalCELengths;
+        this.phaseProfiler = phaseProfiler;
+        this.totalCost = totalCost;
     }
 
     public long getNumberOfCEs() {
@@ -57,10 +103,51 @@ public class LearningStatistics<I> {
         return numberOfSymbols;
     }
 
+    /**
+     * @return the total execution cost of the membership queries according to the {@link
+     * de.learnlib.spa.api.SymbolCostModel} of the run, which equals {@link #getNumberOfSymbols()} if no cost model has
+     * been used
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
     public StopWatch getStopWatch() {
         return stopWatch;
     }
 
+    /**
+     * @return the number of global refinements of an {@link de.learnlib.spa.learner.SPALearner}, or {@code -1} if the
+     * statistics have been collected for a different learner
+     */
+    public long getNumberOfGlobalRefinements() {
+        return numberOfGlobalRefinements;
+    }
+
+    /**
+     * @return the number of local refinements of an {@link de.learnlib.spa.learner.SPALearner}, or {@code -1} if the
+     * statistics have been collected for a different learner
+     */
+    public long getNumberOfLocalRefinements() {
+        return numberOfLocalRefinements;
+    }
+
+    /**
+     * @return the sum of local counterexample lengths of an {@link de.learnlib.spa.learner.SPALearner}, or {@code -1}
+     * if the statistics have been collected for a different learner
+     */
+    public long getSumOfLocalCELengths() {
+        return sumOfLocalCELengths;
+    }
+
+    /**
+     * @return the per-phase breakdown of the learning process, or {@code null} if no breakdown has been collected
+     */
+    @Nullable
+    public PhaseProfiler getPhaseProfiler() {
+        return phaseProfiler;
+    }
+
     public long getSize() {
         if (hypothesis instanceof OneSEVPA) {
             return ((OneSEVPA<?, I>) hypothesis).size();
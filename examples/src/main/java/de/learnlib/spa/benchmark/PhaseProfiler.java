@@ -0,0 +1,174 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import de.learnlib.spa.learner.LearningPhase;
+import de.learnlib.spa.learner.PhaseListener;
+
+/**
+ * A {@link PhaseListener} that breaks down time, query count, symbol count and (optionally) allocated bytes of the
+ * current thread per {@link LearningPhase}. Measurements are exclusive, i.e. the costs of a nested phase are only
+ * attributed to the nested phase and not to its enclosing phase.
+ *
+ * @author frohme
+ */
+public class PhaseProfiler implements PhaseListener {
+
+    private final LongSupplier queryCounter;
+    private final LongSupplier symbolCounter;
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    private final Map<LearningPhase, PhaseStatistics> statistics;
+    private final Deque<LearningPhase> activePhases;
+
+    private long lastTime;
+    private long lastQueries;
+    private long lastSymbols;
+    private long lastAllocation;
+
+    /**
+     * Constructor.
+     *
+     * @param queryCounter
+     *         supplier for the total number of queries posed so far
+     * @param symbolCounter
+     *         supplier for the total number of symbols queried so far
+     * @param trackAllocations
+     *         whether to track the allocated bytes of the current thread. Only has an effect, if the JVM supports
+     *         allocation measurements via {@link com.sun.management.ThreadMXBean}
+     */
+    public PhaseProfiler(LongSupplier queryCounter, LongSupplier symbolCounter, boolean trackAllocations) {
+        this.queryCounter = queryCounter;
+        this.symbolCounter = symbolCounter;
+        this.allocationBean = trackAllocations ? getAllocationBean() : null;
+
+        this.statistics = new EnumMap<>(LearningPhase.class);
+        this.activePhases = new ArrayDeque<>();
+
+        for (LearningPhase phase : LearningPhase.values()) {
+            this.statistics.put(phase, new PhaseStatistics());
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void enterPhase(LearningPhase phase) {
+        chargeActivePhase();
+        this.activePhases.push(phase);
+    }
+
+    @Override
+    public void exitPhase(LearningPhase phase) {
+        chargeActivePhase();
+        this.activePhases.pop();
+    }
+
+    private void chargeActivePhase() {
+        final long time = System.nanoTime();
+        final long queries = queryCounter.getAsLong();
+        final long symbols = symbolCounter.getAsLong();
+        final long allocation = currentAllocation();
+
+        final LearningPhase active = this.activePhases.peek();
+
+        if (active != null) {
+            final PhaseStatistics stats = this.statistics.get(active);
+            stats.nanos += time - lastTime;
+            stats.queries += queries - lastQueries;
+            stats.symbols += symbols - lastSymbols;
+            stats.allocatedBytes += allocation - lastAllocation;
+        }
+
+        this.lastTime = time;
+        this.lastQueries = queries;
+        this.lastSymbols = symbols;
+        this.lastAllocation = allocation;
+    }
+
+    private long currentAllocation() {
+        if (allocationBean == null) {
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns whether allocated bytes are measured.
+     *
+     * @return {@code true} if allocated bytes are measured, {@code false} otherwise
+     */
+    public boolean isTrackingAllocations() {
+        return allocationBean != null;
+    }
+
+    public Map<LearningPhase, PhaseStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * The accumulated (exclusive) costs of a single {@link LearningPhase}.
+     */
+    public static final class PhaseStatistics {
+
+        private long nanos;
+        private long queries;
+        private long symbols;
+        private long allocatedBytes;
+
+        public long getTimeMillis() {
+            return nanos / 1_000_000;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public long getSymbols() {
+            return symbols;
+        }
+
+        /**
+         * @return the number of allocated bytes, or {@code 0} if allocations are not tracked
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
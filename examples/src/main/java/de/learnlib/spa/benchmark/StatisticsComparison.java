@@ -0,0 +1,370 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares two result files written by {@link StatisticsWriter} and reports statistically significant regressions in
+ * the number of queries, the number of symbols and the learning time of each configuration. Significance is determined
+ * by a one-sided Mann-Whitney U test, which (unlike a t-test) makes no assumption about the distribution of the
+ * measurements and copes well with the skewed distribution of timing results.
+ * <p>
+ * Usage: {@code StatisticsComparison <baseline> <candidate> [alpha] [minRelativeIncrease]}. The process terminates
+ * with exit code {@code 1} if at least one regression has been detected, so that it can be used to gate upgrades.
+ *
+ * @author frohme
+ */
+public final class StatisticsComparison {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatisticsComparison.class);
+
+    private static final List<String> COMPARED_METRICS = Arrays.asList("mqs", "symbols", "cost", "time");
+
+    private static final double DEFAULT_ALPHA = 0.05;
+    private static final double DEFAULT_MIN_RELATIVE_INCREASE = 0.05;
+
+    private static final Pattern JSON_PROPERTY = Pattern.compile("\"(\\w+)\"\\s*:\\s*(\"(?:[^\"\\\\]|\\\\.)*\"|-?\\d+)");
+
+    private StatisticsComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            LOGGER.error("Usage: StatisticsComparison <baseline> <candidate> [alpha] [minRelativeIncrease]");
+            System.exit(2);
+        }
+
+        final double alpha = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_ALPHA;
+        final double minIncrease = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_MIN_RELATIVE_INCREASE;
+
+        final List<Regression> regressions =
+                compare(load(Paths.get(args[0])), load(Paths.get(args[1])), alpha, minIncrease);
+
+        for (Regression r : regressions) {
+            LOGGER.warn("{}", r);
+        }
+
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+
+        LOGGER.info("No regressions detected");
+    }
+
+    /**
+     * Loads a result file written by {@link StatisticsWriter}.
+     *
+     * @param path
+     *         the path to the CSV or JSON file
+     *
+     * @return for each configuration, the measured values of each metric (column)
+     *
+     * @throws IOException
+     *         if the file cannot be read, or if a JSON record has no (valid) configuration
+     */
+    public static Map<String, Map<String, List<Long>>> load(Path path) throws IOException {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        final Map<String, Map<String, List<Long>>> result = new LinkedHashMap<>();
+
+        if (path.toString().endsWith(".json")) {
+            for (int i = 0; i < lines.size(); i++) {
+                final String line = lines.get(i);
+                final Matcher m = JSON_PROPERTY.matcher(line);
+                final List<String> row = new ArrayList<>(StatisticsWriter.COLUMNS.size());
+                final Map<String, String> properties = new HashMap<>();
+
+                while (m.find()) {
+                    properties.put(m.group(1), m.group(2));
+                }
+
+                if (properties.isEmpty()) {
+                    continue;
+                }
+
+                for (String column : StatisticsWriter.COLUMNS) {
+                    row.add(properties.get(column));
+                }
+
+                final String config = row.get(0);
+
+                if (config == null) {
+                    throw new IOException("Missing '" + StatisticsWriter.COLUMNS.get(0) + "' in line " + (i + 1) +
+                                          " of " + path + ": " + line);
+                }
+
+                try {
+                    row.set(0, StatisticsWriter.unescapeJSON(config));
+                } catch (IllegalArgumentException iae) {
+                    throw new IOException("Invalid '" + StatisticsWriter.COLUMNS.get(0) + "' in line " + (i + 1) +
+                                          " of " + path + ": " + line, iae);
+                }
+                addRow(result, StatisticsWriter.COLUMNS, row);
+            }
+        } else {
+            final List<String> header = parseCSVLine(lines.get(0));
+            for (String line : lines.subList(1, lines.size())) {
+                if (!line.isEmpty()) {
+                    addRow(result, header, parseCSVLine(line));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares the results of a candidate with the results of a baseline.
+     *
+     * @param baseline
+     *         the baseline results, as returned by {@link #load(Path)}
+     * @param candidate
+     *         the candidate results, as returned by {@link #load(Path)}
+     * @param alpha
+     *         the significance level of the test
+     * @param minRelativeIncrease
+     *         the minimal relative increase of the mean value for a significant difference to be reported as a
+     *         regression
+     *
+     * @return the detected regressions
+     */
+    public static List<Regression> compare(Map<String, Map<String, List<Long>>> baseline,
+                                           Map<String, Map<String, List<Long>>> candidate,
+                                           double alpha,
+                                           double minRelativeIncrease) {
+
+        final List<Regression> result = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, List<Long>>> e : baseline.entrySet()) {
+            final String configuration = e.getKey();
+            final Map<String, List<Long>> candidateValues = candidate.get(configuration);
+
+            if (candidateValues == null) {
+                LOGGER.info("Configuration '{}' is missing in candidate results, skipping", configuration);
+                continue;
+            }
+
+            for (String metric : COMPARED_METRICS) {
+                final List<Long> before = e.getValue().get(metric);
+                final List<Long> after = candidateValues.get(metric);
+
+                if (before == null || after == null || before.isEmpty() || after.isEmpty()) {
+                    continue;
+                }
+
+                final double meanBefore = mean(before);
+                final double meanAfter = mean(after);
+                final double p = mannWhitneyGreater(after, before);
+
+                LOGGER.debug("{} [{}]: {} -> {} (p = {})", configuration, metric, meanBefore, meanAfter, p);
+
+                if (p < alpha && meanAfter > meanBefore * (1 + minRelativeIncrease)) {
+                    result.add(new Regression(configuration, metric, meanBefore, meanAfter, p));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the p-value of the one-sided Mann-Whitney U test for the hypothesis that values of {@code x} tend to be
+     * larger than values of {@code y}, using the normal approximation with tie and continuity correction.
+     */
+    static double mannWhitneyGreater(List<Long> x, List<Long> y) {
+        final int n1 = x.size();
+        final int n2 = y.size();
+        final int n = n1 + n2;
+
+        final long[] values = new long[n];
+        final boolean[] fromX = new boolean[n];
+        final Integer[] order = new Integer[n];
+
+        for (int i = 0; i < n; i++) {
+            values[i] = i < n1 ? x.get(i) : y.get(i - n1);
+            fromX[i] = i < n1;
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Long.compare(values[a], values[b]));
+
+        double rankSumX = 0;
+        double tieCorrection = 0;
+        int i = 0;
+
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+
+            final double avgRank = (i + j) / 2.0 + 1;
+            final int ties = j - i + 1;
+
+            for (int k = i; k <= j; k++) {
+                if (fromX[order[k]]) {
+                    rankSumX += avgRank;
+                }
+            }
+
+            tieCorrection += (double) ties * ties * ties - ties;
+            i = j + 1;
+        }
+
+        final double u = rankSumX - n1 * (n1 + 1) / 2.0;
+        final double mean = n1 * n2 / 2.0;
+        final double variance = n1 * n2 / 12.0 * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+
+        if (variance <= 0) {
+            return 1.0;
+        }
+
+        final double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1 - normalCDF(z);
+    }
+
+    /**
+     * Standard normal CDF based on the error function approximation of Abramowitz and Stegun (7.1.26).
+     */
+    private static double normalCDF(double z) {
+        final double x = Math.abs(z) / Math.sqrt(2);
+        final double t = 1 / (1 + 0.3275911 * x);
+        final double poly =
+                t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        final double erf = 1 - poly * Math.exp(-x * x);
+
+        return z >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    private static double mean(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
+
+    private static void addRow(Map<String, Map<String, List<Long>>> result, List<String> header, List<String> row) {
+        final Map<String, List<Long>> metrics = result.computeIfAbsent(row.get(0), k -> new LinkedHashMap<>());
+
+        for (int i = 1; i < header.size() && i < row.size(); i++) {
+            if (row.get(i) != null) {
+                metrics.computeIfAbsent(header.get(i), k -> new ArrayList<>()).add(Long.parseLong(row.get(i)));
+            }
+        }
+    }
+
+    private static List<String> parseCSVLine(String line) {
+        final List<String> result = new ArrayList<>();
+        final StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                result.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+
+        result.add(sb.toString());
+        return result;
+    }
+
+    /**
+     * A significant regression of a single metric of a single configuration.
+     */
+    public static final class Regression {
+
+        private final String configuration;
+        private final String metric;
+        private final double baselineMean;
+        private final double candidateMean;
+        private final double pValue;
+
+        Regression(String configuration, String metric, double baselineMean, double candidateMean, double pValue) {
+            this.configuration = configuration;
+            this.metric = metric;
+            this.baselineMean = baselineMean;
+            this.candidateMean = candidateMean;
+            this.pValue = pValue;
+        }
+
+        public String getConfiguration() {
+            return configuration;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public double getBaselineMean() {
+            return baselineMean;
+        }
+
+        public double getCandidateMean() {
+            return candidateMean;
+        }
+
+        public double getPValue() {
+            return pValue;
+        }
+
+        @Override
+        public String toString() {
+            if (baselineMean == 0) {
+                // there is no relative increase of a zero mean
+                return String.format("Regression in %s [%s]: %.1f -> %.1f (p = %.4f)",
+                                     configuration,
+                                     metric,
+                                     baselineMean,
+                                     candidateMean,
+                                     pValue);
+            }
+
+            return String.format("Regression in %s [%s]: %.1f -> %.1f (%+.1f%%, p = %.4f)",
+                                 configuration,
+                                 metric,
+                                 baselineMean,
+                                 candidateMean,
+                                 100 * (candidateMean - baselineMean) / baselineMean,
+                                 pValue);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the individual {@link LearningStatistics} records of a benchmark suite in a machine-readable format (CSV or
+ * JSON), so that results of different library versions can be compared by {@link StatisticsComparison}.
+ *
+ * @author frohme
+ */
+public final class StatisticsWriter {
+
+    /**
+     * System property that, if set, denotes the file the results of a benchmark suite are written to. Files ending
+     * with {@code .json} are written in JSON format, all other files in CSV format.
+     */
+    public static final String RESULTS_PROPERTY = "learnlib.spa.results";
+
+    static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList("configuration",
+                                                                                   "run",
+                                                                                   "ces",
+                                                                                   "mqs",
+                                                                                   "symbols",
+                                                                                   "time",
+                                                                                   "size",
+                                                                                   "globalRefinements",
+                                                                                   "localRefinements",
+                                                                                   "localCELengths",
+                                                                                   "cost"));
+
+    private StatisticsWriter() {}
+
+    /**
+     * Writes the given results to the file denoted by the {@link #RESULTS_PROPERTY} system property. Does nothing, if
+     * the property is not set.
+     *
+     * @param results
+     *         the results of each run, indexed by the name of the benchmarked configuration
+     */
+    public static void writeIfRequested(Map<String, ? extends List<? extends LearningStatistics<?>>> results) {
+        final String target = System.getProperty(RESULTS_PROPERTY);
+
+        if (target == null) {
+            return;
+        }
+
+        final Path path = Paths.get(target);
+
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (target.endsWith(".json")) {
+                writeJSON(writer, results);
+            } else {
+                writeCSV(writer, results);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void writeCSV(Appendable out, Map<String, ? extends List<? extends LearningStatistics<?>>> results)
+            throws IOException {
+
+        out.append(String.join(",", COLUMNS)).append('\n');
+
+        for (Map.Entry<String, ? extends List<? extends LearningStatistics<?>>> e : results.entrySet()) {
+            final List<? extends LearningStatistics<?>> runs = e.getValue();
+
+            for (int i = 0; i < runs.size(); i++) {
+                final long[] values = extractValues(runs.get(i));
+
+                out.append(escapeCSV(e.getKey())).append(',').append(Integer.toString(i));
+                for (long v : values) {
+                    out.append(',').append(Long.toString(v));
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    public static void writeJSON(Appendable out, Map<String, ? extends List<? extends LearningStatistics<?>>> results)
+            throws IOException {
+
+        out.append("[\n");
+
+        boolean first = true;
+
+        for (Map.Entry<String, ? extends List<? extends LearningStatistics<?>>> e : results.entrySet()) {
+            final List<? extends LearningStatistics<?>> runs = e.getValue();
+
+            for (int i = 0; i < runs.size(); i++) {
+                final long[] values = extractValues(runs.get(i));
+
+                if (!first) {
+                    out.append(",\n");
+                }
+                first = false;
+
+                out.append("  {\"").append(COLUMNS.get(0)).append("\": ").append(escapeJSON(e.getKey()));
+                out.append(", \"").append(COLUMNS.get(1)).append("\": ").append(Integer.toString(i));
+                for (int j = 0; j < values.length; j++) {
+                    out.append(", \"").append(COLUMNS.get(j + 2)).append("\": ").append(Long.toString(values[j]));
+                }
+                out.append('}');
+            }
+        }
+
+        out.append("\n]\n");
+    }
+
+    private static long[] extractValues(LearningStatistics<?> stats) {
+        return new long[] {stats.getNumberOfCEs(),
+                           stats.getNumberOfMQs(),
+                           stats.getNumberOfSymbols(),
+                           stats.getStopWatch().getTime(),
+                           stats.getSize(),
+                           stats.getNumberOfGlobalRefinements(),
+                           stats.getNumberOfLocalRefinements(),
+                           stats.getSumOfLocalCELengths(),
+                           stats.getTotalCost()};
+    }
+
+    private static String escapeCSV(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Encodes the given value as a JSON string literal (including the surrounding quotes).
+     *
+     * @see #unescapeJSON(String)
+     */
+    static String escapeJSON(String value) {
+        final StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        sb.append('"');
+        return sb.toString();
+    }
+
+    /**
+     * Decodes a JSON string literal (including the surrounding quotes), as written by {@link #escapeJSON(String)}.
+     *
+     * @throws IllegalArgumentException
+     *         if the given value is not a valid JSON string literal
+     */
+    static String unescapeJSON(String literal) {
+        final int length = literal.length();
+
+        if (length < 2 || literal.charAt(0) != '"' || literal.charAt(length - 1) != '"') {
+            throw new IllegalArgumentException("Not a JSON string literal: " + literal);
+        }
+
+        final StringBuilder sb = new StringBuilder(length - 2);
+
+        for (int i = 1; i < length - 1; i++) {
+            final char c = literal.charAt(i);
+
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            if (++i == length - 1) {
+                throw new IllegalArgumentException("Incomplete escape sequence in JSON string literal: " + literal);
+            }
+
+            final char escaped = literal.charAt(i);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > length - 2) {
+                        throw new IllegalArgumentException("Incomplete unicode escape in JSON string literal: " +
+                                                           literal);
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(literal.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException nfe) {
+                        throw new IllegalArgumentException("Invalid unicode escape in JSON string literal: " + literal,
+                                                           nfe);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape sequence in JSON string literal: " + literal);
+            }
+        }
+
+        return sb.toString();
+    }
+}
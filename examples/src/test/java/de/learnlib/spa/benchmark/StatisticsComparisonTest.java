@@ -0,0 +1,202 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class StatisticsComparisonTest {
+
+    private static final String TTT = "SPA (TTT)";
+    private static final String QUOTED = "SPA (\"RS\", reuse)";
+
+    @DataProvider(name = "formats")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {".csv"}, new Object[] {".json"}};
+    }
+
+    @Test(dataProvider = "formats")
+    public void testRoundTrip(String suffix) throws IOException {
+        final Map<String, List<LearningStatistics<?>>> results = new LinkedHashMap<>();
+        results.put(TTT, createRuns(100, 3));
+        results.put(QUOTED, createRuns(200, 2));
+
+        final Map<String, Map<String, List<Long>>> loaded = load(suffix, results);
+
+        Assert.assertEquals(loaded.keySet(), results.keySet());
+
+        for (final Map.Entry<String, List<LearningStatistics<?>>> e : results.entrySet()) {
+            final Map<String, List<Long>> metrics = loaded.get(e.getKey());
+            final List<LearningStatistics<?>> runs = e.getValue();
+
+            Assert.assertEquals(metrics.get("run").size(), runs.size());
+
+            for (int i = 0; i < runs.size(); i++) {
+                final LearningStatistics<?> stats = runs.get(i);
+
+                Assert.assertEquals(metrics.get("run").get(i).longValue(), i);
+                Assert.assertEquals(metrics.get("ces").get(i).longValue(), stats.getNumberOfCEs());
+                Assert.assertEquals(metrics.get("mqs").get(i).longValue(), stats.getNumberOfMQs());
+                Assert.assertEquals(metrics.get("symbols").get(i).longValue(), stats.getNumberOfSymbols());
+                Assert.assertEquals(metrics.get("size").get(i).longValue(), stats.getSize());
+                Assert.assertEquals(metrics.get("globalRefinements").get(i).longValue(),
+                                    stats.getNumberOfGlobalRefinements());
+                Assert.assertEquals(metrics.get("localRefinements").get(i).longValue(),
+                                    stats.getNumberOfLocalRefinements());
+                Assert.assertEquals(metrics.get("localCELengths").get(i).longValue(), stats.getSumOfLocalCELengths());
+                Assert.assertEquals(metrics.get("cost").get(i).longValue(), stats.getTotalCost());
+            }
+        }
+    }
+
+    @Test
+    public void testJSONEscaping() throws IOException {
+        final String special = "SPA\n(\"RS\"\t\\ \u0001)";
+
+        Assert.assertEquals(StatisticsWriter.unescapeJSON(StatisticsWriter.escapeJSON(special)), special);
+        Assert.assertEquals(StatisticsWriter.unescapeJSON("\"a\\/\\r\\u0041\""), "a/\rA");
+
+        final Map<String, List<LearningStatistics<?>>> results = new LinkedHashMap<>();
+        results.put(special, createRuns(100, 2));
+        results.put(QUOTED, createRuns(200, 2));
+
+        final Map<String, Map<String, List<Long>>> loaded = load(".json", results);
+
+        Assert.assertEquals(loaded.keySet(), results.keySet());
+        Assert.assertEquals(loaded.get(special).get("mqs"), Arrays.asList(100L, 101L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidJSONEscape() {
+        StatisticsWriter.unescapeJSON("\"\\u00\"");
+    }
+
+    @Test
+    public void testZeroBaselineMean() {
+        final StatisticsComparison.Regression regression =
+                new StatisticsComparison.Regression(TTT, "localRefinements", 0, 2, 0.01);
+
+        final String description = regression.toString();
+
+        // no relative increase is reported for a zero mean
+        Assert.assertTrue(description.startsWith("Regression in SPA (TTT) [localRefinements]: "));
+        Assert.assertFalse(description.contains("%"));
+        Assert.assertFalse(description.contains("Infinity"));
+        Assert.assertFalse(description.contains("NaN"));
+    }
+
+    @Test(dataProvider = "formats")
+    public void testCompare(String suffix) throws IOException {
+        final Map<String, List<LearningStatistics<?>>> baseline = new LinkedHashMap<>();
+        baseline.put(TTT, createRuns(100, 10));
+        baseline.put(QUOTED, createRuns(100, 10));
+
+        final Map<String, List<LearningStatistics<?>>> candidate = new LinkedHashMap<>();
+        candidate.put(TTT, createRuns(100, 10));
+        candidate.put(QUOTED, createRuns(150, 10));
+
+        final List<StatisticsComparison.Regression> regressions =
+                StatisticsComparison.compare(load(suffix, baseline), load(suffix, candidate), 0.05, 0.05);
+
+        final List<String> metrics = new ArrayList<>();
+        for (final StatisticsComparison.Regression r : regressions) {
+            Assert.assertEquals(r.getConfiguration(), QUOTED);
+            Assert.assertTrue(r.getCandidateMean() > r.getBaselineMean());
+            Assert.assertTrue(r.getPValue() < 0.05);
+            metrics.add(r.getMetric());
+        }
+
+        // the number of symbols and the cost scale with the number of queries
+        Assert.assertEquals(metrics, Arrays.asList("mqs", "symbols", "cost"));
+
+        // configurations that are missing in the candidate results are skipped
+        candidate.remove(QUOTED);
+        Assert.assertTrue(StatisticsComparison.compare(load(suffix, baseline), load(suffix, candidate), 0.05, 0.05)
+                                              .isEmpty());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMissingConfiguration() throws IOException {
+        final Path path = Files.createTempFile("statistics", ".json");
+
+        try {
+            Files.write(path,
+                        Arrays.asList("[", "  {\"run\": 0, \"mqs\": 100, \"symbols\": 1000}", "]"),
+                        StandardCharsets.UTF_8);
+            StatisticsComparison.load(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static Map<String, Map<String, List<Long>>> load(String suffix,
+                                                              Map<String, List<LearningStatistics<?>>> results)
+            throws IOException {
+        final Path path = Files.createTempFile("statistics", suffix);
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                if (".json".equals(suffix)) {
+                    StatisticsWriter.writeJSON(writer, results);
+                } else {
+                    StatisticsWriter.writeCSV(writer, results);
+                }
+            }
+
+            return StatisticsComparison.load(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Creates runs whose number of queries varies slightly around the given value.
+     */
+    private static List<LearningStatistics<?>> createRuns(int queries, int runs) {
+        final List<LearningStatistics<?>> result = new ArrayList<>(runs);
+        final StopWatch stopWatch = StopWatch.createStarted();
+        stopWatch.stop();
+
+        for (int i = 0; i < runs; i++) {
+            final long mqs = queries + i % 3;
+            result.add(new LearningStatistics<>(i + 1,
+                                                mqs,
+                                                mqs * 10,
+                                                stopWatch,
+                                                null,
+                                                i,
+                                                2 * i,
+                                                3 * i,
+                                                null,
+                                                mqs * 20));
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,258 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa;
+
+import java.util.Arrays;
+
+/**
+ * An immutable word of primitive symbol indices, used for the internal (index-based) processing of SPA words. Symbol
+ * indices are assigned by a {@link TransformationUtil}, which also converts between {@link IntWord}s and regular
+ * {@link net.automatalib.words.Word}s at the API boundary.
+ * <p>
+ * Sub-words are views on the same underlying array and can therefore be created in constant time. Words that are
+ * stored long-term should be {@link #compact() compacted}, so that they do not retain the array of the original word.
+ *
+ * @author frohme
+ */
+public final class IntWord {
+
+    private static final IntWord EPSILON = new IntWord(new int[0], 0, 0);
+
+    private final int[] symbols;
+    private final int offset;
+    private final int length;
+
+    private IntWord(int[] symbols, int offset, int length) {
+        this.symbols = symbols;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static IntWord epsilon() {
+        return EPSILON;
+    }
+
+    /**
+     * Creates a word from the given symbols. The array is copied.
+     */
+    public static IntWord of(int... symbols) {
+        return symbols.length == 0 ? EPSILON : new IntWord(symbols.clone(), 0, symbols.length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public int getSymbol(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        return symbols[offset + index];
+    }
+
+    public IntWord subWord(int fromIndex) {
+        return subWord(fromIndex, length);
+    }
+
+    public IntWord subWord(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(fromIndex + ", " + toIndex);
+        }
+        if (fromIndex == toIndex) {
+            return EPSILON;
+        }
+        return new IntWord(symbols, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    public IntWord prefix(int prefixLength) {
+        return subWord(0, prefixLength);
+    }
+
+    public IntWord concat(IntWord other) {
+        if (other.isEmpty()) {
+            return this;
+        } else if (isEmpty()) {
+            return other;
+        }
+
+        final int[] result = new int[length + other.length];
+        System.arraycopy(symbols, offset, result, 0, length);
+        System.arraycopy(other.symbols, other.offset, result, length, other.length);
+        return new IntWord(result, 0, result.length);
+    }
+
+    /**
+     * Returns a word of the same symbols that does not share the underlying array with other words, i.e. a copy if this
+     * word is a view on a larger array and this word otherwise.
+     */
+    public IntWord compact() {
+        if (offset == 0 && length == symbols.length) {
+            return this;
+        }
+        return new IntWord(toArray(), 0, length);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOfRange(symbols, offset, offset + length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntWord)) {
+            return false;
+        }
+
+        final IntWord that = (IntWord) o;
+
+        if (length != that.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (symbols[offset + i] != that.symbols[that.offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = offset; i < offset + length; i++) {
+            result = 31 * result + symbols[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * A mutable, growable sequence of symbol indices for constructing {@link IntWord}s.
+     */
+    public static final class Builder {
+
+        private int[] array;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int capacity) {
+            this.array = new int[Math.max(capacity, 1)];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return array[index];
+        }
+
+        public Builder add(int symbol) {
+            ensureCapacity(size + 1);
+            array[size++] = symbol;
+            return this;
+        }
+
+        public Builder addAll(IntWord word) {
+            ensureCapacity(size + word.length);
+            System.arraycopy(word.symbols, word.offset, array, size, word.length);
+            size += word.length;
+            return this;
+        }
+
+        /**
+         * Inserts the symbols of the given word before the given index.
+         */
+        public Builder insert(int index, IntWord word) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            ensureCapacity(size + word.length);
+            System.arraycopy(array, index, array, index + word.length, size - index);
+            System.arraycopy(word.symbols, word.offset, array, index, word.length);
+            size += word.length;
+            return this;
+        }
+
+        /**
+         * Removes the symbols in the range {@code [fromIndex, toIndex)}.
+         */
+        public Builder remove(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException(fromIndex + ", " + toIndex);
+            }
+            System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+            size -= toIndex - fromIndex;
+            return this;
+        }
+
+        /**
+         * Removes all symbols from the given index onwards.
+         */
+        public Builder truncate(int newSize) {
+            return remove(newSize, size);
+        }
+
+        public Builder clear() {
+            size = 0;
+            return this;
+        }
+
+        /**
+         * @return a word of the current symbols. Subsequent modifications of this builder do not affect the word
+         */
+        public IntWord toWord() {
+            return toWord(0, size);
+        }
+
+        /**
+         * @return a word of the symbols in the range {@code [fromIndex, toIndex)}. Subsequent modifications of this
+         * builder do not affect the word
+         */
+        public IntWord toWord(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException(fromIndex + ", " + toIndex);
+            }
+            if (fromIndex == toIndex) {
+                return EPSILON;
+            }
+            return new IntWord(Arrays.copyOfRange(array, fromIndex, toIndex), 0, toIndex - fromIndex);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > array.length) {
+                array = Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+            }
+        }
+    }
+}
@@ -15,14 +15,26 @@
 package de.learnlib.spa;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
 
+import com.google.common.collect.Maps;
 import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
 import net.automatalib.words.Word;
 import net.automatalib.words.WordBuilder;
 
 /**
  * Utility class for projecting/expanding words and index calculations.
+ * <p>
+ * The computations are performed on {@link IntWord}s, whose symbols are indices of the alphabet: internal symbols are
+ * mapped to {@code [0, #internals)}, call symbols to {@code [#internals, #internals + #calls)} and the return symbol
+ * to {@code #internals + #calls}. Hence, determining the type of a symbol only requires an integer comparison. The
+ * methods for regular {@link Word}s operate on the words directly, so that callers that only hold a {@link Word} do not
+ * need to encode it first.
  *
  * @param <I>
  *         input symbol class
@@ -32,9 +44,81 @@ import net.automatalib.words.WordBuilder;
 public class TransformationUtil<I> {
 
     private final SPAAlphabet<I> alphabet;
+    private final Map<I, Integer> indices;
+    private final Object[] symbols;
+    private final int numInternals;
+    private final int returnIndex;
 
     public TransformationUtil(SPAAlphabet<I> alphabet) {
         this.alphabet = alphabet;
+        this.numInternals = alphabet.getNumInternals();
+        this.returnIndex = this.numInternals + alphabet.getNumCalls();
+        this.symbols = new Object[this.returnIndex + 1];
+        this.indices = Maps.newHashMapWithExpectedSize(this.symbols.length);
+
+        for (int i = 0; i < alphabet.getNumInternals(); i++) {
+            register(alphabet.getInternalSymbol(i), i);
+        }
+        for (int i = 0; i < alphabet.getNumCalls(); i++) {
+            register(alphabet.getCallSymbol(i), this.numInternals + i);
+        }
+        register(alphabet.getReturnSymbol(), this.returnIndex);
+    }
+
+    private void register(I symbol, int index) {
+        this.symbols[index] = symbol;
+        this.indices.put(symbol, index);
+    }
+
+    public int encode(I symbol) {
+        final Integer index = this.indices.get(symbol);
+
+        if (index == null) {
+            throw new IllegalArgumentException("Symbol is not contained in the alphabet: " + symbol);
+        }
+
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    public I decode(int symbol) {
+        return (I) this.symbols[symbol];
+    }
+
+    public IntWord encode(Word<I> word) {
+        final int[] result = new int[word.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = encode(word.getSymbol(i));
+        }
+
+        return IntWord.of(result);
+    }
+
+    public Word<I> decode(IntWord word) {
+        final WordBuilder<I> wb = new WordBuilder<>(word.length());
+
+        for (int i = 0; i < word.length(); i++) {
+            wb.append(decode(word.getSymbol(i)));
+        }
+
+        return wb.toWord();
+    }
+
+    public boolean isInternalSymbol(int symbol) {
+        return symbol < this.numInternals;
+    }
+
+    public boolean isCallSymbol(int symbol) {
+        return symbol >= this.numInternals && symbol < this.returnIndex;
+    }
+
+    public boolean isReturnSymbol(int symbol) {
+        return symbol == this.returnIndex;
+    }
+
+    public int getReturnSymbol() {
+        return this.returnIndex;
     }
 
     /**
@@ -67,6 +151,37 @@ public class TransformationUtil<I> {
         return -1;
     }
 
+    public int findCallIndex(final IntWord input, final int idx) {
+        return findCallIndex(input::getSymbol, idx);
+    }
+
+    public int findCallIndex(final IntWord.Builder input, final int idx) {
+        return findCallIndex(input::get, idx);
+    }
+
+    private int findCallIndex(final IntUnaryOperator input, final int idx) {
+
+        int balance = 0;
+
+        for (int i = idx - 1; i >= 0; i--) {
+            final int sym = input.applyAsInt(i);
+
+            if (isReturnSymbol(sym)) {
+                balance++;
+            }
+
+            if (isCallSymbol(sym)) {
+                if (balance > 0) {
+                    balance--;
+                } else {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * replaces all inner calls with an abstracted procedure call.
      */
@@ -83,10 +198,33 @@ public class TransformationUtil<I> {
                     throw new IllegalArgumentException();
                 }
 
-                wb.append(input.getSymbol(i));
+                wb.append(sym);
                 i = returnIdx;
             } else {
-                wb.append(input.getSymbol(i));
+                wb.append(sym);
+            }
+        }
+
+        return wb.toWord();
+    }
+
+    public IntWord normalize(final IntWord input, final int idx) {
+        final IntWord.Builder wb = new IntWord.Builder(input.length());
+
+        for (int i = idx; i < input.length(); i++) {
+            final int sym = input.getSymbol(i);
+
+            if (isCallSymbol(sym)) {
+                final int returnIdx = findReturnIndex(input, i + 1);
+
+                if (returnIdx == -1) {
+                    throw new IllegalArgumentException();
+                }
+
+                wb.add(sym);
+                i = returnIdx;
+            } else {
+                wb.add(sym);
             }
         }
 
@@ -123,11 +261,42 @@ public class TransformationUtil<I> {
         return -1;
     }
 
+    public int findReturnIndex(final IntWord input, final int idx) {
+        return findReturnIndex(input::getSymbol, input.length(), idx);
+    }
+
+    public int findReturnIndex(final IntWord.Builder input, final int idx) {
+        return findReturnIndex(input::get, input.size(), idx);
+    }
+
+    private int findReturnIndex(final IntUnaryOperator input, final int size, final int idx) {
+
+        int balance = 0;
+
+        for (int i = idx; i < size; i++) {
+            final int sym = input.applyAsInt(i);
+
+            if (isCallSymbol(sym)) {
+                balance++;
+            }
+
+            if (isReturnSymbol(sym)) {
+                if (balance > 0) {
+                    balance--;
+                } else {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Replaces all abstracted procedure calls with their corresponding terminating sequence.
      */
     public Word<I> expand(final Word<I> input, final Function<I, Word<I>> terminatingSequenceProvider) {
-        final WordBuilder<I> wb = new WordBuilder<>();
+        final WordBuilder<I> wb = new WordBuilder<>(input.size());
 
         for (int i = 0; i < input.size(); i++) {
             final I sym = input.getSymbol(i);
@@ -143,4 +312,80 @@ public class TransformationUtil<I> {
 
         return wb.toWord();
     }
+
+    public IntWord expand(final IntWord input, final IntFunction<IntWord> terminatingSequenceProvider) {
+        final IntWord.Builder wb = new IntWord.Builder(input.length());
+
+        for (int i = 0; i < input.length(); i++) {
+            final int sym = input.getSymbol(i);
+
+            if (isCallSymbol(sym)) {
+                wb.add(sym);
+                wb.addAll(terminatingSequenceProvider.apply(sym));
+                wb.add(this.returnIndex);
+            } else {
+                wb.add(sym);
+            }
+        }
+
+        return wb.toWord();
+    }
+
+    /**
+     * Tabulates the given cost model, so that the costs of encoded symbols can be looked up by their index.
+     */
+    public long[] encodeCosts(final SymbolCostModel<I> costModel) {
+        final long[] result = new long[this.symbols.length];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = costModel.getCost(decode(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the cost of the given word, using the costs tabulated by {@link #encodeCosts(SymbolCostModel)}.
+     */
+    public long getCost(final IntWord input, final long[] costs) {
+        long result = 0;
+
+        for (int i = 0; i < input.length(); i++) {
+            result += costs[input.getSymbol(i)];
+        }
+
+        return result;
+    }
+
+    public long getCost(final IntWord.Builder input, final int from, final int to, final long[] costs) {
+        long result = 0;
+
+        for (int i = from; i < to; i++) {
+            result += costs[input.get(i)];
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the cost of the word {@link #expand(IntWord, IntFunction) expanded} from the given input without
+     * constructing it. The provider returns the cost of the terminating sequence of a call symbol.
+     */
+    public long getExpandedCost(final IntWord input,
+                                final long[] costs,
+                                final IntToLongFunction terminatingCostProvider) {
+        long result = 0;
+
+        for (int i = 0; i < input.length(); i++) {
+            final int sym = input.getSymbol(i);
+
+            result += costs[sym];
+
+            if (isCallSymbol(sym)) {
+                result += terminatingCostProvider.applyAsLong(sym) + costs[this.returnIndex];
+            }
+        }
+
+        return result;
+    }
 }
@@ -0,0 +1,48 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.api;
+
+import net.automatalib.words.Word;
+
+/**
+ * A listener that is notified whenever an {@link ATRProvider} changes the access, terminating or return sequence of a
+ * procedure.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+@FunctionalInterface
+public interface ATRListener<I> {
+
+    /**
+     * Called after a sequence of a procedure has been changed.
+     *
+     * @param procedure
+     *         the procedure
+     * @param type
+     *         the type of the changed sequence
+     * @param sequence
+     *         the new sequence
+     */
+    void sequenceChanged(I procedure, SequenceType type, Word<I> sequence);
+
+    enum SequenceType {
+        ACCESS,
+        TERMINATING,
+        RETURN
+    }
+}
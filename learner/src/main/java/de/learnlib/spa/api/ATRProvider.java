@@ -19,11 +19,18 @@ import java.util.Map;
 import java.util.Set;
 
 import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.oracle.MembershipOracle;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Word;
 
 public interface ATRProvider<I> {
 
+    /**
+     * The version reported by providers that do not track changes of their sequences. Information derived from the
+     * sequences of such providers must not be cached.
+     */
+    long UNVERSIONED = -1;
+
     Word<I> getAccessSequence(I procedure);
 
     Word<I> getTerminatingSequence(I procedure);
@@ -41,4 +48,63 @@ public interface ATRProvider<I> {
                                Map<I, ? extends AccessSequenceTransformer<I>> providers,
                                Collection<I> inputs);
 
+    /**
+     * Looks for shorter access and return sequences by embedding the calls of procedures into paths of the given
+     * (hypothesis) procedures. Since hypotheses may be incorrect, candidate sequences need to be verified with the
+     * given oracle before they are used. By default, this method does nothing.
+     *
+     * @param procedures
+     *         the (hypothesis) procedures
+     * @param inputs
+     *         the symbols that may be used in paths of the procedures
+     * @param oracle
+     *         the oracle for verifying candidate sequences
+     */
+    default void optimizeAccessAndReturnSequences(Map<I, ? extends DFA<?, I>> procedures,
+                                                  Collection<I> inputs,
+                                                  MembershipOracle<I, Boolean> oracle) {}
+
+    /**
+     * Returns the global version of the provided sequences. The version is incremented whenever any sequence of any
+     * procedure changes, so that information derived from the sequences (e.g. expanded queries) can be invalidated.
+     * By default, this method returns {@link #UNVERSIONED}, which tells consumers to re-read the sequences on every
+     * access.
+     *
+     * @return the global version (a non-negative number), or {@link #UNVERSIONED} if changes are not tracked
+     */
+    default long getVersion() {
+        return UNVERSIONED;
+    }
+
+    /**
+     * Returns the version of the sequences of the given procedure. The version is incremented whenever the access,
+     * terminating or return sequence of the procedure changes. By default, this method returns {@link #UNVERSIONED}.
+     *
+     * @param procedure
+     *         the procedure
+     *
+     * @return the version of the sequences of the given procedure, {@code 0} if no sequences are known yet, or {@link
+     * #UNVERSIONED} if changes are not tracked
+     */
+    default long getVersion(I procedure) {
+        return UNVERSIONED;
+    }
+
+    /**
+     * Registers a listener that is notified about every change of a sequence. By default, this method does nothing, i.e.
+     * unversioned providers do not notify listeners.
+     *
+     * @param listener
+     *         the listener
+     */
+    default void addATRListener(ATRListener<I> listener) {}
+
+    /**
+     * Unregisters a previously registered listener. By default, this method does nothing.
+     *
+     * @param listener
+     *         the listener
+     */
+    default void removeATRListener(ATRListener<I> listener) {}
+
 }
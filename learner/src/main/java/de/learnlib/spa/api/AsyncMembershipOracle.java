@@ -0,0 +1,55 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.api;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import net.automatalib.words.Word;
+
+/**
+ * A non-blocking variant of a {@link de.learnlib.api.oracle.MembershipOracle}. Instead of answering the queries before
+ * returning, implementations return a future that completes once all queries of the batch have been answered. This
+ * allows to pipeline queries to systems with a high latency per query.
+ * <p>
+ * See {@link de.learnlib.spa.impl.AsyncOracles} for adapters from and to regular membership oracles.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ *
+ * @author frohme
+ */
+public interface AsyncMembershipOracle<I, D> {
+
+    /**
+     * Submits a batch of queries.
+     *
+     * @param queries
+     *         the queries to answer
+     *
+     * @return a future that completes (exceptionally, if answering failed) once all queries have been answered
+     */
+    CompletableFuture<Void> processQueriesAsync(Collection<? extends Query<I, D>> queries);
+
+    default CompletableFuture<D> answerQueryAsync(Word<I> input) {
+        final DefaultQuery<I, D> query = new DefaultQuery<>(input);
+        return processQueriesAsync(Collections.singleton(query)).thenApply(v -> query.getOutput());
+    }
+}
@@ -0,0 +1,40 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.api;
+
+import de.learnlib.api.SUL;
+
+/**
+ * A {@link SUL} whose current state can be copied. In contrast to {@link SUL#fork()}, which creates an independent
+ * instance in its initial state, a copy continues from the state the original SUL is currently in. This allows to
+ * execute shared prefixes of queries only once.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <O>
+ *         output symbol type
+ *
+ * @author frohme
+ */
+public interface CopyableSUL<I, O> extends SUL<I, O> {
+
+    /**
+     * Creates a copy of this SUL in its current state. The copy evolves independently of this SUL and needs to be
+     * {@link #post() shut down} separately. Neither this SUL nor the copy needs another {@link #pre()} invocation.
+     *
+     * @return the copy
+     */
+    CopyableSUL<I, O> copy();
+}
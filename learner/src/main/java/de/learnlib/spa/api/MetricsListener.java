@@ -0,0 +1,92 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.api;
+
+import javax.annotation.Nullable;
+
+/**
+ * A listener for live metrics of a running learning process. All methods have an empty default implementation, so that
+ * implementations only need to override the events they are interested in. Implementations may be called from
+ * multiple threads, if queries are answered concurrently.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public interface MetricsListener<I> {
+
+    /**
+     * A listener that ignores all events. Can be used for any input symbol type.
+     */
+    MetricsListener<Object> NOOP = new MetricsListener<Object>() {};
+
+    /**
+     * Called after a batch of membership queries has been answered.
+     *
+     * @param procedure
+     *         the procedure whose local queries have been answered, or {@code null} for global queries (e.g. during
+     *         counterexample analysis)
+     * @param batchSize
+     *         the number of queries in the batch
+     * @param symbols
+     *         the total number of symbols of the (expanded) queries in the batch
+     * @param nanos
+     *         the time it took to answer the batch
+     */
+    default void queriesAnswered(@Nullable I procedure, int batchSize, long symbols, long nanos) {}
+
+    /**
+     * Called whenever a global counterexample is processed.
+     *
+     * @param length
+     *         the length of the counterexample
+     */
+    default void counterexampleProcessed(int length) {}
+
+    /**
+     * Called whenever a local counterexample is passed to the sub-learner of a procedure.
+     *
+     * @param procedure
+     *         the procedure
+     * @param length
+     *         the length of the local counterexample
+     */
+    default void localCounterexampleProcessed(I procedure, int length) {}
+
+    /**
+     * Called whenever the hypothesis of a procedure may have changed.
+     *
+     * @param procedure
+     *         the procedure
+     * @param size
+     *         the (current) size of the procedural hypothesis
+     */
+    default void hypothesisSizeChanged(I procedure, int size) {}
+
+    /**
+     * Called whenever the access, terminating or return sequence of a procedure may have changed.
+     *
+     * @param procedure
+     *         the procedure
+     * @param accessLength
+     *         the length of the current access sequence
+     * @param terminatingLength
+     *         the length of the current terminating sequence
+     * @param returnLength
+     *         the length of the current return sequence
+     */
+    default void sequencesUpdated(I procedure, int accessLength, int terminatingLength, int returnLength) {}
+}
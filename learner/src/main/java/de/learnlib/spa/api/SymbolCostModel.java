@@ -0,0 +1,92 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.api;
+
+import net.automatalib.words.Word;
+
+/**
+ * A model of the (expected) execution cost of the input symbols of a system. Costs allow to prefer sequences that are
+ * cheap to execute over sequences that are merely short, e.g. if call symbols spawn processes whereas internal symbols
+ * only perform cheap operations.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+@FunctionalInterface
+public interface SymbolCostModel<I> {
+
+    /**
+     * Returns a cost model that assigns a cost of {@code 1} to every symbol, i.e. the cost of a word equals its length.
+     *
+     * @param <I>
+     *         input symbol type
+     *
+     * @return the uniform cost model
+     */
+    static <I> SymbolCostModel<I> uniform() {
+        return i -> 1;
+    }
+
+    /**
+     * Returns a cost model that assigns fixed costs to the internal, call and return symbols of the given alphabet.
+     *
+     * @param alphabet
+     *         the alphabet
+     * @param internalCost
+     *         the cost of every internal symbol
+     * @param callCost
+     *         the cost of every call symbol
+     * @param returnCost
+     *         the cost of the return symbol
+     * @param <I>
+     *         input symbol type
+     *
+     * @return the cost model
+     */
+    static <I> SymbolCostModel<I> bySymbolType(SPAAlphabet<I> alphabet,
+                                               long internalCost,
+                                               long callCost,
+                                               long returnCost) {
+        return i -> alphabet.isCallSymbol(i) ? callCost : alphabet.isReturnSymbol(i) ? returnCost : internalCost;
+    }
+
+    /**
+     * Returns the cost of executing the given symbol.
+     *
+     * @param symbol
+     *         the symbol
+     *
+     * @return the (non-negative) cost of the symbol
+     */
+    long getCost(I symbol);
+
+    /**
+     * Returns the cost of executing the given word, i.e. the sum of the costs of its symbols.
+     *
+     * @param word
+     *         the word
+     *
+     * @return the cost of the word
+     */
+    default long getCost(Word<? extends I> word) {
+        long result = 0;
+        for (final I i : word) {
+            result += getCost(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.config;
+
+import java.util.Objects;
+
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.Alphabet;
+
+/**
+ * Builder-style configuration of the counterexample analysis of a sub-procedural learner. The analyzer determines the
+ * search strategy (linear, binary or exponential, see {@link AcexAnalyzers}) and its direction (forward or backward),
+ * which trades the number of queries for their length.
+ * <p>
+ * Usage: {@code new SPALearner<>(alphabet, oracle, TTTAdapter.<I>builder().withAnalyzer(LINEAR_BWD)::create)}.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <L>
+ *         adapter type
+ *
+ * @author frohme
+ */
+public final class AdapterBuilder<I, L> {
+
+    private final AdapterFactory<I, L> factory;
+    private AcexAnalyzer analyzer;
+
+    AdapterBuilder(AdapterFactory<I, L> factory, AcexAnalyzer defaultAnalyzer) {
+        this.factory = factory;
+        this.analyzer = defaultAnalyzer;
+    }
+
+    /**
+     * Sets the analyzer for the local counterexample analysis of the created adapters.
+     *
+     * @param analyzer
+     *         the analyzer, must not be {@code null}
+     *
+     * @return {@code this}
+     */
+    public AdapterBuilder<I, L> withAnalyzer(AcexAnalyzer analyzer) {
+        this.analyzer = Objects.requireNonNull(analyzer);
+        return this;
+    }
+
+    public AcexAnalyzer getAnalyzer() {
+        return this.analyzer;
+    }
+
+    public L create(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
+        return this.factory.create(alphabet, oracle, this.analyzer);
+    }
+
+    @FunctionalInterface
+    interface AdapterFactory<I, L> {
+
+        L create(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, AcexAnalyzer analyzer);
+    }
+}
@@ -14,11 +14,13 @@
  */
 package de.learnlib.spa.config;
 
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
 import de.learnlib.algorithms.discriminationtree.dfa.DTLearnerDFA;
 import de.learnlib.api.AccessSequenceTransformer;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
-import de.learnlib.counterexamples.LocalSuffixFinders;
+import de.learnlib.counterexamples.AcexLocalSuffixFinder;
 import de.learnlib.spa.LocalRefinementCounter;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
@@ -38,7 +40,17 @@ public class DiscriminationTreeAdapter<I> extends DTLearnerDFA<I>
     private long sumOfLocalCELengths;
 
     public DiscriminationTreeAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
-        super(alphabet, oracle, LocalSuffixFinders.RIVEST_SCHAPIRE, true, true);
+        this(alphabet, oracle, AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    public DiscriminationTreeAdapter(Alphabet<I> alphabet,
+                                     MembershipOracle<I, Boolean> oracle,
+                                     AcexAnalyzer analyzer) {
+        super(alphabet, oracle, new AcexLocalSuffixFinder(analyzer, true, analyzer.toString()), true, true);
+    }
+
+    public static <I> AdapterBuilder<I, DiscriminationTreeAdapter<I>> builder() {
+        return new AdapterBuilder<>(DiscriminationTreeAdapter::new, AcexAnalyzers.BINARY_SEARCH_BWD);
     }
 
     @Override
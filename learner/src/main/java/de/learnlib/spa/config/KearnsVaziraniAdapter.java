@@ -14,6 +14,7 @@
  */
 package de.learnlib.spa.config;
 
+import de.learnlib.acex.AcexAnalyzer;
 import de.learnlib.acex.analyzers.AcexAnalyzers;
 import de.learnlib.algorithms.kv.dfa.KearnsVaziraniDFA;
 import de.learnlib.api.AccessSequenceTransformer;
@@ -39,7 +40,15 @@ public class KearnsVaziraniAdapter<I> extends KearnsVaziraniDFA<I>
     private long sumOfLocalCELengths;
 
     public KearnsVaziraniAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
-        super(alphabet, oracle, false, AcexAnalyzers.LINEAR_FWD);
+        this(alphabet, oracle, AcexAnalyzers.LINEAR_FWD);
+    }
+
+    public KearnsVaziraniAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, AcexAnalyzer analyzer) {
+        super(alphabet, oracle, false, analyzer);
+    }
+
+    public static <I> AdapterBuilder<I, KearnsVaziraniAdapter<I>> builder() {
+        return new AdapterBuilder<>(KearnsVaziraniAdapter::new, AcexAnalyzers.LINEAR_FWD);
     }
 
     @Override
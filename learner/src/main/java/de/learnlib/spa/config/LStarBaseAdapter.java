@@ -14,16 +14,12 @@
  */
 package de.learnlib.spa.config;
 
-import java.util.Objects;
-
 import de.learnlib.algorithms.lstar.dfa.ClassicLStarDFA;
 import de.learnlib.api.AccessSequenceTransformer;
 import de.learnlib.api.algorithm.LearningAlgorithm;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
-import de.learnlib.datastructure.observationtable.ObservationTable;
 import de.learnlib.spa.LocalRefinementCounter;
-import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
 
@@ -41,6 +37,8 @@ public class LStarBaseAdapter<I> extends ClassicLStarDFA<I>
     private long localRefinements;
     private long sumOfLocalCELengths;
 
+    private Word<I>[] accessSequenceIndex;
+
     public LStarBaseAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
         super(alphabet, oracle);
     }
@@ -57,22 +55,46 @@ public class LStarBaseAdapter<I> extends ClassicLStarDFA<I>
         return localRefinements;
     }
 
+    @Override
+    protected void updateInternalHypothesis() {
+        super.updateInternalHypothesis();
+        // the state of a short prefix may change with every update
+        this.accessSequenceIndex = null;
+    }
+
     @Override
     public Word<I> transformAccessSequence(Word<I> word) {
-        final DFA<?, I> hypothesis = super.getHypothesisModel();
-        final ObservationTable<I, Boolean> observationTable = super.getObservationTable();
+        final Integer reachedState = super.internalHyp.getState(word);
+        final Word<I> accessSequence = reachedState == null ? null : getAccessSequenceIndex()[reachedState];
 
-        final Object reachedState = hypothesis.getState(word);
+        if (accessSequence == null) {
+            throw new IllegalStateException("This should not have happened");
+        }
+
+        return accessSequence;
+    }
 
-        for (final Word<I> shortPrefix : observationTable.getShortPrefixes()) {
-            final Object reachedSPState = hypothesis.getState(shortPrefix);
+    /**
+     * Returns for each hypothesis state (id) the first short prefix of the observation table that reaches it. The index
+     * is computed lazily and kept until the next update of the hypothesis.
+     */
+    private Word<I>[] getAccessSequenceIndex() {
+        if (this.accessSequenceIndex == null) {
+            @SuppressWarnings("unchecked")
+            final Word<I>[] index = (Word<I>[]) new Word<?>[super.internalHyp.size()];
 
-            if (Objects.equals(reachedState, reachedSPState)) {
-                return shortPrefix;
+            for (final Word<I> shortPrefix : super.getObservationTable().getShortPrefixes()) {
+                final int state = super.internalHyp.getState(shortPrefix);
+
+                if (index[state] == null) {
+                    index[state] = shortPrefix;
+                }
             }
+
+            this.accessSequenceIndex = index;
         }
 
-        throw new IllegalStateException("This should not have happened");
+        return this.accessSequenceIndex;
     }
 
     @Override
@@ -14,27 +14,58 @@
  */
 package de.learnlib.spa.config;
 
-import java.util.Objects;
+import java.util.Collections;
 
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.algorithms.lstar.ce.ObservationTableCEXHandlers;
+import de.learnlib.algorithms.lstar.closing.ClosingStrategies;
+import de.learnlib.algorithms.lstar.dfa.ExtensibleLStarDFA;
 import de.learnlib.algorithms.rivestschapire.RivestSchapireDFA;
 import de.learnlib.api.AccessSequenceTransformer;
 import de.learnlib.api.algorithm.LearningAlgorithm;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
-import de.learnlib.datastructure.observationtable.ObservationTable;
+import de.learnlib.counterexamples.AcexLocalSuffixFinder;
 import de.learnlib.spa.LocalRefinementCounter;
-import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
 
-public class RivestSchapireAdapter<I> extends RivestSchapireDFA<I>
+/**
+ * Adapter for using a {@link RivestSchapireDFA}-style learner as a sub-procedural learner. In contrast to {@link
+ * RivestSchapireDFA}, the search for the distinguishing suffix of a counterexample can be configured via an {@link
+ * AcexAnalyzer}. The default ({@link AcexAnalyzers#BINARY_SEARCH_BWD}) corresponds to the original
+ * Rivest-Schapire analysis.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class RivestSchapireAdapter<I> extends ExtensibleLStarDFA<I>
         implements AccessSequenceTransformer<I>, LearningAlgorithm.DFALearner<I>, LocalRefinementCounter {
 
     private long localRefinements;
     private long sumOfLocalCELengths;
 
+    private Word<I>[] accessSequenceIndex;
+
     public RivestSchapireAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
-        super(alphabet, oracle);
+        this(alphabet, oracle, AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    public RivestSchapireAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, AcexAnalyzer analyzer) {
+        super(alphabet,
+              oracle,
+              Collections.emptyList(),
+              ObservationTableCEXHandlers.fromLocalSuffixFinder(new AcexLocalSuffixFinder(analyzer,
+                                                                                          true,
+                                                                                          analyzer.toString())),
+              ClosingStrategies.CLOSE_FIRST);
+    }
+
+    public static <I> AdapterBuilder<I, RivestSchapireAdapter<I>> builder() {
+        return new AdapterBuilder<>(RivestSchapireAdapter::new, AcexAnalyzers.BINARY_SEARCH_BWD);
     }
 
     @Override
@@ -49,22 +80,46 @@ public class RivestSchapireAdapter<I> extends RivestSchapireDFA<I>
         return localRefinements;
     }
 
+    @Override
+    protected void updateInternalHypothesis() {
+        super.updateInternalHypothesis();
+        // the state of a short prefix may change with every update
+        this.accessSequenceIndex = null;
+    }
+
     @Override
     public Word<I> transformAccessSequence(Word<I> word) {
-        final DFA<?, I> hypothesis = super.getHypothesisModel();
-        final ObservationTable<I, Boolean> observationTable = super.getObservationTable();
+        final Integer reachedState = super.internalHyp.getState(word);
+        final Word<I> accessSequence = reachedState == null ? null : getAccessSequenceIndex()[reachedState];
+
+        if (accessSequence == null) {
+            throw new IllegalStateException("This should not have happened");
+        }
+
+        return accessSequence;
+    }
 
-        final Object reachedState = hypothesis.getState(word);
+    /**
+     * Returns for each hypothesis state (id) the first short prefix of the observation table that reaches it. The index
+     * is computed lazily and kept until the next update of the hypothesis.
+     */
+    private Word<I>[] getAccessSequenceIndex() {
+        if (this.accessSequenceIndex == null) {
+            @SuppressWarnings("unchecked")
+            final Word<I>[] index = (Word<I>[]) new Word<?>[super.internalHyp.size()];
 
-        for (final Word<I> shortPrefix : observationTable.getShortPrefixes()) {
-            final Object reachedSPState = hypothesis.getState(shortPrefix);
+            for (final Word<I> shortPrefix : super.getObservationTable().getShortPrefixes()) {
+                final int state = super.internalHyp.getState(shortPrefix);
 
-            if (Objects.equals(reachedState, reachedSPState)) {
-                return shortPrefix;
+                if (index[state] == null) {
+                    index[state] = shortPrefix;
+                }
             }
+
+            this.accessSequenceIndex = index;
         }
 
-        throw new IllegalStateException("This should not have happened");
+        return this.accessSequenceIndex;
     }
 
     @Override
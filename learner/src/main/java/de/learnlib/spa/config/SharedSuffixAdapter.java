@@ -0,0 +1,175 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.algorithms.rivestschapire.RivestSchapireDFA;
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.algorithm.LearningAlgorithm;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.counterexamples.AcexLocalSuffixFinder;
+import de.learnlib.datastructure.observationtable.Row;
+import de.learnlib.spa.LocalRefinementCounter;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Adapter for using {@link RivestSchapireDFA} as a sub-procedural learner that shares its discriminators (the suffixes
+ * of its observation table) with the learners of the other procedures via a {@link SharedSuffixPool}.
+ * <p>
+ * Upon a counterexample, the adapter first locates the transition that is revealed to be wrong via the breakpoint
+ * search of the configured {@link AcexAnalyzer} (by default {@link AcexAnalyzers#BINARY_SEARCH_BWD}, i.e. the original
+ * Rivest-Schapire analysis). Before adding the (possibly long) counterexample suffix to the table, it checks
+ * whether one of the (best) pooled suffixes distinguishes the transition's row from the row of its target state as
+ * well. If so, this suffix is added instead, so that structurally similar procedures converge to a common, small set
+ * of suffixes. Each pooled suffix costs two membership queries per refinement; no columns are added speculatively.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class SharedSuffixAdapter<I> extends RivestSchapireDFA<I>
+        implements AccessSequenceTransformer<I>, LearningAlgorithm.DFALearner<I>, LocalRefinementCounter {
+
+    private final SharedSuffixPool<I> pool;
+    private final AcexAnalyzer analyzer;
+
+    private long localRefinements;
+    private long sumOfLocalCELengths;
+
+    private Word<I>[] accessSequenceIndex;
+
+    public SharedSuffixAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, SharedSuffixPool<I> pool) {
+        this(alphabet, oracle, pool, AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    public SharedSuffixAdapter(Alphabet<I> alphabet,
+                               MembershipOracle<I, Boolean> oracle,
+                               SharedSuffixPool<I> pool,
+                               AcexAnalyzer analyzer) {
+        super(alphabet, oracle);
+        this.pool = pool;
+        this.analyzer = analyzer;
+    }
+
+    public static <I> AdapterBuilder<I, SharedSuffixAdapter<I>> builder(SharedSuffixPool<I> pool) {
+        return new AdapterBuilder<>((alphabet, oracle, analyzer) -> new SharedSuffixAdapter<>(alphabet,
+                                                                                             oracle,
+                                                                                             pool,
+                                                                                             analyzer),
+                                    AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    @Override
+    protected void refineHypothesisInternal(DefaultQuery<I, Boolean> ceQuery) {
+        localRefinements++;
+        sumOfLocalCELengths += ceQuery.getInput().length();
+
+        final Word<I> input = ceQuery.getInput();
+        final int suffixIdx = AcexLocalSuffixFinder.findSuffixIndex(this.analyzer,
+                                                                    true,
+                                                                    ceQuery,
+                                                                    this,
+                                                                    super.hypothesisOutput(),
+                                                                    super.oracle);
+
+        // the counterexample reveals that the transition (u, a) leads to a state whose access sequence is
+        // distinguished from u a by the suffix at suffixIdx. Check whether a known discriminator does so, too
+        final Word<I> transition =
+                transformAccessSequence(input.prefix(suffixIdx - 1)).append(input.getSymbol(suffixIdx - 1));
+        final Word<I> target = transformAccessSequence(input.prefix(suffixIdx));
+        final List<Word<I>> candidates = this.pool.getCandidates(super.alphabet, super.table.getSuffixes());
+
+        final List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(2 * candidates.size());
+        for (final Word<I> candidate : candidates) {
+            queries.add(new DefaultQuery<>(transition, candidate));
+            queries.add(new DefaultQuery<>(target, candidate));
+        }
+        super.oracle.processQueries(queries);
+
+        Word<I> suffix = input.subWord(suffixIdx);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!queries.get(2 * i).getOutput().equals(queries.get(2 * i + 1).getOutput())) {
+                suffix = candidates.get(i);
+                break;
+            }
+        }
+
+        this.pool.reward(suffix);
+
+        final List<List<Row<I>>> unclosed = super.table.addSuffix(suffix, super.oracle);
+        super.completeConsistentTable(unclosed, super.cexHandler.needsConsistencyCheck());
+    }
+
+    @Override
+    public long getNumberOfLocalRefinements() {
+        return localRefinements;
+    }
+
+    @Override
+    protected void updateInternalHypothesis() {
+        super.updateInternalHypothesis();
+        // the state of a short prefix may change with every update
+        this.accessSequenceIndex = null;
+    }
+
+    @Override
+    public Word<I> transformAccessSequence(Word<I> word) {
+        final Integer reachedState = super.internalHyp.getState(word);
+        final Word<I> accessSequence = reachedState == null ? null : getAccessSequenceIndex()[reachedState];
+
+        if (accessSequence == null) {
+            throw new IllegalStateException("This should not have happened");
+        }
+
+        return accessSequence;
+    }
+
+    private Word<I>[] getAccessSequenceIndex() {
+        if (this.accessSequenceIndex == null) {
+            @SuppressWarnings("unchecked")
+            final Word<I>[] index = (Word<I>[]) new Word<?>[super.internalHyp.size()];
+
+            for (final Word<I> shortPrefix : super.getObservationTable().getShortPrefixes()) {
+                final int state = super.internalHyp.getState(shortPrefix);
+
+                if (index[state] == null) {
+                    index[state] = shortPrefix;
+                }
+            }
+
+            this.accessSequenceIndex = index;
+        }
+
+        return this.accessSequenceIndex;
+    }
+
+    @Override
+    public long getSumOfLocalCELengths() {
+        return sumOfLocalCELengths;
+    }
+
+    @Override
+    public boolean isAccessSequence(Word<I> word) {
+        return this.transformAccessSequence(word).equals(word);
+    }
+
+}
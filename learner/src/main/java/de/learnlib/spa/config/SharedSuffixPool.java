@@ -0,0 +1,111 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * A pool of discriminators (suffixes) shared by the {@link SharedSuffixAdapter}s of all procedures of an SPA. Each
+ * suffix is scored by the number of times it has been added to the observation table of any procedure. Adapters check
+ * the highest-scoring suffixes first, so that discriminators found for one procedure are reused for structurally similar
+ * ones.
+ * <p>
+ * Usage: {@code new SPALearner<>(alphabet, oracle, new SharedSuffixPool<>()::createAdapter)}. A pool should only be
+ * used for a single {@link de.learnlib.spa.learner.SPALearner}.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class SharedSuffixPool<I> {
+
+    private final int maxCandidates;
+    private final Map<Word<I>, Integer> scores;
+
+    public SharedSuffixPool() {
+        this(8);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxCandidates
+     *         the maximum number of pooled suffixes an adapter checks per refinement
+     */
+    public SharedSuffixPool(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+        this.scores = new LinkedHashMap<>();
+    }
+
+    public SharedSuffixAdapter<I> createAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
+        return new SharedSuffixAdapter<>(alphabet, oracle, this);
+    }
+
+    /**
+     * Increases the score of the given suffix (and adds it to the pool, if necessary).
+     */
+    synchronized void reward(Word<I> suffix) {
+        this.scores.merge(suffix, 1, Integer::sum);
+    }
+
+    /**
+     * Returns the (at most {@code maxCandidates}) highest-scoring suffixes that are defined over the given alphabet and
+     * not contained in the given collection. Ties are broken by insertion order.
+     */
+    synchronized List<Word<I>> getCandidates(Alphabet<I> alphabet, Collection<Word<I>> exclude) {
+        final Set<Word<I>> excluded = new HashSet<>(exclude);
+        final List<Map.Entry<Word<I>, Integer>> entries = new ArrayList<>();
+
+        for (final Map.Entry<Word<I>, Integer> e : this.scores.entrySet()) {
+            if (!excluded.contains(e.getKey()) && isDefined(alphabet, e.getKey())) {
+                entries.add(e);
+            }
+        }
+
+        // stable sort preserves insertion order for equal scores
+        entries.sort((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()));
+
+        final List<Word<I>> result = new ArrayList<>(Math.min(entries.size(), this.maxCandidates));
+        for (int i = 0; i < entries.size() && i < this.maxCandidates; i++) {
+            result.add(entries.get(i).getKey());
+        }
+
+        return result;
+    }
+
+    public synchronized int size() {
+        return this.scores.size();
+    }
+
+    private static <I> boolean isDefined(Alphabet<I> alphabet, Word<I> word) {
+        for (final I i : word) {
+            if (!alphabet.containsSymbol(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -14,6 +14,7 @@
  */
 package de.learnlib.spa.config;
 
+import de.learnlib.acex.AcexAnalyzer;
 import de.learnlib.acex.analyzers.AcexAnalyzers;
 import de.learnlib.algorithms.ttt.dfa.TTTLearnerDFA;
 import de.learnlib.api.AccessSequenceTransformer;
@@ -37,7 +38,15 @@ public class TTTAdapter<I> extends TTTLearnerDFA<I> implements AccessSequenceTra
     private long sumOfLocalCELengths;
 
     public TTTAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle) {
-        super(alphabet, oracle, AcexAnalyzers.BINARY_SEARCH_BWD);
+        this(alphabet, oracle, AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    public TTTAdapter(Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, AcexAnalyzer analyzer) {
+        super(alphabet, oracle, analyzer);
+    }
+
+    public static <I> AdapterBuilder<I, TTTAdapter<I>> builder() {
+        return new AdapterBuilder<>(TTTAdapter::new, AcexAnalyzers.BINARY_SEARCH_BWD);
     }
 
     @Override
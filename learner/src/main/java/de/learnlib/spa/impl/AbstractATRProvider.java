@@ -0,0 +1,81 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.learnlib.spa.api.ATRListener;
+import de.learnlib.spa.api.ATRListener.SequenceType;
+import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Base class for {@link ATRProvider}s that takes care of the versioning of sequences and the notification of {@link
+ * ATRListener}s. Implementations need to call {@link #sequenceChanged(Object, SequenceType, Word)} after each change
+ * of a sequence.
+ * <p>
+ * Versions may be read and updated concurrently (e.g. by oracles that answer queries in parallel).
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public abstract class AbstractATRProvider<I> implements ATRProvider<I> {
+
+    private final Map<I, Long> versions;
+    private final List<ATRListener<I>> listeners;
+    private final AtomicLong version;
+
+    protected AbstractATRProvider(SPAAlphabet<I> alphabet) {
+        this.versions = new ConcurrentHashMap<>(alphabet.getNumCalls());
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.version = new AtomicLong();
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    @Override
+    public long getVersion(I procedure) {
+        return this.versions.getOrDefault(procedure, 0L);
+    }
+
+    @Override
+    public void addATRListener(ATRListener<I> listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeATRListener(ATRListener<I> listener) {
+        this.listeners.remove(listener);
+    }
+
+    protected void sequenceChanged(I procedure, SequenceType type, Word<I> sequence) {
+        this.versions.merge(procedure, 1L, Long::sum);
+        this.version.incrementAndGet();
+
+        for (final ATRListener<I> listener : this.listeners) {
+            listener.sequenceChanged(procedure, type, sequence);
+        }
+    }
+}
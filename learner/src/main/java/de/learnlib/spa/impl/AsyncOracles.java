@@ -0,0 +1,136 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.AsyncMembershipOracle;
+
+/**
+ * Adapters between (blocking) {@link MembershipOracle}s and {@link AsyncMembershipOracle}s.
+ *
+ * @author frohme
+ */
+public final class AsyncOracles {
+
+    private AsyncOracles() {}
+
+    /**
+     * Returns an asynchronous view of the given oracle, which answers each submitted batch on the given executor. Since
+     * multiple batches may be answered concurrently, the given oracle needs to be thread-safe.
+     *
+     * @param oracle
+     *         the (thread-safe) oracle to delegate to
+     * @param executor
+     *         the executor that answers the batches
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     *
+     * @return the asynchronous oracle
+     */
+    public static <I, D> AsyncMembershipOracle<I, D> asynchronous(MembershipOracle<I, D> oracle, Executor executor) {
+        return queries -> CompletableFuture.runAsync(() -> oracle.processQueries(queries), executor);
+    }
+
+    /**
+     * Returns a blocking view of the given asynchronous oracle. Each batch of queries is split into chunks of at most
+     * {@code batchSize} queries, of which at most {@code maxInFlight} are submitted at the same time. The returned
+     * oracle blocks until all queries of the batch have been answered.
+     *
+     * @param oracle
+     *         the asynchronous oracle to delegate to
+     * @param batchSize
+     *         the maximum number of queries per submitted chunk
+     * @param maxInFlight
+     *         the maximum number of chunks that are pending at the same time
+     * @param <I>
+     *         input symbol type
+     * @param <D>
+     *         output domain type
+     *
+     * @return the blocking oracle
+     */
+    public static <I, D> MembershipOracle<I, D> pipelined(AsyncMembershipOracle<I, D> oracle,
+                                                          int batchSize,
+                                                          int maxInFlight) {
+        if (batchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and in-flight limit need to be positive");
+        }
+
+        return new PipelinedOracle<>(oracle, batchSize, maxInFlight);
+    }
+
+    private static final class PipelinedOracle<I, D> implements MembershipOracle<I, D> {
+
+        private final AsyncMembershipOracle<I, D> delegate;
+        private final int batchSize;
+        private final int maxInFlight;
+
+        PipelinedOracle(AsyncMembershipOracle<I, D> delegate, int batchSize, int maxInFlight) {
+            this.delegate = delegate;
+            this.batchSize = batchSize;
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public void processQuery(Query<I, D> query) {
+            processQueries(Collections.singleton(query));
+        }
+
+        @Override
+        public void processQueries(Collection<? extends Query<I, D>> queries) {
+            final List<? extends Query<I, D>> list = new ArrayList<>(queries);
+            final int size = list.size();
+            final Semaphore permits = new Semaphore(this.maxInFlight);
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[(size + batchSize - 1) / batchSize];
+
+            for (int i = 0, f = 0; i < size; i += batchSize, f++) {
+                permits.acquireUninterruptibly();
+
+                final List<? extends Query<I, D>> chunk = list.subList(i, Math.min(i + batchSize, size));
+                final CompletableFuture<Void> future;
+
+                try {
+                    future = this.delegate.processQueriesAsync(chunk);
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+
+                futures[f] = future.whenComplete((r, t) -> permits.release());
+            }
+
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
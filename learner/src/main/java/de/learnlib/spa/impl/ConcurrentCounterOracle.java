@@ -0,0 +1,182 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.SymbolCostModel;
+
+/**
+ * A thread-safe alternative to the {@link de.learnlib.filter.statistic.oracle.JointCounterOracle} that counts the
+ * number of queries and symbols using {@link LongAdder}s, so that it can be shared between concurrently running
+ * (sub-)learners and equivalence oracles without becoming a point of contention.
+ * <p>
+ * In addition to the total counts, queries can be attributed to procedures by posing them to the views returned by
+ * {@link #forProcedure(Object)}. Queries posed to this oracle directly are attributed to no procedure (e.g. global
+ * queries during counterexample analysis) and are reported by {@link #getGlobalQueryCount()} and {@link
+ * #getGlobalSymbolCount()}.
+ * <p>
+ * If a {@link SymbolCostModel} is given, the oracle additionally accumulates the total execution cost of all queries,
+ * see {@link #getCost()}.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ *
+ * @author frohme
+ */
+public class ConcurrentCounterOracle<I, D> implements MembershipOracle<I, D> {
+
+    private final MembershipOracle<I, D> delegate;
+    @Nullable
+    private final SymbolCostModel<I> costModel;
+
+    private final Counter total = new Counter();
+    private final Counter global = new Counter();
+    private final Map<I, Counter> procedures = new ConcurrentHashMap<>();
+
+    public ConcurrentCounterOracle(MembershipOracle<I, D> delegate) {
+        this(delegate, null);
+    }
+
+    public ConcurrentCounterOracle(MembershipOracle<I, D> delegate, @Nullable SymbolCostModel<I> costModel) {
+        this.delegate = delegate;
+        this.costModel = costModel;
+    }
+
+    @Override
+    public void processQuery(Query<I, D> query) {
+        processQueries(Collections.singleton(query));
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        this.global.count(queries);
+        this.total.count(queries);
+        this.total.countCost(queries, this.costModel);
+        this.delegate.processQueries(queries);
+    }
+
+    /**
+     * Returns a view on this oracle, whose queries are additionally attributed to the given procedure.
+     *
+     * @param procedure
+     *         the procedure
+     *
+     * @return a membership oracle that counts its queries for the given procedure
+     */
+    public MembershipOracle<I, D> forProcedure(I procedure) {
+        final Counter counter = this.procedures.computeIfAbsent(procedure, p -> new Counter());
+
+        return new MembershipOracle<I, D>() {
+
+            @Override
+            public void processQuery(Query<I, D> query) {
+                processQueries(Collections.singleton(query));
+            }
+
+            @Override
+            public void processQueries(Collection<? extends Query<I, D>> queries) {
+                counter.count(queries);
+                total.count(queries);
+                total.countCost(queries, costModel);
+                delegate.processQueries(queries);
+            }
+        };
+    }
+
+    public long getQueryCount() {
+        return this.total.queries.sum();
+    }
+
+    public long getSymbolCount() {
+        return this.total.symbols.sum();
+    }
+
+    /**
+     * @return the total cost of all queries according to the cost model of this oracle, or the total number of symbols
+     * if no cost model has been given
+     */
+    public long getCost() {
+        return this.costModel == null ? getSymbolCount() : this.total.cost.sum();
+    }
+
+    public long getGlobalQueryCount() {
+        return this.global.queries.sum();
+    }
+
+    public long getGlobalSymbolCount() {
+        return this.global.symbols.sum();
+    }
+
+    /**
+     * @return the number of queries attributed to the given procedure, {@code 0} if no view exists for the procedure
+     */
+    public long getQueryCount(I procedure) {
+        final Counter counter = this.procedures.get(procedure);
+        return counter == null ? 0 : counter.queries.sum();
+    }
+
+    /**
+     * @return the number of symbols attributed to the given procedure, {@code 0} if no view exists for the procedure
+     */
+    public long getSymbolCount(I procedure) {
+        final Counter counter = this.procedures.get(procedure);
+        return counter == null ? 0 : counter.symbols.sum();
+    }
+
+    /**
+     * @return the procedures for which a view has been created
+     */
+    public Set<I> getProcedures() {
+        return Collections.unmodifiableSet(this.procedures.keySet());
+    }
+
+    private static final class Counter {
+
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder symbols = new LongAdder();
+        private final LongAdder cost = new LongAdder();
+
+        void count(Collection<? extends Query<?, ?>> batch) {
+            long length = 0;
+            for (final Query<?, ?> q : batch) {
+                length += q.getPrefix().length() + q.getSuffix().length();
+            }
+            this.queries.add(batch.size());
+            this.symbols.add(length);
+        }
+
+        <I> void countCost(Collection<? extends Query<I, ?>> batch, @Nullable SymbolCostModel<I> costModel) {
+            if (costModel != null) {
+                long sum = 0;
+                for (final Query<I, ?> q : batch) {
+                    sum += costModel.getCost(q.getPrefix()) + costModel.getCost(q.getSuffix());
+                }
+                this.cost.add(sum);
+            }
+        }
+    }
+}
@@ -21,27 +21,31 @@ import java.util.Set;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.spa.IntWord;
 import de.learnlib.spa.TransformationUtil;
-import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.ATRListener.SequenceType;
 import de.learnlib.spa.api.SPAAlphabet;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Word;
 
-public class DefaultATRProvider<I> implements ATRProvider<I> {
+public class DefaultATRProvider<I> extends AbstractATRProvider<I> implements EncodedATRProvider<I> {
 
     private final Map<I, Word<I>> accessSequences;
     private final Map<I, Word<I>> returnSequences;
     private final Map<I, Word<I>> terminatingSequences;
+    private final Map<I, IntWord> encodedTerminatingSequences;
 
     private final SPAAlphabet<I> alphabet;
     private final TransformationUtil<I> transformationUtil;
 
     public DefaultATRProvider(final SPAAlphabet<I> alphabet) {
+        super(alphabet);
         this.alphabet = alphabet;
 
         this.accessSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
         this.returnSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
         this.terminatingSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
+        this.encodedTerminatingSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
 
         this.transformationUtil = new TransformationUtil<>(alphabet);
     }
@@ -61,6 +65,11 @@ public class DefaultATRProvider<I> implements ATRProvider<I> {
         return this.returnSequences.get(procedure);
     }
 
+    @Override
+    public IntWord getEncodedTerminatingSequence(I procedure) {
+        return this.encodedTerminatingSequences.get(procedure);
+    }
+
     @Override
     public Set<I> scanPositiveCounterexample(Word<I> input) {
         final Set<I> result = Sets.newHashSetWithExpectedSize(alphabet.getNumCalls() - accessSequences.size());
@@ -72,9 +81,18 @@ public class DefaultATRProvider<I> implements ATRProvider<I> {
 
                 final int returnIdx = transformationUtil.findReturnIndex(input, i + 1);
 
-                this.accessSequences.put(sym, input.prefix(i));
-                this.terminatingSequences.put(sym, input.subWord(i + 1, returnIdx));
-                this.returnSequences.put(sym, input.subWord(returnIdx + 1));
+                final Word<I> accessSequence = input.prefix(i);
+                final Word<I> terminatingSequence = input.subWord(i + 1, returnIdx);
+                final Word<I> returnSequence = input.subWord(returnIdx + 1);
+
+                this.accessSequences.put(sym, accessSequence);
+                this.terminatingSequences.put(sym, terminatingSequence);
+                this.encodedTerminatingSequences.put(sym, this.transformationUtil.encode(terminatingSequence));
+                this.returnSequences.put(sym, returnSequence);
+
+                super.sequenceChanged(sym, SequenceType.ACCESS, accessSequence);
+                super.sequenceChanged(sym, SequenceType.TERMINATING, terminatingSequence);
+                super.sequenceChanged(sym, SequenceType.RETURN, returnSequence);
 
                 result.add(sym);
             }
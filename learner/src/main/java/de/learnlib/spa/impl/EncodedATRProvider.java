@@ -0,0 +1,46 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.spa.IntWord;
+import de.learnlib.spa.TransformationUtil;
+import de.learnlib.spa.api.ATRProvider;
+
+/**
+ * Internal extension of {@link ATRProvider}s that maintain their terminating sequences in the {@link IntWord}
+ * representation, so that the {@link de.learnlib.spa.learner.SPALearner} does not need to re-encode them. The encoding
+ * is the one of a {@link TransformationUtil} for the alphabet the provider has been constructed for, which needs to be
+ * the alphabet of the learner.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public interface EncodedATRProvider<I> extends ATRProvider<I> {
+
+    /**
+     * Returns the encoded terminating sequence of the given procedure.
+     *
+     * @param procedure
+     *         the procedure
+     *
+     * @return the encoded terminating sequence, {@code null} if no terminating sequence is known yet
+     */
+    @Nullable
+    IntWord getEncodedTerminatingSequence(I procedure);
+}
@@ -0,0 +1,88 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.MetricsListener;
+
+/**
+ * A membership oracle that reports batch size, number of symbols and latency of each processed batch of queries to a
+ * {@link MetricsListener}.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ *
+ * @author frohme
+ */
+public class MetricsOracle<I, D> implements MembershipOracle<I, D> {
+
+    private final MembershipOracle<I, D> delegate;
+    private final Supplier<? extends MetricsListener<? super I>> listener;
+    private final I procedure;
+
+    public MetricsOracle(MembershipOracle<I, D> delegate,
+                         MetricsListener<? super I> listener,
+                         @Nullable I procedure) {
+        this(delegate, () -> listener, procedure);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegate
+     *         the oracle to delegate the queries to
+     * @param listener
+     *         supplier for the listener to report to. Queried for each batch, so that listeners can be exchanged while
+     *         learning
+     * @param procedure
+     *         the procedure whose (transformed) local queries are answered by this oracle, or {@code null} for global
+     *         queries
+     */
+    public MetricsOracle(MembershipOracle<I, D> delegate,
+                         Supplier<? extends MetricsListener<? super I>> listener,
+                         @Nullable I procedure) {
+        this.delegate = delegate;
+        this.listener = listener;
+        this.procedure = procedure;
+    }
+
+    @Override
+    public void processQuery(Query<I, D> query) {
+        processQueries(Collections.singleton(query));
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        final long start = System.nanoTime();
+        this.delegate.processQueries(queries);
+        final long nanos = System.nanoTime() - start;
+
+        long symbols = 0;
+        for (final Query<I, D> q : queries) {
+            symbols += q.getPrefix().length() + q.getSuffix().length();
+        }
+
+        this.listener.get().queriesAnswered(this.procedure, queries.size(), symbols, nanos);
+    }
+}
@@ -15,34 +15,74 @@
 package de.learnlib.spa.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.spa.IntWord;
 import de.learnlib.spa.TransformationUtil;
+import de.learnlib.spa.api.ATRListener.SequenceType;
 import de.learnlib.spa.api.ATRProvider;
 import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
+import net.automatalib.automata.concepts.StateIDs;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.util.automata.cover.Covers;
 import net.automatalib.words.Word;
-import net.automatalib.words.WordBuilder;
 
-public class OptimizingATRProvider<I> implements ATRProvider<I> {
+/**
+ * An {@link ATRProvider} that continuously looks for cheaper access, terminating and return sequences. Internally, the
+ * sequences are analyzed and stored as {@link IntWord}s (indexed by the symbol index of their procedure), whereas the
+ * {@link Word}-based views exposed via the {@link ATRProvider} interface are updated alongside.
+ * <p>
+ * The cost of a sequence is determined by a {@link SymbolCostModel}. By default, every symbol has the same cost, i.e.
+ * the provider looks for the shortest sequences.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class OptimizingATRProvider<I> extends AbstractATRProvider<I> implements EncodedATRProvider<I> {
 
     private final Map<I, Word<I>> accessSequences;
     private final Map<I, Word<I>> returnSequences;
     private final Map<I, Word<I>> terminatingSequences;
 
+    private final IntWord[] encodedAccessSequences;
+    private final IntWord[] encodedReturnSequences;
+    private final IntWord[] encodedTerminatingSequences;
+
+    private final long[] symbolCosts;
+    private final long[] terminatingCosts;
+
+    /**
+     * Verification queries of access and return sequence candidates that have been rejected by the system. Their
+     * answer cannot change, so they are not asked again when the hypotheses propose the same candidate later on.
+     */
+    private final Set<IntWord> rejectedCandidates;
+
     private final SPAAlphabet<I> alphabet;
     private final TransformationUtil<I> transformationUtil;
 
     public OptimizingATRProvider(final SPAAlphabet<I> alphabet) {
+        this(alphabet, SymbolCostModel.uniform());
+    }
+
+    public OptimizingATRProvider(final SPAAlphabet<I> alphabet, final SymbolCostModel<I> costModel) {
+        super(alphabet);
         this.alphabet = alphabet;
 
         this.accessSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
@@ -50,6 +90,16 @@ public class OptimizingATRProvider<I> implements ATRProvider<I> {
         this.terminatingSequences = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
 
         this.transformationUtil = new TransformationUtil<>(alphabet);
+
+        final int numSymbols = this.transformationUtil.getReturnSymbol() + 1;
+        this.encodedAccessSequences = new IntWord[numSymbols];
+        this.encodedReturnSequences = new IntWord[numSymbols];
+        this.encodedTerminatingSequences = new IntWord[numSymbols];
+
+        this.symbolCosts = this.transformationUtil.encodeCosts(costModel);
+        this.terminatingCosts = new long[numSymbols];
+
+        this.rejectedCandidates = new HashSet<>();
     }
 
     @Override
@@ -67,13 +117,20 @@ public class OptimizingATRProvider<I> implements ATRProvider<I> {
         return this.returnSequences.get(procedure);
     }
 
+    @Override
+    public IntWord getEncodedTerminatingSequence(I procedure) {
+        return this.encodedTerminatingSequences[this.transformationUtil.encode(procedure)];
+    }
+
     @Override
     public Set<I> scanPositiveCounterexample(Word<I> input) {
         final Set<I> newProcedures =
                 Sets.newHashSetWithExpectedSize(this.alphabet.getNumCalls() - this.terminatingSequences.size());
 
-        this.extractPotentialTerminatingSequences(input, newProcedures);
-        this.extractPotentialAccessAndReturnSequences(input);
+        final IntWord encodedInput = this.transformationUtil.encode(input);
+
+        this.extractPotentialTerminatingSequences(encodedInput, newProcedures);
+        this.extractPotentialAccessAndReturnSequences(encodedInput);
 
         return newProcedures;
     }
@@ -91,12 +148,12 @@ public class OptimizingATRProvider<I> implements ATRProvider<I> {
                 stable = true;
                 for (Map.Entry<I, ? extends DFA<?, I>> entry : procedures.entrySet()) {
                     final I i = entry.getKey();
+                    final int sym = transformationUtil.encode(i);
                     final DFA<?, I> automaton = entry.getValue();
-                    final Word<I> currentTS = terminatingSequences.get(i);
-                    final Word<I> hypTS = getShortestHypothesisTS(automaton, providers.get(i), inputs);
+                    final IntWord hypTS = getCheapestHypothesisTS(automaton, providers.get(i), inputs);
 
-                    if (hypTS != null && hypTS.size() < currentTS.size()) {
-                        terminatingSequences.put(i, hypTS);
+                    if (hypTS != null && getCost(hypTS) < terminatingCosts[sym]) {
+                        update(SequenceType.TERMINATING, sym, hypTS);
                         stable = false;
                         foundImprovements = true;
                     }
@@ -104,122 +161,443 @@ public class OptimizingATRProvider<I> implements ATRProvider<I> {
             }
 
             if (foundImprovements) {
-                optimizeSequences(this.accessSequences);
-                optimizeSequences(this.terminatingSequences);
-                optimizeSequences(this.returnSequences);
+                optimizeSequences(SequenceType.ACCESS);
+                optimizeSequences(SequenceType.TERMINATING);
+                optimizeSequences(SequenceType.RETURN);
+            }
+        }
+    }
+
+    /**
+     * Computes globally cheapest access and return sequences via a Dijkstra search over the call graph of the given
+     * procedures. The distance of a procedure is the combined cost of its access and return sequence, initialized
+     * with the current sequences. A call of procedure {@code p} in procedure {@code q} is weighted by the cheapest
+     * (expanded) path of {@code q}'s hypothesis from the initial state to the call and from the call to an accepting
+     * state. Each improved candidate is verified with a single query before it replaces the current sequences, so that
+     * incorrect hypotheses cannot introduce invalid sequences.
+     */
+    @Override
+    public void optimizeAccessAndReturnSequences(Map<I, ? extends DFA<?, I>> procedures,
+                                                 Collection<I> inputs,
+                                                 MembershipOracle<I, Boolean> oracle) {
+
+        final long[] distances = new long[this.encodedAccessSequences.length];
+        final PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+
+        Arrays.fill(distances, Long.MAX_VALUE);
+
+        for (final I procedure : procedures.keySet()) {
+            final int sym = transformationUtil.encode(procedure);
+
+            if (this.encodedAccessSequences[sym] != null) {
+                distances[sym] = getCost(this.encodedAccessSequences[sym]) + getCost(this.encodedReturnSequences[sym]);
+                queue.add(new long[] {distances[sym], sym});
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final long[] entry = queue.poll();
+            final int caller = (int) entry[1];
+
+            if (entry[0] > distances[caller]) {
+                continue;
+            }
+
+            for (final Embedding embedding : computeEmbeddings(procedures.get(transformationUtil.decode(caller)),
+                                                               inputs)) {
+                final int callee = embedding.procedure;
+                final long candidateDistance = distances[caller] + this.symbolCosts[caller] +
+                                               this.symbolCosts[transformationUtil.getReturnSymbol()] + embedding.cost;
+
+                if (candidateDistance < distances[callee] && procedures.containsKey(transformationUtil.decode(callee))) {
+                    final IntWord.Builder as = new IntWord.Builder();
+                    as.addAll(this.encodedAccessSequences[caller]).add(caller).addAll(embedding.prefix);
+
+                    final IntWord.Builder rs = new IntWord.Builder();
+                    rs.addAll(embedding.suffix)
+                      .add(transformationUtil.getReturnSymbol())
+                      .addAll(this.encodedReturnSequences[caller]);
+
+                    final IntWord accessSequence = as.toWord();
+                    final IntWord returnSequence = rs.toWord();
+
+                    if (verifySequences(oracle, callee, accessSequence, returnSequence)) {
+                        update(SequenceType.ACCESS, callee, accessSequence);
+                        update(SequenceType.RETURN, callee, returnSequence);
+                        distances[callee] = candidateDistance;
+                        queue.add(new long[] {candidateDistance, callee});
+                    }
+                }
             }
         }
     }
 
-    private <S> Word<I> getShortestHypothesisTS(DFA<S, I> hyp,
+    private boolean verifySequences(MembershipOracle<I, Boolean> oracle,
+                                    int procedure,
+                                    IntWord accessSequence,
+                                    IntWord returnSequence) {
+        final IntWord.Builder query = new IntWord.Builder();
+        query.addAll(accessSequence)
+             .add(procedure)
+             .addAll(this.encodedTerminatingSequences[procedure])
+             .add(transformationUtil.getReturnSymbol())
+             .addAll(returnSequence);
+
+        final IntWord encodedQuery = query.toWord();
+
+        if (this.rejectedCandidates.contains(encodedQuery)) {
+            return false;
+        }
+
+        final boolean accepted = oracle.answerQuery(transformationUtil.decode(encodedQuery));
+
+        if (!accepted) {
+            this.rejectedCandidates.add(encodedQuery);
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Computes for each call symbol (with a terminating sequence) the cheapest embedding into the given procedure,
+     * i.e. the cheapest (expanded) path from the initial state to a call transition and from its target to an
+     * accepting state.
+     */
+    private <S> List<Embedding> computeEmbeddings(DFA<S, I> procedure, Collection<I> inputs) {
+
+        final StateIDs<S> stateIDs = procedure.stateIDs();
+        final int size = procedure.size();
+        final List<I> symbols = new ArrayList<>(inputs.size());
+        final long[] weights = new long[inputs.size()];
+        final long returnCost = this.symbolCosts[transformationUtil.getReturnSymbol()];
+
+        for (final I i : inputs) {
+            final int sym = transformationUtil.encode(i);
+
+            if (transformationUtil.isInternalSymbol(sym)) {
+                weights[symbols.size()] = this.symbolCosts[sym];
+                symbols.add(i);
+            } else if (transformationUtil.isCallSymbol(sym) && this.encodedTerminatingSequences[sym] != null) {
+                weights[symbols.size()] = this.symbolCosts[sym] + this.terminatingCosts[sym] + returnCost;
+                symbols.add(i);
+            }
+        }
+
+        // forward distances from the initial state
+        final long[] fwdDist = new long[size];
+        final int[] fwdPred = new int[size];
+        final int[] fwdSymbol = new int[size];
+        Arrays.fill(fwdDist, Long.MAX_VALUE);
+
+        final PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+        final int init = stateIDs.getStateId(procedure.getInitialState());
+        fwdDist[init] = 0;
+        fwdPred[init] = -1;
+        queue.add(new long[] {0, init});
+
+        while (!queue.isEmpty()) {
+            final long[] entry = queue.poll();
+            final int state = (int) entry[1];
+
+            if (entry[0] > fwdDist[state]) {
+                continue;
+            }
+
+            for (int i = 0; i < symbols.size(); i++) {
+                final S succ = procedure.getSuccessor(stateIDs.getState(state), symbols.get(i));
+
+                if (succ != null) {
+                    final int succId = stateIDs.getStateId(succ);
+                    final long dist = fwdDist[state] + weights[i];
+
+                    if (dist < fwdDist[succId]) {
+                        fwdDist[succId] = dist;
+                        fwdPred[succId] = state;
+                        fwdSymbol[succId] = i;
+                        queue.add(new long[] {dist, succId});
+                    }
+                }
+            }
+        }
+
+        // backward distances to accepting states (via the reversed transitions)
+        final List<List<int[]>> incoming = new ArrayList<>(size);
+        for (int s = 0; s < size; s++) {
+            incoming.add(new ArrayList<>());
+        }
+
+        final long[] bwdDist = new long[size];
+        final int[] bwdSucc = new int[size];
+        final int[] bwdSymbol = new int[size];
+        Arrays.fill(bwdDist, Long.MAX_VALUE);
+
+        for (int s = 0; s < size; s++) {
+            final S state = stateIDs.getState(s);
+
+            for (int i = 0; i < symbols.size(); i++) {
+                final S succ = procedure.getSuccessor(state, symbols.get(i));
+                if (succ != null) {
+                    incoming.get(stateIDs.getStateId(succ)).add(new int[] {s, i});
+                }
+            }
+
+            if (procedure.isAccepting(state)) {
+                bwdDist[s] = 0;
+                bwdSucc[s] = -1;
+                queue.add(new long[] {0, s});
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final long[] entry = queue.poll();
+            final int state = (int) entry[1];
+
+            if (entry[0] > bwdDist[state]) {
+                continue;
+            }
+
+            for (final int[] transition : incoming.get(state)) {
+                final int pred = transition[0];
+                final long dist = bwdDist[state] + weights[transition[1]];
+
+                if (dist < bwdDist[pred]) {
+                    bwdDist[pred] = dist;
+                    bwdSucc[pred] = state;
+                    bwdSymbol[pred] = transition[1];
+                    queue.add(new long[] {dist, pred});
+                }
+            }
+        }
+
+        // cheapest embedding per call symbol
+        final List<Embedding> result = new ArrayList<>();
+
+        for (int i = 0; i < symbols.size(); i++) {
+            final int sym = transformationUtil.encode(symbols.get(i));
+
+            if (!transformationUtil.isCallSymbol(sym)) {
+                continue;
+            }
+
+            long bestDist = Long.MAX_VALUE;
+            int bestSource = -1;
+            int bestTarget = -1;
+
+            for (int s = 0; s < size; s++) {
+                final S succ = procedure.getSuccessor(stateIDs.getState(s), symbols.get(i));
+
+                if (succ != null && fwdDist[s] != Long.MAX_VALUE) {
+                    final int succId = stateIDs.getStateId(succ);
+
+                    if (bwdDist[succId] != Long.MAX_VALUE && fwdDist[s] + bwdDist[succId] < bestDist) {
+                        bestDist = fwdDist[s] + bwdDist[succId];
+                        bestSource = s;
+                        bestTarget = succId;
+                    }
+                }
+            }
+
+            if (bestSource > -1) {
+                final IntWord.Builder prefix = new IntWord.Builder();
+                for (int s = bestSource; fwdPred[s] > -1; s = fwdPred[s]) {
+                    prefix.insert(0, IntWord.of(transformationUtil.encode(symbols.get(fwdSymbol[s]))));
+                }
+
+                final IntWord.Builder suffix = new IntWord.Builder();
+                for (int s = bestTarget; bwdSucc[s] > -1; s = bwdSucc[s]) {
+                    suffix.add(transformationUtil.encode(symbols.get(bwdSymbol[s])));
+                }
+
+                final IntFunction<IntWord> tsProvider = p -> this.encodedTerminatingSequences[p];
+                result.add(new Embedding(sym,
+                                         transformationUtil.expand(prefix.toWord(), tsProvider),
+                                         transformationUtil.expand(suffix.toWord(), tsProvider),
+                                         bestDist));
+            }
+        }
+
+        return result;
+    }
+
+    private <S> IntWord getCheapestHypothesisTS(DFA<S, I> hyp,
                                                 AccessSequenceTransformer<I> asTransformer,
                                                 Collection<I> inputs) {
+        final IntToLongFunction tsCosts = sym -> terminatingCosts[sym];
+
         return Streams.stream(Covers.stateCoverIterator(hyp, inputs))
                       .filter(hyp::accepts)
                       .map(asTransformer::transformAccessSequence)
-                      .map(as -> transformationUtil.expand(as, terminatingSequences::get))
-                      .min(Comparator.comparingInt(Word::size))
+                      .map(transformationUtil::encode)
+                      .min(Comparator.comparingLong(as -> transformationUtil.getExpandedCost(as, symbolCosts, tsCosts)))
+                      .map(as -> transformationUtil.expand(as, sym -> encodedTerminatingSequences[sym]))
                       .orElse(null);
     }
 
-    private void optimizeSequences(final Map<I, Word<I>> sequences) {
-        for (final Map.Entry<I, Word<I>> entry : sequences.entrySet()) {
-            final Word<I> currentSequence = entry.getValue();
-            final Word<I> minimized = minifyWellMatched(currentSequence);
+    private void optimizeSequences(final SequenceType type) {
+        final IntWord[] encodedSequences = getEncodedSequences(type);
+
+        for (int sym = 0; sym < encodedSequences.length; sym++) {
+            final IntWord currentSequence = encodedSequences[sym];
 
-            if (minimized.size() < currentSequence.size()) {
-                sequences.put(entry.getKey(), minimized);
+            if (currentSequence != null) {
+                final IntWord minimized = minifyWellMatched(currentSequence);
+
+                if (getCost(minimized) < getCost(currentSequence)) {
+                    update(type, sym, minimized);
+                }
             }
         }
     }
 
-    private void extractPotentialTerminatingSequences(final Word<I> input, final Set<I> newProcedures) {
-        for (int i = 0; i < input.size(); i++) {
-            final I sym = input.getSymbol(i);
+    private void update(final SequenceType type, final int procedure, final IntWord sequence) {
+        final I symbol = transformationUtil.decode(procedure);
+        final Word<I> decoded = transformationUtil.decode(sequence);
+
+        // sequences extracted from counterexamples are views, which would retain the complete counterexample
+        getEncodedSequences(type)[procedure] = sequence.compact();
+        if (type == SequenceType.TERMINATING) {
+            this.terminatingCosts[procedure] = getCost(sequence);
+        }
+        getSequences(type).put(symbol, decoded);
+        super.sequenceChanged(symbol, type, decoded);
+    }
+
+    private Map<I, Word<I>> getSequences(final SequenceType type) {
+        switch (type) {
+            case ACCESS:
+                return this.accessSequences;
+            case TERMINATING:
+                return this.terminatingSequences;
+            case RETURN:
+                return this.returnSequences;
+            default:
+                throw new IllegalArgumentException("Unknown sequence type: " + type);
+        }
+    }
+
+    private IntWord[] getEncodedSequences(final SequenceType type) {
+        switch (type) {
+            case ACCESS:
+                return this.encodedAccessSequences;
+            case TERMINATING:
+                return this.encodedTerminatingSequences;
+            case RETURN:
+                return this.encodedReturnSequences;
+            default:
+                throw new IllegalArgumentException("Unknown sequence type: " + type);
+        }
+    }
 
-            if (this.alphabet.isCallSymbol(sym)) {
+    private void extractPotentialTerminatingSequences(final IntWord input, final Set<I> newProcedures) {
+        for (int i = 0; i < input.length(); i++) {
+            final int sym = input.getSymbol(i);
+
+            if (this.transformationUtil.isCallSymbol(sym)) {
 
                 final int returnIdx = transformationUtil.findReturnIndex(input, i + 1);
-                final Word<I> potentialTermSeq = input.subWord(i + 1, returnIdx);
-                final Word<I> currentTermSeq = this.terminatingSequences.get(sym);
+                final IntWord potentialTermSeq = input.subWord(i + 1, returnIdx);
+                final IntWord currentTermSeq = this.encodedTerminatingSequences[sym];
 
                 if (currentTermSeq == null) {
-                    newProcedures.add(sym);
-                    this.terminatingSequences.put(sym, potentialTermSeq);
-                } else if (potentialTermSeq.size() < currentTermSeq.size()) {
-                    this.terminatingSequences.put(sym, potentialTermSeq);
+                    newProcedures.add(transformationUtil.decode(sym));
+                    update(SequenceType.TERMINATING, sym, potentialTermSeq);
+                } else if (getCost(potentialTermSeq) < this.terminatingCosts[sym]) {
+                    update(SequenceType.TERMINATING, sym, potentialTermSeq);
                 }
             }
         }
     }
 
-    private void extractPotentialAccessAndReturnSequences(final Word<I> input) {
+    private void extractPotentialAccessAndReturnSequences(final IntWord input) {
 
-        final List<I> asBuilder = new ArrayList<>(input.size());
-        final List<I> rsBuilder = new ArrayList<>(input.size());
-        rsBuilder.addAll(minifyWellMatched(input).asList());
+        final IntWord.Builder asBuilder = new IntWord.Builder(input.length());
+        final IntWord.Builder rsBuilder = new IntWord.Builder(input.length());
+        rsBuilder.addAll(minifyWellMatched(input));
 
-        for (int i = 0; i < input.size(); i++) {
+        for (int i = 0; i < input.length(); i++) {
 
-            final I sym = input.getSymbol(i);
+            final int sym = input.getSymbol(i);
 
-            if (this.alphabet.isCallSymbol(sym)) {
+            if (this.transformationUtil.isCallSymbol(sym)) {
 
-                final Word<I> currentAccSeq = this.accessSequences.get(sym);
+                final IntWord currentAccSeq = this.encodedAccessSequences[sym];
 
                 final int returnIdx = transformationUtil.findReturnIndex(rsBuilder, 1);
 
-                final List<I> potentialFinSeq = rsBuilder.subList(returnIdx + 1, rsBuilder.size());
-                final Word<I> currentFinSeq = this.returnSequences.get(sym);
+                final IntWord currentFinSeq = this.encodedReturnSequences[sym];
 
-                if (currentAccSeq == null ||
-                    (asBuilder.size() + potentialFinSeq.size()) < (currentAccSeq.size() + currentFinSeq.size())) {
+                if (currentAccSeq == null || getCost(asBuilder, 0, asBuilder.size()) +
+                                             getCost(rsBuilder, returnIdx + 1, rsBuilder.size()) <
+                                             getCost(currentAccSeq) + getCost(currentFinSeq)) {
 
-                    this.accessSequences.put(sym, Word.fromList(asBuilder));
-                    this.returnSequences.put(sym, Word.fromList(potentialFinSeq));
+                    update(SequenceType.ACCESS, sym, asBuilder.toWord());
+                    update(SequenceType.RETURN, sym, rsBuilder.toWord(returnIdx + 1, rsBuilder.size()));
                 }
-            } else if (this.alphabet.isReturnSymbol(sym)) {
+            } else if (this.transformationUtil.isReturnSymbol(sym)) {
                 // update asBuilder
                 final int callIdx = transformationUtil.findCallIndex(asBuilder, asBuilder.size());
-                final I procedure = asBuilder.get(callIdx);
-                asBuilder.subList(callIdx + 1, asBuilder.size()).clear();
-                asBuilder.addAll(terminatingSequences.get(procedure).asList());
+                final int procedure = asBuilder.get(callIdx);
+                asBuilder.truncate(callIdx + 1);
+                asBuilder.addAll(encodedTerminatingSequences[procedure]);
             }
 
             asBuilder.add(sym);
-            rsBuilder.remove(0);
+            rsBuilder.remove(0, 1);
 
-            if (this.alphabet.isCallSymbol(sym)) {
+            if (this.transformationUtil.isCallSymbol(sym)) {
                 // updateRSBuilder
                 final int rsBuilderReturnIdx = transformationUtil.findReturnIndex(rsBuilder, 0);
                 final int inputReturnIdx = transformationUtil.findReturnIndex(input, i + 1);
-                rsBuilder.subList(0, rsBuilderReturnIdx).clear();
-                rsBuilder.addAll(0, minifyWellMatched(input.subWord(i + 1, inputReturnIdx)).asList());
+                rsBuilder.remove(0, rsBuilderReturnIdx);
+                rsBuilder.insert(0, minifyWellMatched(input.subWord(i + 1, inputReturnIdx)));
             }
 
         }
     }
 
-    private Word<I> minifyWellMatched(Word<I> input) {
+    private static final class Embedding {
+
+        private final int procedure;
+        private final IntWord prefix;
+        private final IntWord suffix;
+        private final long cost;
+
+        Embedding(int procedure, IntWord prefix, IntWord suffix, long cost) {
+            this.procedure = procedure;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.cost = cost;
+        }
+    }
+
+    private long getCost(IntWord sequence) {
+        return transformationUtil.getCost(sequence, this.symbolCosts);
+    }
+
+    private long getCost(IntWord.Builder sequence, int from, int to) {
+        return transformationUtil.getCost(sequence, from, to, this.symbolCosts);
+    }
+
+    private IntWord minifyWellMatched(IntWord input) {
 
         if (input.isEmpty()) {
-            return Word.epsilon();
+            return IntWord.epsilon();
         }
 
-        final WordBuilder<I> wb = new WordBuilder<>(input.size());
+        final IntWord.Builder wb = new IntWord.Builder(input.length());
 
-        for (int i = 0; i < input.size(); i++) {
+        for (int i = 0; i < input.length(); i++) {
 
-            final I sym = input.getSymbol(i);
+            final int sym = input.getSymbol(i);
 
-            wb.append(sym);
+            wb.add(sym);
 
-            if (this.alphabet.isCallSymbol(sym)) {
+            if (this.transformationUtil.isCallSymbol(sym)) {
                 final int returnIdx = transformationUtil.findReturnIndex(input, i + 1);
 
                 if (returnIdx > -1) {
-                    wb.append(terminatingSequences.get(sym));
-                    wb.append(alphabet.getReturnSymbol());
+                    wb.addAll(encodedTerminatingSequences[sym]);
+                    wb.add(transformationUtil.getReturnSymbol());
                     i = returnIdx; // next loop iteration starts _after_ the return symbol
                 }
             }
@@ -0,0 +1,241 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.learnlib.api.SUL;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.CopyableSUL;
+import net.automatalib.commons.util.Pair;
+
+/**
+ * A membership oracle for acceptor-like {@link SUL}s (i.e. SULs whose output after each step denotes whether the input
+ * read so far is accepted) that minimizes the number of resets. Each batch of queries is arranged in a prefix tree,
+ * which is executed depth-first:
+ * <ul>
+ * <li>For {@link CopyableSUL}s, the SUL is copied at each branching node of the tree, so that every shared prefix is
+ * executed only once and each batch requires a single reset. Since the queries of a {@link
+ * ProceduralMembershipOracle} all share the access sequence of their procedure, this saves a considerable amount of
+ * resets and steps for (large) batches of local queries.</li>
+ * <li>For regular SULs, the SUL is reset once per leaf of the tree, i.e. queries that are prefixes of other queries are
+ * answered along the way.</li>
+ * </ul>
+ * <p>
+ * Note that this oracle is not thread-safe, as the SUL is stateful.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ *
+ * @author frohme
+ */
+public class PrefixTreeSULOracle<I, D> implements MembershipOracle<I, D> {
+
+    private final SUL<I, D> sul;
+    private final D emptyWordOutput;
+
+    private long numberOfResets;
+    private long numberOfSteps;
+
+    /**
+     * Constructor.
+     *
+     * @param sul
+     *         the system to query
+     * @param emptyWordOutput
+     *         the answer to queries of the empty word (which cannot be obtained by stepping the SUL)
+     */
+    public PrefixTreeSULOracle(SUL<I, D> sul, D emptyWordOutput) {
+        this.sul = sul;
+        this.emptyWordOutput = emptyWordOutput;
+    }
+
+    @Override
+    public void processQuery(Query<I, D> query) {
+        processQueries(Collections.singleton(query));
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        final Node<I, D> root = new Node<>(null, null);
+
+        for (final Query<I, D> q : queries) {
+            Node<I, D> node = root;
+            for (final I i : q.getInput()) {
+                node = node.getOrCreateChild(i);
+            }
+            node.addQuery(q);
+        }
+
+        if (root.queries != null) {
+            for (final Query<I, D> q : root.queries) {
+                q.answer(this.emptyWordOutput);
+            }
+        }
+
+        if (root.children == null) {
+            return;
+        }
+
+        if (this.sul instanceof CopyableSUL) {
+            executeWithCopies(root, (CopyableSUL<I, D>) this.sul);
+        } else {
+            for (final Node<I, D> leaf : collectLeaves(root)) {
+                execute(leaf);
+            }
+        }
+    }
+
+    private void executeWithCopies(Node<I, D> root, CopyableSUL<I, D> copyable) {
+        final Deque<Pair<Node<I, D>, CopyableSUL<I, D>>> stack = new ArrayDeque<>();
+
+        this.numberOfResets++;
+        copyable.pre();
+        stack.push(Pair.make(root, copyable));
+
+        try {
+            while (!stack.isEmpty()) {
+                final Pair<Node<I, D>, CopyableSUL<I, D>> top = stack.pop();
+                final Node<I, D> node = top.getFirst();
+                final CopyableSUL<I, D> nodeSul = top.getSecond();
+
+                if (node.children == null) {
+                    nodeSul.post();
+                    continue;
+                }
+
+                final Iterator<Node<I, D>> iter = node.children.values().iterator();
+
+                while (iter.hasNext()) {
+                    final Node<I, D> child = iter.next();
+                    // the last child may continue on the SUL of its parent
+                    final CopyableSUL<I, D> childSul = iter.hasNext() ? nodeSul.copy() : nodeSul;
+                    stack.push(Pair.make(child, childSul));
+
+                    final D output = childSul.step(child.symbol);
+                    this.numberOfSteps++;
+
+                    if (child.queries != null) {
+                        for (final Query<I, D> q : child.queries) {
+                            q.answer(output);
+                        }
+                    }
+                }
+            }
+        } finally {
+            // shut down pending copies in case of an exception
+            while (!stack.isEmpty()) {
+                stack.pop().getSecond().post();
+            }
+        }
+    }
+
+    private void execute(Node<I, D> leaf) {
+        final List<Node<I, D>> path = new ArrayList<>();
+        for (Node<I, D> n = leaf; n.parent != null; n = n.parent) {
+            path.add(n);
+        }
+        Collections.reverse(path);
+
+        this.numberOfResets++;
+        this.sul.pre();
+        try {
+            for (final Node<I, D> n : path) {
+                final D output = this.sul.step(n.symbol);
+                this.numberOfSteps++;
+
+                if (n.queries != null) {
+                    for (final Query<I, D> q : n.queries) {
+                        q.answer(output);
+                    }
+                    // queries of inner nodes are answered on the first path that visits them
+                    n.queries = null;
+                }
+            }
+        } finally {
+            this.sul.post();
+        }
+    }
+
+    private static <I, D> List<Node<I, D>> collectLeaves(Node<I, D> root) {
+        final List<Node<I, D>> result = new ArrayList<>();
+        final Deque<Node<I, D>> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            final Node<I, D> node = stack.pop();
+
+            if (node.children == null) {
+                result.add(node);
+            } else {
+                node.children.values().forEach(stack::push);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of resets (i.e. {@link SUL#pre()} invocations) issued so far
+     */
+    public long getNumberOfResets() {
+        return numberOfResets;
+    }
+
+    /**
+     * @return the number of {@link SUL#step(Object) steps} issued so far
+     */
+    public long getNumberOfSteps() {
+        return numberOfSteps;
+    }
+
+    private static final class Node<I, D> {
+
+        private final I symbol;
+        private final Node<I, D> parent;
+        private Map<I, Node<I, D>> children;
+        private List<Query<I, D>> queries;
+
+        Node(I symbol, Node<I, D> parent) {
+            this.symbol = symbol;
+            this.parent = parent;
+        }
+
+        Node<I, D> getOrCreateChild(I i) {
+            if (children == null) {
+                children = new LinkedHashMap<>();
+            }
+            return children.computeIfAbsent(i, k -> new Node<>(k, this));
+        }
+
+        void addQuery(Query<I, D> query) {
+            if (queries == null) {
+                queries = new ArrayList<>();
+            }
+            queries.add(query);
+        }
+    }
+}
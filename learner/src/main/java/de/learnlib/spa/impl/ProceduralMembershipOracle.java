@@ -17,6 +17,10 @@ package de.learnlib.spa.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
 
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.Query;
@@ -32,19 +36,60 @@ public class ProceduralMembershipOracle<I> implements MembershipOracle<I, Boolea
     private final I procedure;
     private final ATRProvider<I> atrProvider;
 
+    /**
+     * Answers of already processed local queries, if enabled. Since the answer to a local query does not depend on the access,
+     * terminating and return sequences used for its transformation, entries remain valid even if the sequences change.
+     */
+    @Nullable
+    private final Map<Word<I>, Boolean> cache;
+
+    /**
+     * The pre-assembled segments of transformed queries, valid for the {@link ATRProvider#getVersion() version} of the
+     * sequences they have been compiled from. Never set for {@link ATRProvider#UNVERSIONED unversioned} providers.
+     */
+    private volatile Template template;
+
     public ProceduralMembershipOracle(SPAAlphabet<I> alphabet,
                                       MembershipOracle<I, Boolean> delegate,
                                       I procedure,
                                       ATRProvider<I> atrProvider) {
+        this(alphabet, delegate, procedure, atrProvider, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param alphabet
+     *         the alphabet of the system
+     * @param delegate
+     *         the oracle that answers the transformed (global) queries
+     * @param procedure
+     *         the procedure whose local queries are answered
+     * @param atrProvider
+     *         the provider of the sequences used for transforming local queries
+     * @param cacheLocalQueries
+     *         whether answers to local queries should be cached. Repeated local queries (e.g. of a sub-learner that is
+     *         refined with a replayed counterexample) are then answered without posing a global query, which reduces
+     *         the number of queries reaching the delegate. The cache is not bounded and retains every distinct local
+     *         query of the procedure
+     */
+    public ProceduralMembershipOracle(SPAAlphabet<I> alphabet,
+                                      MembershipOracle<I, Boolean> delegate,
+                                      I procedure,
+                                      ATRProvider<I> atrProvider,
+                                      boolean cacheLocalQueries) {
         this.alphabet = alphabet;
         this.delegate = delegate;
         this.procedure = procedure;
         this.atrProvider = atrProvider;
+        this.cache = cacheLocalQueries ? new ConcurrentHashMap<>() : null;
     }
 
     @Override
     public void processQuery(Query<I, Boolean> query) {
-        this.delegate.processQuery(new TransformedQuery(query));
+        if (!answerFromCache(query)) {
+            this.delegate.processQuery(new TransformedQuery(query));
+        }
     }
 
     @Override
@@ -52,35 +97,104 @@ public class ProceduralMembershipOracle<I> implements MembershipOracle<I, Boolea
         final List<Query<I, Boolean>> transformedQueries = new ArrayList<>(collection.size());
 
         for (final Query<I, Boolean> q : collection) {
-            transformedQueries.add(new TransformedQuery(q));
+            if (!answerFromCache(q)) {
+                transformedQueries.add(new TransformedQuery(q));
+            }
+        }
+
+        if (!transformedQueries.isEmpty()) {
+            this.delegate.processQueries(transformedQueries);
+        }
+    }
+
+    private boolean answerFromCache(Query<I, Boolean> query) {
+        if (this.cache == null) {
+            return false;
+        }
+
+        final Boolean answer = this.cache.get(query.getInput());
+
+        if (answer == null) {
+            return false;
         }
 
-        this.delegate.processQueries(transformedQueries);
+        query.answer(answer);
+        return true;
     }
 
     private Word<I> transformLocalQuery(Word<I> query) {
-        final WordBuilder<I> builder = new WordBuilder<>();
-        builder.append(atrProvider.getAccessSequence(this.procedure));
-        builder.append(this.procedure);
+        final Template template = getTemplate();
+        final WordBuilder<I> builder =
+                new WordBuilder<>(template.prefix.length() + template.suffix.length() + 2 * query.length());
+
+        // segments are copied in bulk
+        builder.append(template.prefix);
 
         for (final I i : query) {
             if (alphabet.isInternalSymbol(i)) {
                 builder.append(i);
             } else if (alphabet.isCallSymbol(i)) {
-                builder.append(i);
-                builder.append(atrProvider.getTerminatingSequence(i));
-                builder.append(alphabet.getReturnSymbol());
+                builder.append(template.getCallSegment(i));
             } else { // return symbol
                 throw new IllegalStateException("Systems should not query reset symbol");
             }
         }
 
-        builder.append(alphabet.getReturnSymbol());
-        builder.append(atrProvider.getReturnSequence(this.procedure));
+        builder.append(template.suffix);
 
         return builder.toWord();
     }
 
+    private Template getTemplate() {
+        final long version = this.atrProvider.getVersion();
+
+        // changes of unversioned providers cannot be detected, so the segments are compiled for every query
+        if (version == ATRProvider.UNVERSIONED) {
+            return new Template(version);
+        }
+
+        Template result = this.template;
+
+        if (result == null || result.version != version) {
+            result = new Template(version);
+            this.template = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * The transformation of a local query consists of the prefix (access sequence and procedure), an expansion segment
+     * (call symbol, terminating sequence and return symbol) for each call symbol of the query, and the suffix (return
+     * symbol and return sequence). Compiling these segments once per version of the sequences allows to assemble the
+     * transformed query from a few bulk copies.
+     */
+    private final class Template {
+
+        private final long version;
+        private final Word<I> prefix;
+        private final Word<I> suffix;
+        private final List<Word<I>> callSegments;
+
+        Template(long version) {
+            this.version = version;
+            this.prefix = atrProvider.getAccessSequence(procedure).append(procedure);
+            this.suffix = atrProvider.getReturnSequence(procedure).prepend(alphabet.getReturnSymbol());
+            this.callSegments = new ArrayList<>(alphabet.getNumCalls());
+
+            for (final I call : alphabet.getCallAlphabet()) {
+                final Word<I> terminatingSequence = atrProvider.getTerminatingSequence(call);
+                this.callSegments.add(terminatingSequence == null ?
+                                              null :
+                                              terminatingSequence.prepend(call).append(alphabet.getReturnSymbol()));
+            }
+        }
+
+        Word<I> getCallSegment(I call) {
+            return this.callSegments.get(alphabet.getCallSymbolIndex(call));
+        }
+    }
+
     private class TransformedQuery extends Query<I, Boolean> {
 
         private final Query<I, Boolean> originalQuery;
@@ -93,6 +207,9 @@ public class ProceduralMembershipOracle<I> implements MembershipOracle<I, Boolea
 
         @Override
         public void answer(Boolean output) {
+            if (cache != null) {
+                cache.put(originalQuery.getInput(), output);
+            }
             originalQuery.answer(output);
         }
 
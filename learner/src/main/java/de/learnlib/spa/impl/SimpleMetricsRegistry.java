@@ -0,0 +1,209 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.spa.api.MetricsListener;
+
+/**
+ * A dependency-free {@link MetricsListener} that aggregates all reported events into thread-safe counters and
+ * histograms. The aggregated values can be read at any time (e.g. by a reporter thread) while learning is in progress.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class SimpleMetricsRegistry<I> implements MetricsListener<I> {
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder symbols = new LongAdder();
+
+    private final Histogram queryLatency = new Histogram();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram counterexampleLengths = new Histogram();
+    private final Histogram localCounterexampleLengths = new Histogram();
+    private final Histogram atrLengths = new Histogram();
+
+    private final Map<I, Integer> hypothesisSizes = new ConcurrentHashMap<>();
+    private final Map<I, int[]> sequenceLengths = new ConcurrentHashMap<>();
+
+    @Override
+    public void queriesAnswered(@Nullable I procedure, int batchSize, long symbols, long nanos) {
+        this.queries.add(batchSize);
+        this.symbols.add(symbols);
+        this.batchSizes.record(batchSize);
+        if (batchSize > 0) {
+            this.queryLatency.record(nanos / batchSize);
+        }
+    }
+
+    @Override
+    public void counterexampleProcessed(int length) {
+        this.counterexampleLengths.record(length);
+    }
+
+    @Override
+    public void localCounterexampleProcessed(I procedure, int length) {
+        this.localCounterexampleLengths.record(length);
+    }
+
+    @Override
+    public void hypothesisSizeChanged(I procedure, int size) {
+        this.hypothesisSizes.put(procedure, size);
+    }
+
+    @Override
+    public void sequencesUpdated(I procedure, int accessLength, int terminatingLength, int returnLength) {
+        final int[] lengths = new int[] {accessLength, terminatingLength, returnLength};
+        final int[] previous = this.sequenceLengths.put(procedure, lengths);
+        final int total = accessLength + terminatingLength + returnLength;
+
+        if (previous == null || previous[0] + previous[1] + previous[2] != total) {
+            this.atrLengths.record(total);
+        }
+    }
+
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    public long getSymbolCount() {
+        return symbols.sum();
+    }
+
+    /**
+     * @return the (average per query) latency of answered batches in nanoseconds
+     */
+    public Histogram getQueryLatency() {
+        return queryLatency;
+    }
+
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    public Histogram getCounterexampleLengths() {
+        return counterexampleLengths;
+    }
+
+    public Histogram getLocalCounterexampleLengths() {
+        return localCounterexampleLengths;
+    }
+
+    /**
+     * @return the combined lengths of access, terminating and return sequence, recorded whenever they change
+     */
+    public Histogram getATRLengths() {
+        return atrLengths;
+    }
+
+    public Map<I, Integer> getHypothesisSizes() {
+        return Collections.unmodifiableMap(hypothesisSizes);
+    }
+
+    /**
+     * @return the current lengths of access, terminating and return sequence (in this order) of each procedure
+     */
+    public Map<I, int[]> getSequenceLengths() {
+        return Collections.unmodifiableMap(sequenceLengths);
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleMetricsRegistry{" + "queries=" + getQueryCount() + ", symbols=" + getSymbolCount() +
+               ", queryLatency=" + queryLatency + ", batchSizes=" + batchSizes + ", counterexampleLengths=" +
+               counterexampleLengths + ", localCounterexampleLengths=" + localCounterexampleLengths +
+               ", atrLengths=" + atrLengths + ", hypothesisSizes=" + hypothesisSizes + '}';
+    }
+
+    /**
+     * A lock-free histogram with exponential (power-of-two) buckets.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        public void record(long value) {
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+            buckets.incrementAndGet(bucketOf(value));
+        }
+
+        private static int bucketOf(long value) {
+            return value <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public double getMean() {
+            final long c = getCount();
+            return c == 0 ? 0 : (double) getSum() / c;
+        }
+
+        public long getMax() {
+            return getCount() == 0 ? 0 : max.get();
+        }
+
+        /**
+         * Returns an upper bound for the given quantile, based on the power-of-two buckets.
+         *
+         * @param quantile
+         *         the quantile, in the range of [0, 1]
+         *
+         * @return an upper bound for the value at the given quantile
+         */
+        public long getQuantileUpperBound(double quantile) {
+            final long total = getCount();
+            final long threshold = (long) Math.ceil(quantile * total);
+            long seen = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= threshold && seen > 0) {
+                    return i == 0 ? 0 : Math.min(getMax(), (1L << i) - 1);
+                }
+            }
+
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + getCount() + ", mean=" + getMean() + ", p50<=" + getQuantileUpperBound(0.5) +
+                   ", p99<=" + getQuantileUpperBound(0.99) + ", max=" + getMax() + '}';
+        }
+    }
+}
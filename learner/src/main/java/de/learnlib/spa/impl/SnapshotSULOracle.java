@@ -0,0 +1,202 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.learnlib.api.SUL;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.CopyableSUL;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * A membership oracle for acceptor-like {@link SUL}s of systems of procedural automata (i.e. SULs whose output after
+ * each step denotes whether the input read so far is accepted).
+ * <p>
+ * If the SUL is a {@link CopyableSUL}, the oracle takes a snapshot (copy) of the SUL after each call symbol of a query
+ * and answers subsequent queries by resuming from the snapshot of their longest prefix that ends with a call symbol.
+ * Since the (expanded) local queries of a procedure all start with the same access sequence and call symbol, the
+ * access sequence only needs to be executed once and each further query only costs its remaining suffix. At most
+ * {@code maxSnapshots} snapshots are kept, evicting the least recently used ones first.
+ * <p>
+ * For regular SULs, each query is executed from the initial state.
+ * <p>
+ * Note that this oracle is not thread-safe, as the SUL is stateful.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class SnapshotSULOracle<I> implements MembershipOracle<I, Boolean> {
+
+    private final SPAAlphabet<I> alphabet;
+    private final SUL<I, Boolean> sul;
+    private final Map<Word<I>, Snapshot<I>> snapshots;
+
+    private long numberOfResets;
+    private long numberOfSteps;
+    private long numberOfSnapshotHits;
+
+    public SnapshotSULOracle(SPAAlphabet<I> alphabet, SUL<I, Boolean> sul, int maxSnapshots) {
+        this.alphabet = alphabet;
+        this.sul = sul;
+        this.snapshots = new LinkedHashMap<Word<I>, Snapshot<I>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Word<I>, Snapshot<I>> eldest) {
+                if (size() > maxSnapshots) {
+                    eldest.getValue().sul.post();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
+        for (final Query<I, Boolean> q : queries) {
+            processQuery(q);
+        }
+    }
+
+    @Override
+    public void processQuery(Query<I, Boolean> query) {
+        query.answer(answer(query.getInput()));
+    }
+
+    private boolean answer(Word<I> input) {
+
+        if (input.isEmpty()) {
+            // a well-matched, rooted word needs to start with a call symbol
+            return false;
+        }
+
+        if (!(this.sul instanceof CopyableSUL)) {
+            this.numberOfResets++;
+            this.sul.pre();
+            try {
+                return step(this.sul, input, 0);
+            } finally {
+                this.sul.post();
+            }
+        }
+
+        // find the snapshot of the longest prefix that ends with a call symbol
+        for (int i = input.length() - 1; i >= 0; i--) {
+            if (this.alphabet.isCallSymbol(input.getSymbol(i))) {
+                final Snapshot<I> snapshot = this.snapshots.get(input.prefix(i + 1));
+
+                if (snapshot != null) {
+                    this.numberOfSnapshotHits++;
+
+                    if (i == input.length() - 1) {
+                        return snapshot.output;
+                    }
+
+                    final CopyableSUL<I, Boolean> copy = snapshot.sul.copy();
+                    try {
+                        return stepAndSnapshot(copy, input, i + 1);
+                    } finally {
+                        copy.post();
+                    }
+                }
+            }
+        }
+
+        this.numberOfResets++;
+        this.sul.pre();
+        try {
+            return stepAndSnapshot((CopyableSUL<I, Boolean>) this.sul, input, 0);
+        } finally {
+            this.sul.post();
+        }
+    }
+
+    private boolean step(SUL<I, Boolean> system, Word<I> input, int offset) {
+        Boolean output = null;
+
+        for (int i = offset; i < input.length(); i++) {
+            output = system.step(input.getSymbol(i));
+            this.numberOfSteps++;
+        }
+
+        return output;
+    }
+
+    private boolean stepAndSnapshot(CopyableSUL<I, Boolean> system, Word<I> input, int offset) {
+        Boolean output = null;
+
+        for (int i = offset; i < input.length(); i++) {
+            final I sym = input.getSymbol(i);
+            output = system.step(sym);
+            this.numberOfSteps++;
+
+            if (this.alphabet.isCallSymbol(sym)) {
+                final Word<I> prefix = input.prefix(i + 1);
+                if (!this.snapshots.containsKey(prefix)) {
+                    this.snapshots.put(prefix, new Snapshot<>(system.copy(), output));
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Discards (and {@link SUL#post() shuts down}) all snapshots, e.g. if the state of the system has changed.
+     */
+    public void clearSnapshots() {
+        this.snapshots.values().forEach(s -> s.sul.post());
+        this.snapshots.clear();
+    }
+
+    /**
+     * @return the number of resets (i.e. {@link SUL#pre()} invocations) issued so far
+     */
+    public long getNumberOfResets() {
+        return numberOfResets;
+    }
+
+    /**
+     * @return the number of {@link SUL#step(Object) steps} issued so far
+     */
+    public long getNumberOfSteps() {
+        return numberOfSteps;
+    }
+
+    /**
+     * @return the number of queries that have been answered by resuming from a snapshot
+     */
+    public long getNumberOfSnapshotHits() {
+        return numberOfSnapshotHits;
+    }
+
+    private static final class Snapshot<I> {
+
+        private final CopyableSUL<I, Boolean> sul;
+        private final Boolean output;
+
+        Snapshot(CopyableSUL<I, Boolean> sul, Boolean output) {
+            this.sul = sul;
+            this.output = output;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.AsyncMembershipOracle;
+
+/**
+ * A membership oracle for blocking (and potentially non-thread-safe) system adapters, that answers each query of a
+ * batch in its own task. Each running task uses an exclusive worker (i.e. an oracle instance created by the given
+ * factory), which is returned to a pool after the query has been answered. A worker whose query fails is discarded and
+ * replaced by a new one on demand. At most {@code maxConcurrency} queries are answered at the same time, hence at most
+ * {@code maxConcurrency} workers are idle or in use at any time.
+ * <p>
+ * If available at runtime (Java 21+), the tasks run on virtual threads, so that a large number of concurrent blocking
+ * queries does not require a large number of platform threads. Otherwise, the tasks run on a fixed pool of {@code
+ * maxConcurrency} (daemon) platform threads.
+ *
+ * @param <I>
+ *         input symbol type
+ * @param <D>
+ *         output domain type
+ *
+ * @author frohme
+ */
+public class WorkerPoolOracle<I, D> implements MembershipOracle<I, D>, AsyncMembershipOracle<I, D>, AutoCloseable {
+
+    private final Supplier<? extends MembershipOracle<I, D>> workerFactory;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Semaphore permits;
+    private final Queue<MembershipOracle<I, D>> idleWorkers;
+
+    /**
+     * Constructor that uses virtual threads, if available, or a pool of platform threads otherwise.
+     *
+     * @param workerFactory
+     *         the factory for the workers that answer the individual queries
+     * @param maxConcurrency
+     *         the maximum number of concurrently answered queries
+     */
+    public WorkerPoolOracle(Supplier<? extends MembershipOracle<I, D>> workerFactory, int maxConcurrency) {
+        this(workerFactory, maxConcurrency, createExecutor(maxConcurrency), true);
+    }
+
+    /**
+     * Constructor that runs the tasks on the given executor. The executor is not shut down by {@link #close()}.
+     *
+     * @param workerFactory
+     *         the factory for the workers that answer the individual queries
+     * @param maxConcurrency
+     *         the maximum number of concurrently answered queries
+     * @param executor
+     *         the executor to run the tasks on
+     */
+    public WorkerPoolOracle(Supplier<? extends MembershipOracle<I, D>> workerFactory,
+                            int maxConcurrency,
+                            ExecutorService executor) {
+        this(workerFactory, maxConcurrency, executor, false);
+    }
+
+    private WorkerPoolOracle(Supplier<? extends MembershipOracle<I, D>> workerFactory,
+                             int maxConcurrency,
+                             ExecutorService executor,
+                             boolean ownsExecutor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency needs to be positive");
+        }
+
+        this.workerFactory = workerFactory;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.permits = new Semaphore(maxConcurrency);
+        this.idleWorkers = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task, if supported by the running JVM. Otherwise, a
+     * fixed pool of platform threads is returned.
+     *
+     * @param fallbackThreads
+     *         the number of threads of the fallback pool
+     *
+     * @return the executor
+     */
+    public static ExecutorService createExecutor(int fallbackThreads) {
+        try {
+            // looked up reflectively, since we are compiled against Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | SecurityException e) {
+            return Executors.newFixedThreadPool(fallbackThreads, new WorkerThreadFactory());
+        }
+    }
+
+    @Override
+    public void processQuery(Query<I, D> query) {
+        processQueries(Collections.singleton(query));
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        try {
+            processQueriesAsync(queries).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> processQueriesAsync(Collection<? extends Query<I, D>> queries) {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[queries.size()];
+        int i = 0;
+
+        for (final Query<I, D> q : queries) {
+            futures[i++] = CompletableFuture.runAsync(() -> answer(q), this.executor);
+        }
+
+        return CompletableFuture.allOf(futures);
+    }
+
+    private void answer(Query<I, D> query) {
+        this.permits.acquireUninterruptibly();
+        try {
+            MembershipOracle<I, D> worker = this.idleWorkers.poll();
+            if (worker == null) {
+                worker = this.workerFactory.get();
+            }
+
+            // a worker that failed may be in an inconsistent state, so it is discarded rather than reused
+            worker.processQuery(query);
+            this.idleWorkers.offer(worker);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Shuts down the executor, if it has been created by this oracle.
+     */
+    @Override
+    public void close() {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "spa-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
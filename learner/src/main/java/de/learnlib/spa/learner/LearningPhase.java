@@ -0,0 +1,50 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.learner;
+
+/**
+ * The individual phases of a (global) refinement step of the {@link SPALearner}. Phases may be nested, e.g. the
+ * {@link #TS_CONFORMANCE} check may trigger {@link #LOCAL_REFINEMENT}s and {@link #ATR_OPTIMIZATION}s.
+ *
+ * @author frohme
+ */
+public enum LearningPhase {
+
+    /**
+     * Searching for a counterexample. This phase is not entered by the {@link SPALearner} itself, but by the driver of
+     * the learning loop.
+     */
+    EQUIVALENCE_QUERY,
+
+    /**
+     * Decomposing a global counterexample in order to detect the rejecting procedure.
+     */
+    COUNTEREXAMPLE_ANALYSIS,
+
+    /**
+     * Extracting and optimizing access, terminating and return sequences.
+     */
+    ATR_OPTIMIZATION,
+
+    /**
+     * Checking (and ensuring) that the procedural hypotheses accept the current terminating sequences.
+     */
+    TS_CONFORMANCE,
+
+    /**
+     * Initializing or refining a sub-procedural learner.
+     */
+    LOCAL_REFINEMENT
+}
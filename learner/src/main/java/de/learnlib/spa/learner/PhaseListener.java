@@ -0,0 +1,38 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.learner;
+
+/**
+ * A listener that is notified whenever the {@link SPALearner} enters or exits one of its {@link LearningPhase}s. Calls
+ * are properly nested, i.e. each {@link #exitPhase(LearningPhase)} matches the most recent, not yet exited {@link
+ * #enterPhase(LearningPhase)}.
+ *
+ * @author frohme
+ */
+public interface PhaseListener {
+
+    PhaseListener NOOP = new PhaseListener() {
+
+        @Override
+        public void enterPhase(LearningPhase phase) {}
+
+        @Override
+        public void exitPhase(LearningPhase phase) {}
+    };
+
+    void enterPhase(LearningPhase phase);
+
+    void exitPhase(LearningPhase phase);
+}
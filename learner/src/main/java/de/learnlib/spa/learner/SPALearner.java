@@ -16,36 +16,49 @@ package de.learnlib.spa.learner;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+import javax.annotation.Nullable;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.acex.impl.AbstractBaseCounterexample;
 import de.learnlib.api.AccessSequenceTransformer;
 import de.learnlib.api.algorithm.LearningAlgorithm;
 import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.filter.statistic.oracle.JointCounterOracle;
+import de.learnlib.spa.IntWord;
 import de.learnlib.spa.LocalRefinementCounter;
 import de.learnlib.spa.TransformationUtil;
 import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.MetricsListener;
 import de.learnlib.spa.api.SPA;
 import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.ConcurrentCounterOracle;
 import de.learnlib.spa.impl.DefaultSPA;
 import de.learnlib.spa.impl.EmptySPA;
+import de.learnlib.spa.impl.EncodedATRProvider;
+import de.learnlib.spa.impl.MetricsOracle;
 import de.learnlib.spa.impl.OptimizingATRProvider;
 import de.learnlib.spa.impl.ProceduralMembershipOracle;
 import de.learnlib.util.MQUtil;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
-import net.automatalib.words.WordBuilder;
 
 /**
  * The learning algorithm for {@link DefaultSPA}s.
@@ -61,16 +74,37 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
         implements LearningAlgorithm<SPA<?, I>, I, Boolean> {
 
     private final SPAAlphabet<I> alphabet;
-    private final MembershipOracle<I, Boolean> oracle;
     private final BiFunction<Alphabet<I>, MembershipOracle<I, Boolean>, L> learnerProvider;
     private final ATRProvider<I> atrProvider;
+    /**
+     * The {@link #atrProvider} if it maintains encoded terminating sequences, {@code null} otherwise.
+     */
+    @Nullable
+    private final EncodedATRProvider<I> encodedATRProvider;
 
     private final Map<I, L> subLearners;
+    private final Map<I, MembershipOracle<I, Boolean>> proceduralOracles;
     private final TransformationUtil<I> transformationUtil;
-    private final JointCounterOracle<I, Boolean> ceOracle;
+    private final ConcurrentCounterOracle<I, Boolean> queryCounter;
+    private final JointCounterOracle<I, Boolean> ceCounter;
+    private final MembershipOracle<I, Boolean> ceOracle;
     private final Set<I> activeAlphabet;
+    /**
+     * Answers to the decompositions of the currently analyzed (negative) global counterexample. A decomposition word
+     * determines both the return index and the terminating sequences used for its expansion, so answers remain valid
+     * across the repeated analyses of the same counterexample, even if sequences change in between.
+     */
+    private final Map<Word<I>, Boolean> decompositionAnswers;
     private I initialCallSymbol;
     private long numberOfRefinements;
+    private PhaseListener phaseListener = PhaseListener.NOOP;
+    private MetricsListener<? super I> metricsListener = MetricsListener.NOOP;
+    private int decompositionWidth = 1;
+    private AcexAnalyzer analyzer = AcexAnalyzers.BINARY_SEARCH_FWD;
+    private boolean localCounterexampleReuse;
+    private boolean multiProcedureAnalysis;
+    private boolean sequenceOptimization;
+    private boolean localQueryCache;
 
     public SPALearner(final SPAAlphabet<I> alphabet,
                       final MembershipOracle<I, Boolean> oracle,
@@ -83,16 +117,21 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
                       final BiFunction<Alphabet<I>, MembershipOracle<I, Boolean>, L> learnerProvider,
                       final ATRProvider<I> atrProvider) {
         this.alphabet = alphabet;
-        this.oracle = oracle;
         this.learnerProvider = learnerProvider;
         this.atrProvider = atrProvider;
+        this.encodedATRProvider =
+                atrProvider instanceof EncodedATRProvider ? (EncodedATRProvider<I>) atrProvider : null;
 
         this.subLearners = Maps.newHashMapWithExpectedSize(this.alphabet.getNumCalls());
+        this.proceduralOracles = Maps.newHashMapWithExpectedSize(this.alphabet.getNumCalls());
         this.transformationUtil = new TransformationUtil<>(alphabet);
-        this.ceOracle = new JointCounterOracle<>(oracle);
+        this.queryCounter = new ConcurrentCounterOracle<>(oracle);
+        this.ceCounter = new JointCounterOracle<>(this.queryCounter);
+        this.ceOracle = new MetricsOracle<>(this.ceCounter, this::getMetricsListener, null);
 
         this.activeAlphabet = Sets.newHashSetWithExpectedSize(alphabet.getNumCalls() + alphabet.getNumInternals());
         this.activeAlphabet.addAll(alphabet.getInternalAlphabet());
+        this.decompositionAnswers = new HashMap<>();
     }
 
     @Override
@@ -103,15 +142,25 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
     @Override
     public boolean refineHypothesis(DefaultQuery<I, Boolean> defaultQuery) {
 
+        this.metricsListener.counterexampleProcessed(defaultQuery.getInput().length());
+
         boolean changed = this.extractUsefulInformationFromCounterExample(defaultQuery);
 
         if (changed) {
             numberOfRefinements++;
         }
 
-        while (refineHypothesisInternal(defaultQuery)) {
-            numberOfRefinements++;
-            changed = true;
+        try {
+            while (refineHypothesisInternal(defaultQuery)) {
+                numberOfRefinements++;
+                changed = true;
+            }
+        } finally {
+            this.decompositionAnswers.clear();
+        }
+
+        if (changed && this.sequenceOptimization) {
+            optimizeAccessAndReturnSequences();
         }
 
         return changed;
@@ -126,26 +175,50 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
         }
 
         final Word<I> input = defaultQuery.getInput();
+        final IntWord encodedInput = this.transformationUtil.encode(input);
 
         // look for better sequences and ensure TS conformance prior to CE analysis
-        boolean localRefinement = updateATRAndCheckTSConformance(hypothesis);
+        boolean localRefinement;
+
+        this.phaseListener.enterPhase(LearningPhase.TS_CONFORMANCE);
+        try {
+            localRefinement = updateATRAndCheckTSConformance(hypothesis);
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.TS_CONFORMANCE);
+        }
+
+        if (this.multiProcedureAnalysis && refineInconsistentProcedures(encodedInput, defaultQuery.getOutput())) {
+            return true;
+        }
 
         final int returnIdx;
 
-        if (defaultQuery.getOutput()) {
-            returnIdx = detectRejectingProcedure(getHypothesisModel()::accepts, input);
-        } else {
-            returnIdx = detectRejectingProcedure(this.ceOracle::answerQuery, input);
+        this.phaseListener.enterPhase(LearningPhase.COUNTEREXAMPLE_ANALYSIS);
+        try {
+            if (defaultQuery.getOutput()) {
+                final Predicate<Word<I>> model = getHypothesisModel()::accepts;
+                returnIdx = detectRejectingProcedure(encodedInput,
+                                                     (w, r) -> findBreakpointReturnIndex(model, w, r));
+            } else if (this.decompositionWidth > 1) {
+                returnIdx = detectRejectingProcedure(encodedInput, this::findBreakpointReturnIndexBatched);
+            } else {
+                final Predicate<Word<I>> system =
+                        w -> this.decompositionAnswers.computeIfAbsent(w, this.ceOracle::answerQuery);
+                returnIdx = detectRejectingProcedure(encodedInput,
+                                                     (w, r) -> findBreakpointReturnIndex(system, w, r));
+            }
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.COUNTEREXAMPLE_ANALYSIS);
         }
 
         // extract local ce
-        final int callIdx = transformationUtil.findCallIndex(input, returnIdx);
+        final int callIdx = transformationUtil.findCallIndex(encodedInput, returnIdx);
         final I procedure = input.getSymbol(callIdx);
 
-        final Word<I> localTrace = transformationUtil.normalize(input.subWord(callIdx + 1, returnIdx), 0);
-        final DefaultQuery<I, Boolean> localCE = new DefaultQuery<>(localTrace, defaultQuery.getOutput());
+        final IntWord localTrace = transformationUtil.normalize(encodedInput.subWord(callIdx + 1, returnIdx), 0);
+        final DefaultQuery<I, Boolean> localCE = new DefaultQuery<>(transformationUtil.decode(localTrace), defaultQuery.getOutput());
 
-        localRefinement |= this.subLearners.get(procedure).refineHypothesis(localCE);
+        localRefinement |= refineSubLearner(procedure, localCE);
 
         if (!localRefinement) {
             throw new AssertionError();
@@ -176,40 +249,119 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
         // positive CEs should always be rooted at the main procedure
         this.initialCallSymbol = input.firstSymbol();
 
-        final Set<I> newProcedures = atrProvider.scanPositiveCounterexample(input);
+        final Set<I> newProcedures;
+
+        this.phaseListener.enterPhase(LearningPhase.ATR_OPTIMIZATION);
+        try {
+            newProcedures = atrProvider.scanPositiveCounterexample(input);
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.ATR_OPTIMIZATION);
+        }
+
+        reportSequences();
 
         for (I sym : newProcedures) {
-            final L newLearner = learnerProvider.apply(this.alphabet.getInternalAlphabet(),
-                                                       new ProceduralMembershipOracle<>(alphabet,
-                                                                                        oracle,
-                                                                                        sym,
-                                                                                        atrProvider));
+            final MembershipOracle<I, Boolean> localOracle =
+                    new MetricsOracle<>(queryCounter.forProcedure(sym), this::getMetricsListener, sym);
+            final MembershipOracle<I, Boolean> proceduralOracle =
+                    new ProceduralMembershipOracle<>(alphabet, localOracle, sym, atrProvider, localQueryCache);
+            final L newLearner = learnerProvider.apply(this.alphabet.getInternalAlphabet(), proceduralOracle);
             this.subLearners.put(sym, newLearner);
+            this.proceduralOracles.put(sym, proceduralOracle);
 
-            newLearner.startLearning();
-            for (final I call : this.subLearners.keySet()) {
-                newLearner.addAlphabetSymbol(call);
+            this.phaseListener.enterPhase(LearningPhase.LOCAL_REFINEMENT);
+            try {
+                newLearner.startLearning();
+                for (final I call : this.subLearners.keySet()) {
+                    newLearner.addAlphabetSymbol(call);
+                }
+            } finally {
+                this.phaseListener.exitPhase(LearningPhase.LOCAL_REFINEMENT);
             }
 
+            this.metricsListener.hypothesisSizeChanged(sym, newLearner.getHypothesisModel().size());
+
             // try to find a shorter terminating sequence for 'sym' before procedure is invoked in other hypotheses
-            this.atrProvider.scanRefinedProcedures(Collections.singletonMap(sym, newLearner.getHypothesisModel()),
-                                                   subLearners,
-                                                   activeAlphabet);
+            scanRefinedProcedures(Collections.singletonMap(sym, newLearner.getHypothesisModel()));
             this.activeAlphabet.add(sym);
 
-            for (final L learner : this.subLearners.values()) {
-                learner.addAlphabetSymbol(sym);
+            this.phaseListener.enterPhase(LearningPhase.LOCAL_REFINEMENT);
+            try {
+                for (final L learner : this.subLearners.values()) {
+                    learner.addAlphabetSymbol(sym);
+                }
+            } finally {
+                this.phaseListener.exitPhase(LearningPhase.LOCAL_REFINEMENT);
             }
         }
 
         if (!newProcedures.isEmpty()) {
-            this.atrProvider.scanRefinedProcedures(getSubModels(), subLearners, activeAlphabet);
+            scanRefinedProcedures(getSubModels());
             return true;
         } else {
             return false;
         }
     }
 
+    private void scanRefinedProcedures(Map<I, ? extends DFA<?, I>> procedures) {
+        this.phaseListener.enterPhase(LearningPhase.ATR_OPTIMIZATION);
+        try {
+            this.atrProvider.scanRefinedProcedures(procedures, subLearners, activeAlphabet);
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.ATR_OPTIMIZATION);
+        }
+
+        reportSequences();
+    }
+
+    private void optimizeAccessAndReturnSequences() {
+        this.phaseListener.enterPhase(LearningPhase.ATR_OPTIMIZATION);
+        try {
+            this.atrProvider.optimizeAccessAndReturnSequences(getSubModels(), activeAlphabet, ceOracle);
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.ATR_OPTIMIZATION);
+        }
+
+        reportSequences();
+    }
+
+    private boolean refineSubLearner(I procedure, DefaultQuery<I, Boolean> localCE) {
+        final L learner = this.subLearners.get(procedure);
+        final boolean result;
+
+        this.metricsListener.localCounterexampleProcessed(procedure, localCE.getInput().length());
+
+        this.phaseListener.enterPhase(LearningPhase.LOCAL_REFINEMENT);
+        try {
+            boolean refined = learner.refineHypothesis(localCE);
+            result = refined;
+
+            // only the hypothesis of the refined procedure needs to be checked against the local counterexample
+            while (refined && this.localCounterexampleReuse &&
+                   MQUtil.isCounterexample(localCE, learner.getHypothesisModel())) {
+                refined = learner.refineHypothesis(localCE);
+            }
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.LOCAL_REFINEMENT);
+        }
+
+        this.metricsListener.hypothesisSizeChanged(procedure, learner.getHypothesisModel().size());
+
+        return result;
+    }
+
+    private void reportSequences() {
+        for (final I procedure : this.subLearners.keySet()) {
+            final Word<I> as = this.atrProvider.getAccessSequence(procedure);
+            final Word<I> ts = this.atrProvider.getTerminatingSequence(procedure);
+            final Word<I> rs = this.atrProvider.getReturnSequence(procedure);
+
+            if (as != null && ts != null && rs != null) {
+                this.metricsListener.sequencesUpdated(procedure, as.length(), ts.length(), rs.length());
+            }
+        }
+    }
+
     private Map<I, DFA<?, I>> getSubModels() {
         final Map<I, DFA<?, I>> subModels = Maps.newHashMapWithExpectedSize(this.subLearners.size());
 
@@ -227,110 +379,271 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
         while (checkAndEnsureTSConformance(subModels)) {
             refinement = true;
             subModels = getSubModels();
-            this.atrProvider.scanRefinedProcedures(subModels, subLearners, activeAlphabet);
+            scanRefinedProcedures(subModels);
         }
 
         return refinement;
     }
 
-    private <S> int detectRejectingProcedure(Predicate<Word<I>> rejectingSystem, Word<I> input) {
+    /**
+     * Checks the local traces of all procedure invocations of the given global counterexample against the respective
+     * procedural hypotheses and refines every sub-learner whose hypothesis is inconsistent with (one of) its traces.
+     * <p>
+     * For a positive counterexample, every local trace is known to be accepted, so no queries are necessary. For a
+     * negative counterexample, all (distinct) local traces are posed as a single batch of local queries per procedure.
+     * Traces that invoke procedures without a terminating sequence cannot be transformed and are skipped.
+     *
+     * @return {@code true} if at least one sub-learner has been refined, {@code false} otherwise
+     */
+    private boolean refineInconsistentProcedures(IntWord input, boolean output) {
+
+        final Map<I, Map<Word<I>, DefaultQuery<I, Boolean>>> localQueries = new LinkedHashMap<>();
+
+        this.phaseListener.enterPhase(LearningPhase.COUNTEREXAMPLE_ANALYSIS);
+        try {
+            for (int i = 0; i < input.length(); i++) {
+                if (!this.transformationUtil.isReturnSymbol(input.getSymbol(i))) {
+                    continue;
+                }
+
+                final int callIdx = this.transformationUtil.findCallIndex(input, i);
+                final I procedure = this.transformationUtil.decode(input.getSymbol(callIdx));
+                final IntWord localTrace = this.transformationUtil.normalize(input.subWord(callIdx + 1, i), 0);
+
+                if (this.subLearners.containsKey(procedure) && isTransformable(localTrace)) {
+                    localQueries.computeIfAbsent(procedure, p -> new LinkedHashMap<>())
+                                .computeIfAbsent(this.transformationUtil.decode(localTrace), DefaultQuery::new);
+                }
+            }
+
+            for (final Map.Entry<I, Map<Word<I>, DefaultQuery<I, Boolean>>> e : localQueries.entrySet()) {
+                if (output) {
+                    e.getValue().values().forEach(q -> q.answer(true));
+                } else {
+                    this.proceduralOracles.get(e.getKey()).processQueries(e.getValue().values());
+                }
+            }
+        } finally {
+            this.phaseListener.exitPhase(LearningPhase.COUNTEREXAMPLE_ANALYSIS);
+        }
 
-        final List<Integer> returnIndices = new ArrayList<>();
+        boolean refinement = false;
+
+        for (final Map.Entry<I, Map<Word<I>, DefaultQuery<I, Boolean>>> e : localQueries.entrySet()) {
+            final I procedure = e.getKey();
+
+            for (final DefaultQuery<I, Boolean> localQuery : e.getValue().values()) {
+                // the hypothesis may have changed due to a previous local counterexample
+                if (MQUtil.isCounterexample(localQuery, this.subLearners.get(procedure).getHypothesisModel())) {
+                    refinement |= refineSubLearner(procedure, localQuery);
+                }
+            }
+        }
+
+        return refinement;
+    }
+
+    private boolean isTransformable(IntWord localTrace) {
+        for (int i = 0; i < localTrace.length(); i++) {
+            final int symbol = localTrace.getSymbol(i);
+            if (this.transformationUtil.isCallSymbol(symbol) &&
+                !this.subLearners.containsKey(this.transformationUtil.decode(symbol))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int detectRejectingProcedure(IntWord input, ToIntBiFunction<IntWord, int[]> search) {
+
+        int numReturns = 0;
 
         for (int i = 0; i < input.length(); i++) {
-            if (this.alphabet.isReturnSymbol(input.getSymbol(i))) {
-                returnIndices.add(i);
+            if (this.transformationUtil.isReturnSymbol(input.getSymbol(i))) {
+                numReturns++;
+            }
+        }
+
+        final int[] returnIndices = new int[numReturns];
+
+        for (int i = 0, j = 0; i < input.length(); i++) {
+            if (this.transformationUtil.isReturnSymbol(input.getSymbol(i))) {
+                returnIndices[j++] = i;
             }
         }
 
         // skip last index, because we know its accepting
-        int returnIdxPos = findLowestAcceptingReturnIndex(rejectingSystem,
-                                                          input,
-                                                          returnIndices.subList(0, returnIndices.size() - 1));
+        int returnIdxPos = search.applyAsInt(input, Arrays.copyOf(returnIndices, numReturns - 1));
 
         // if everything is rejecting the error happens at the main procedure
         if (returnIdxPos == -1) {
-            returnIdxPos = returnIndices.size() - 1;
+            returnIdxPos = numReturns - 1;
         }
 
-        return returnIndices.get(returnIdxPos);
+        return returnIndices[returnIdxPos];
     }
 
-    private int findLowestAcceptingReturnIndex(Predicate<? super Word<I>> system,
-                                               Word<I> input,
-                                               List<Integer> returnIndices) {
+    /**
+     * Searches for a breakpoint of the given return indices, i.e. a position {@code i} such that the decomposition after
+     * {@code returnIndices[i]} is accepted by the given system, while the decomposition after {@code returnIndices[i -
+     * 1]} (or the original input, if {@code i == 0}) is not. Position {@code returnIndices.length} denotes the final
+     * return of the input, whose decomposition is known to be accepted. The search is performed by the configured
+     * {@link #analyzer}, so the returned breakpoint is not necessarily the lowest one.
+     */
+    private int findBreakpointReturnIndex(Predicate<? super Word<I>> system,
+                                               IntWord input,
+                                               int[] returnIndices) {
+
+        final AbstractBaseCounterexample<Boolean> acex =
+                new AbstractBaseCounterexample<Boolean>(returnIndices.length + 2) {
+
+                    @Override
+                    protected Boolean computeEffect(int index) {
+                        return acceptsDecomposition(system, input, returnIndices[index - 1] + 1);
+                    }
+
+                    @Override
+                    public boolean checkEffects(Boolean eff1, Boolean eff2) {
+                        return eff1.equals(eff2);
+                    }
+                };
+
+        acex.setEffect(0, false);
+        acex.setEffect(returnIndices.length + 1, true);
+
+        return this.analyzer.analyzeAbstractCounterexample(acex);
+    }
+
+    /**
+     * A variant of {@link #findBreakpointReturnIndex(Predicate, IntWord, int[])} that poses {@link
+     * #decompositionWidth} (evenly spaced) decompositions per round as a single batch, so that they can be answered
+     * concurrently. This reduces the number of sequential rounds from log_2(n) to log_(w+1)(n) at the cost of
+     * additional queries. If none of the decompositions is accepted, {@code -1} is returned.
+     */
+    private int findBreakpointReturnIndexBatched(IntWord input, int[] returnIndices) {
 
         int lower = 0;
-        int upper = returnIndices.size() - 1;
+        int upper = returnIndices.length - 1;
         int result = -1;
 
         while (upper - lower > -1) {
-            final int mid = lower + ((upper - lower) / 2);
-            final int returnIdx = returnIndices.get(mid);
+            final int range = upper - lower + 1;
+            final int width = Math.min(this.decompositionWidth, range);
+            final int[] positions = new int[width];
+            final List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(width);
+            final List<DefaultQuery<I, Boolean>> openQueries = new ArrayList<>(width);
+
+            for (int i = 0; i < width; i++) {
+                positions[i] = lower + (int) ((long) range * (i + 1) / (width + 1));
+                final IntWord decomposition = buildDecomposition(input, returnIndices[positions[i]] + 1);
+                final DefaultQuery<I, Boolean> query = new DefaultQuery<>(transformationUtil.decode(decomposition));
+                final Boolean answer = this.decompositionAnswers.get(query.getInput());
+
+                if (answer == null) {
+                    openQueries.add(query);
+                } else {
+                    query.answer(answer);
+                }
+                queries.add(query);
+            }
 
-            final boolean answer = acceptsDecomposition(system, input, returnIdx + 1);
+            if (!openQueries.isEmpty()) {
+                this.ceOracle.processQueries(openQueries);
+                for (final DefaultQuery<I, Boolean> query : openQueries) {
+                    this.decompositionAnswers.put(query.getInput(), query.getOutput());
+                }
+            }
+
+            int firstAccepting = 0;
+            while (firstAccepting < width && !queries.get(firstAccepting).getOutput()) {
+                firstAccepting++;
+            }
 
-            if (answer) {
-                result = mid;
-                upper = mid - 1;
+            if (firstAccepting < width) {
+                result = positions[firstAccepting];
+                upper = positions[firstAccepting] - 1;
+                if (firstAccepting > 0) {
+                    lower = positions[firstAccepting - 1] + 1;
+                }
             } else {
-                lower = mid + 1;
+                lower = positions[width - 1] + 1;
             }
         }
 
         return result;
     }
 
-    private boolean acceptsDecomposition(Predicate<? super Word<I>> system, Word<I> input, int idxAfterReturn) {
-        final Deque<Word<I>> wordStack = new ArrayDeque<>();
+    private boolean acceptsDecomposition(Predicate<? super Word<I>> system, IntWord input, int idxAfterReturn) {
+        return system.test(transformationUtil.decode(buildDecomposition(input, idxAfterReturn)));
+    }
+
+    private IntWord buildDecomposition(IntWord input, int idxAfterReturn) {
+        final Deque<IntWord> wordStack = new ArrayDeque<>();
         int idx = idxAfterReturn;
+        int length = input.length() - idxAfterReturn;
 
         while (idx > 0) {
             final int callIdx = transformationUtil.findCallIndex(input, idx);
-            final I callSymbol = input.getSymbol(callIdx);
-            final Word<I> normalized = transformationUtil.normalize(input.subWord(callIdx + 1, idx), 0);
-            final Word<I> expanded = transformationUtil.expand(normalized, this.atrProvider::getTerminatingSequence);
+            final int callSymbol = input.getSymbol(callIdx);
+            final IntWord normalized = transformationUtil.normalize(input.subWord(callIdx + 1, idx), 0);
+            final IntWord expanded = transformationUtil.expand(normalized, this::getEncodedTerminatingSequence);
 
-            wordStack.push(expanded.prepend(callSymbol));
+            wordStack.push(expanded);
+            wordStack.push(IntWord.of(callSymbol));
+            length += expanded.length() + 1;
 
             idx = callIdx;
         }
 
-        final WordBuilder<I> builder = new WordBuilder<>();
-        wordStack.forEach(builder::append);
-        builder.append(input.subWord(idxAfterReturn));
+        final IntWord.Builder builder = new IntWord.Builder(length);
+        wordStack.forEach(builder::addAll);
+        builder.addAll(input.subWord(idxAfterReturn));
 
-        return system.test(builder.toWord());
+        return builder.toWord();
+    }
+
+    private IntWord getEncodedTerminatingSequence(int procedure) {
+        final I symbol = this.transformationUtil.decode(procedure);
+
+        if (this.encodedATRProvider != null) {
+            return this.encodedATRProvider.getEncodedTerminatingSequence(symbol);
+        }
+
+        final Word<I> terminatingSequence = this.atrProvider.getTerminatingSequence(symbol);
+        return terminatingSequence == null ? null : this.transformationUtil.encode(terminatingSequence);
     }
 
     private boolean checkAndEnsureTSConformance(Map<I, DFA<?, I>> subModels) {
         boolean refinement = false;
 
         for (final I procedure : this.subLearners.keySet()) {
-            final Word<I> terminatingSequence = this.atrProvider.getTerminatingSequence(procedure);
-            final WordBuilder<I> embeddedTS = new WordBuilder<>(terminatingSequence.size() + 2);
-            embeddedTS.append(procedure);
-            embeddedTS.append(terminatingSequence);
-            embeddedTS.append(alphabet.getReturnSymbol());
+            final int encodedProcedure = this.transformationUtil.encode(procedure);
+            final IntWord terminatingSequence = getEncodedTerminatingSequence(encodedProcedure);
+            final IntWord.Builder embeddedTS = new IntWord.Builder(terminatingSequence.length() + 2);
+            embeddedTS.add(encodedProcedure);
+            embeddedTS.addAll(terminatingSequence);
+            embeddedTS.add(this.transformationUtil.getReturnSymbol());
             refinement |= checkSingleTerminatingSequence(embeddedTS.toWord(), subModels);
         }
 
         return refinement;
     }
 
-    private boolean checkSingleTerminatingSequence(Word<I> input, Map<I, DFA<?, I>> hypotheses) {
+    private boolean checkSingleTerminatingSequence(IntWord input, Map<I, DFA<?, I>> hypotheses) {
         boolean refinement = false;
 
-        for (int i = 0; i < input.size(); i++) {
-            final I sym = input.getSymbol(i);
+        for (int i = 0; i < input.length(); i++) {
+            final int sym = input.getSymbol(i);
 
-            if (this.alphabet.isCallSymbol(sym)) {
+            if (this.transformationUtil.isCallSymbol(sym)) {
                 final int returnIdx = this.transformationUtil.findReturnIndex(input, i + 1);
-                final Word<I> projectedRun = this.transformationUtil.normalize(input.subWord(i + 1, returnIdx), 0);
+                final IntWord projectedRun = this.transformationUtil.normalize(input.subWord(i + 1, returnIdx), 0);
+                final Word<I> decodedRun = this.transformationUtil.decode(projectedRun);
+                final I procedure = this.transformationUtil.decode(sym);
 
-                if (!hypotheses.get(sym).accepts(projectedRun)) {
+                if (!hypotheses.get(procedure).accepts(decodedRun)) {
                     refinement = true;
-                    subLearners.get(sym).refineHypothesis(new DefaultQuery<>(projectedRun, true));
+                    refineSubLearner(procedure, new DefaultQuery<>(decodedRun, true));
                 }
             }
         }
@@ -338,8 +651,135 @@ public class SPALearner<I, L extends LearningAlgorithm.DFALearner<I> & SupportsG
         return refinement;
     }
 
+    /**
+     * Sets the number of decompositions of a (negative) counterexample that are posed as a single batch during
+     * counterexample analysis. A width of {@code 1} (the default) results in a sequential binary search. Larger widths
+     * allow asynchronous oracles (see {@link de.learnlib.spa.impl.AsyncOracles#pipelined(
+     * de.learnlib.spa.api.AsyncMembershipOracle, int, int)}) to answer the decompositions concurrently.
+     *
+     * @param decompositionWidth
+     *         the number of decompositions per batch, must be positive
+     */
+    public void setDecompositionWidth(int decompositionWidth) {
+        if (decompositionWidth < 1) {
+            throw new IllegalArgumentException("Decomposition width needs to be positive");
+        }
+        this.decompositionWidth = decompositionWidth;
+    }
+
+    /**
+     * Sets the analyzer for the global counterexample analysis, i.e. the search for the procedure whose local
+     * counterexample is extracted from a global counterexample. The default is a forward binary search ({@link
+     * AcexAnalyzers#BINARY_SEARCH_FWD}). Note that a {@link #setDecompositionWidth(int)
+     * decomposition width} larger than {@code 1} takes precedence for negative counterexamples.
+     *
+     * @param analyzer
+     *         the analyzer, must not be {@code null}
+     */
+    public void setAnalyzer(AcexAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Sets whether a local counterexample is replayed to its sub-learner until the procedural hypothesis is consistent
+     * with it. By default, sub-learners that perform a single refinement per counterexample (e.g. the L*-based ones)
+     * are refined only once, after which the global counterexample is analyzed again on the updated hypothesis. Reusing
+     * local counterexamples avoids these repeated global analyses, if a counterexample exposes multiple errors of the
+     * same procedure.
+     *
+     * @param localCounterexampleReuse
+     *         whether local counterexamples should be reused
+     */
+    public void setLocalCounterexampleReuse(boolean localCounterexampleReuse) {
+        this.localCounterexampleReuse = localCounterexampleReuse;
+    }
+
+    /**
+     * Sets whether a global counterexample is analyzed for all procedures at once. Instead of searching for a single
+     * procedure whose local trace exposes an error, the local traces of all procedure invocations are checked against
+     * the current procedural hypotheses, and every inconsistent sub-learner is refined. This reduces the number of
+     * global iterations if many procedures are wrong simultaneously, at the cost of one local query per distinct
+     * local trace of a negative counterexample. If no inconsistency can be determined this way, the regular analysis is
+     * used.
+     *
+     * @param multiProcedureAnalysis
+     *         whether counterexamples should be analyzed for all procedures at once
+     */
+    public void setMultiProcedureAnalysis(boolean multiProcedureAnalysis) {
+        this.multiProcedureAnalysis = multiProcedureAnalysis;
+    }
+
+    /**
+     * Sets whether access and return sequences are shortened after each refinement by embedding procedure calls into
+     * shortest paths of the current procedural hypotheses. Each shorter candidate costs one verification query, but
+     * shortens every subsequent local query of the affected procedure. Only has an effect if the configured
+     * {@link ATRProvider} supports {@link ATRProvider#optimizeAccessAndReturnSequences this optimization}.
+     *
+     * @param sequenceOptimization
+     *         whether access and return sequences should be optimized
+     */
+    public void setAccessAndReturnSequenceOptimization(boolean sequenceOptimization) {
+        this.sequenceOptimization = sequenceOptimization;
+    }
+
+    /**
+     * Sets whether the answers to local queries are cached per procedure. Since the answer to a local query does not
+     * depend on the access, terminating and return sequences used for its transformation, cached answers survive
+     * changes of these sequences. Enabling the cache reduces the number of posed queries at the cost of memory that
+     * grows with the number of distinct local queries. Only affects procedures that are discovered afterwards.
+     *
+     * @param localQueryCache
+     *         whether answers to local queries should be cached
+     */
+    public void setLocalQueryCache(boolean localQueryCache) {
+        this.localQueryCache = localQueryCache;
+    }
+
+    /**
+     * Sets the listener that is notified about the different {@link LearningPhase phases} of the learning process.
+     *
+     * @param phaseListener
+     *         the listener, must not be {@code null}
+     */
+    public void setPhaseListener(PhaseListener phaseListener) {
+        this.phaseListener = phaseListener;
+    }
+
+    /**
+     * Sets the listener that is notified about live metrics of the learning process. The listener may be exchanged at
+     * any time.
+     *
+     * @param metricsListener
+     *         the listener, must not be {@code null}
+     */
+    public void setMetricsListener(MetricsListener<? super I> metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public MetricsListener<? super I> getMetricsListener() {
+        return this.metricsListener;
+    }
+
+    /**
+     * Returns the oracle that counts the queries posed by this learner. Global queries (of the counterexample analysis)
+     * are reported as global queries, local queries of the sub-learners are attributed to their respective procedure.
+     *
+     * @return the counting oracle
+     */
+    public ConcurrentCounterOracle<I, Boolean> getQueryCounter() {
+        return this.queryCounter;
+    }
+
+    /**
+     * Returns the oracle that counts the global queries (of the counterexample analysis) only.
+     *
+     * @return the counting oracle of the global queries
+     *
+     * @deprecated use {@link #getQueryCounter()}, which also accounts for the local queries of the sub-learners
+     */
+    @Deprecated
     public JointCounterOracle<I, Boolean> getCeOracle() {
-        return this.ceOracle;
+        return this.ceCounter;
     }
 
     public long getNumberOfGlobalRefinements() {
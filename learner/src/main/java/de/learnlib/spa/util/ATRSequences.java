@@ -0,0 +1,369 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import de.learnlib.spa.TransformationUtil;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.commons.util.Pair;
+import net.automatalib.util.automata.cover.Covers;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.SimpleAlphabet;
+
+/**
+ * The access, terminating and return sequences of the procedures of an {@link SPA}, computed from its procedural
+ * automata. Terminating sequences are determined via the state covers of the procedures, access and return sequences via
+ * the transition covers of the already accessible procedures. If the accepted transition cover words do not reveal
+ * every call, transition cover words are completed to accepted words via a shortest terminating suffix.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public final class ATRSequences<I> {
+
+    private final Map<I, Word<I>> accessSequences;
+    private final Map<I, Word<I>> terminatingSequences;
+    private final Map<I, Word<I>> returnSequences;
+
+    private ATRSequences(Map<I, Word<I>> accessSequences,
+                         Map<I, Word<I>> terminatingSequences,
+                         Map<I, Word<I>> returnSequences) {
+        this.accessSequences = Collections.unmodifiableMap(accessSequences);
+        this.terminatingSequences = Collections.unmodifiableMap(terminatingSequences);
+        this.returnSequences = Collections.unmodifiableMap(returnSequences);
+    }
+
+    /**
+     * Computes the sequences of all procedures of the given system.
+     *
+     * @param spa
+     *         the system
+     * @param <I>
+     *         input symbol type
+     *
+     * @return the sequences of the procedures of the given system
+     *
+     * @throws IllegalStateException
+     *         if a procedure of the system does not terminate or cannot be accessed from the initial procedure
+     */
+    public static <I> ATRSequences<I> compute(SPA<?, I> spa) {
+
+        final SPAAlphabet<I> alphabet = spa.getInputAlphabet();
+        final TransformationUtil<I> transformationUtil = new TransformationUtil<>(alphabet);
+        final Alphabet<I> proceduralAlphabet = new SimpleAlphabet<>();
+        proceduralAlphabet.addAll(spa.getProcedures().keySet());
+        proceduralAlphabet.addAll(alphabet.getInternalAlphabet());
+
+        final Map<I, Word<I>> terminatingSequences = computeTerminatingSequences(alphabet,
+                                                                                 spa.getInitialProcedure(),
+                                                                                 spa.getProcedures(),
+                                                                                 transformationUtil);
+
+        final Map<I, Word<I>> accessSequences = Maps.newHashMapWithExpectedSize(spa.getProcedures().size());
+        final Map<I, Word<I>> returnSequences = Maps.newHashMapWithExpectedSize(spa.getProcedures().size());
+
+        computeAccessAndReturnSequences(alphabet,
+                                        spa.getInitialProcedure(),
+                                        proceduralAlphabet,
+                                        spa.getProcedures(),
+                                        terminatingSequences,
+                                        accessSequences,
+                                        returnSequences,
+                                        transformationUtil);
+
+        return new ATRSequences<>(accessSequences, terminatingSequences, returnSequences);
+    }
+
+    /**
+     * @return the access sequence of the given procedure, or {@code null} if the procedure is not part of the system
+     */
+    @Nullable
+    public Word<I> getAccessSequence(I procedure) {
+        return this.accessSequences.get(procedure);
+    }
+
+    /**
+     * @return the terminating sequence of the given procedure, or {@code null} if the procedure is not part of the
+     * system
+     */
+    @Nullable
+    public Word<I> getTerminatingSequence(I procedure) {
+        return this.terminatingSequences.get(procedure);
+    }
+
+    /**
+     * @return the return sequence of the given procedure, or {@code null} if the procedure is not part of the system
+     */
+    @Nullable
+    public Word<I> getReturnSequence(I procedure) {
+        return this.returnSequences.get(procedure);
+    }
+
+    private static <I> Map<I, Word<I>> computeTerminatingSequences(SPAAlphabet<I> alphabet,
+                                                                   I startProcedure,
+                                                                   Map<I, DFA<?, I>> submodels,
+                                                                   TransformationUtil<I> transformationUtil) {
+
+        final Map<I, Word<I>> terminatingSequences = Maps.newHashMapWithExpectedSize(submodels.size());
+
+        // initial internal sequences
+        for (final Entry<I, DFA<?, I>> entry : submodels.entrySet()) {
+            final I procedure = entry.getKey();
+            final DFA<?, I> dfa = entry.getValue();
+
+            if (dfa.accepts(Word.epsilon())) {
+                terminatingSequences.put(procedure, Word.epsilon());
+
+            } else {
+                final Iterator<Word<I>> iter = Covers.stateCoverIterator(dfa, alphabet.getInternalAlphabet());
+                while (iter.hasNext()) {
+                    final Word<I> trace = iter.next();
+                    if (dfa.accepts(trace)) {
+                        terminatingSequences.put(procedure, trace);
+                        break;
+                    }
+                }
+            }
+
+        }
+
+        final Set<I> remainingProcedures = new HashSet<>(submodels.keySet());
+        remainingProcedures.add(startProcedure);
+        remainingProcedures.removeAll(terminatingSequences.keySet());
+
+        boolean stable = false;
+
+        while (!stable) {
+            stable = true;
+
+            final Set<I> eligibleInputs = new HashSet<>(alphabet.getInternalAlphabet());
+            eligibleInputs.addAll(terminatingSequences.keySet());
+
+            for (final I i : new ArrayList<>(remainingProcedures)) {
+
+                final DFA<?, I> dfa = submodels.get(i);
+                final Iterator<Word<I>> iter = Covers.stateCoverIterator(dfa, eligibleInputs);
+
+                while (iter.hasNext()) {
+                    final Word<I> trace = iter.next();
+                    if (dfa.accepts(trace)) {
+                        terminatingSequences.put(i, transformationUtil.expand(trace, terminatingSequences::get));
+
+                        remainingProcedures.remove(i);
+                        eligibleInputs.add(i);
+                        stable = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (!remainingProcedures.isEmpty()) {
+            throw new IllegalStateException("There are non-terminating procedures: " + remainingProcedures);
+        }
+
+        return terminatingSequences;
+    }
+
+    private static <I> void computeAccessAndReturnSequences(SPAAlphabet<I> alphabet,
+                                                            I startProcedure,
+                                                            Alphabet<I> subModelAlphabet,
+                                                            Map<I, DFA<?, I>> submodels,
+                                                            Map<I, Word<I>> terminatingSequences,
+                                                            Map<I, Word<I>> accessSequences,
+                                                            Map<I, Word<I>> returnSequences,
+                                                            TransformationUtil<I> transformationUtil) {
+
+        final Set<I> finishedProcedures = Sets.newHashSetWithExpectedSize(submodels.size());
+
+        // initial value
+        accessSequences.put(startProcedure, Word.epsilon());
+        returnSequences.put(startProcedure, Word.epsilon());
+        finishedProcedures.add(startProcedure);
+
+        boolean stable = false;
+        boolean complete = false;
+
+        while (!stable) {
+            stable = true;
+
+            for (final I i : new ArrayList<>(finishedProcedures)) {
+                stable &= !computeAccessAndReturnSequencesInternal(alphabet,
+                                                                   subModelAlphabet,
+                                                                   i,
+                                                                   submodels.get(i),
+                                                                   finishedProcedures,
+                                                                   terminatingSequences,
+                                                                   accessSequences,
+                                                                   returnSequences,
+                                                                   transformationUtil,
+                                                                   complete);
+            }
+
+            // accepted transition cover words may not reveal every call. If so, also consider the transitions that can
+            // only be completed to an accepted word
+            if (stable && !complete && !finishedProcedures.containsAll(submodels.keySet())) {
+                complete = true;
+                stable = false;
+            }
+        }
+
+        if (!finishedProcedures.containsAll(submodels.keySet())) {
+            throw new IllegalStateException("There are non-accessible procedures");
+        }
+    }
+
+    private static <S, I> boolean computeAccessAndReturnSequencesInternal(SPAAlphabet<I> alphabet,
+                                                                          Alphabet<I> subModelAlphabet,
+                                                                          I procedure,
+                                                                          DFA<S, I> dfa,
+                                                                          Set<I> finishedProcedures,
+                                                                          Map<I, Word<I>> terminatingSequences,
+                                                                          Map<I, Word<I>> accessSequences,
+                                                                          Map<I, Word<I>> returnSequences,
+                                                                          TransformationUtil<I> transformationUtil,
+                                                                          boolean complete) {
+
+        boolean updated = false;
+
+        final Iterator<Word<I>> transitionCoverIterator = Covers.transitionCoverIterator(dfa, subModelAlphabet);
+
+        final List<I> terminatingInputs = new ArrayList<>(alphabet.getInternalAlphabet());
+        for (final I i : subModelAlphabet) {
+            if (terminatingSequences.containsKey(i)) {
+                terminatingInputs.add(i);
+            }
+        }
+
+        while (transitionCoverIterator.hasNext()) {
+            final Word<I> cover = transitionCoverIterator.next();
+            final Word<I> trace;
+
+            if (dfa.accepts(cover)) {
+                trace = cover;
+            } else if (complete) {
+                final Word<I> suffix = findAcceptingSuffix(dfa, dfa.getState(cover), terminatingInputs);
+                trace = suffix == null ? null : cover.concat(suffix);
+            } else {
+                trace = null;
+            }
+
+            if (trace != null) {
+
+                final WordBuilder<I> potentialAccessBuilder = new WordBuilder<>();
+                final Iterator<I> iter = trace.iterator();
+
+                while (iter.hasNext()) {
+                    final I input = iter.next();
+
+                    if (alphabet.isCallSymbol(input) && !finishedProcedures.contains(input)) {
+
+                        final Word<I> localAccess =
+                                transformationUtil.expand(potentialAccessBuilder.toWord(), terminatingSequences::get);
+                        accessSequences.put(input,
+                                            accessSequences.get(procedure).append(procedure).concat(localAccess));
+
+                        final WordBuilder<I> terminatingBuilder = new WordBuilder<>();
+                        while (iter.hasNext()) {
+                            terminatingBuilder.add(iter.next());
+                        }
+
+                        final Word<I> localTerminating =
+                                transformationUtil.expand(terminatingBuilder.toWord(), terminatingSequences::get);
+                        returnSequences.put(input,
+                                            localTerminating.append(alphabet.getReturnSymbol())
+                                                            .concat(returnSequences.get(procedure)));
+
+                        finishedProcedures.add(input);
+
+                        updated = true;
+                    }
+
+                    potentialAccessBuilder.add(input);
+                }
+
+                if (finishedProcedures.containsAll(alphabet.getCallSymbols())) {
+                    return updated;
+                }
+
+                potentialAccessBuilder.clear();
+            }
+        }
+        return updated;
+    }
+
+    @Nullable
+    private static <S, I> Word<I> findAcceptingSuffix(DFA<S, I> dfa, @Nullable S state, Collection<I> inputs) {
+
+        if (state == null) {
+            return null;
+        }
+
+        final Map<S, Pair<S, I>> predecessors = new HashMap<>();
+        final Deque<S> queue = new ArrayDeque<>();
+
+        predecessors.put(state, null);
+        queue.add(state);
+
+        while (!queue.isEmpty()) {
+            final S s = queue.poll();
+
+            if (dfa.isAccepting(s)) {
+                final WordBuilder<I> builder = new WordBuilder<>();
+                Pair<S, I> pred = predecessors.get(s);
+
+                while (pred != null) {
+                    builder.add(pred.getSecond());
+                    pred = predecessors.get(pred.getFirst());
+                }
+
+                return builder.reverse().toWord();
+            }
+
+            for (final I i : inputs) {
+                final S succ = dfa.getSuccessor(s, i);
+
+                if (succ != null && !predecessors.containsKey(succ)) {
+                    predecessors.put(succ, Pair.make(s, i));
+                    queue.add(succ);
+                }
+            }
+        }
+
+        return null;
+    }
+}
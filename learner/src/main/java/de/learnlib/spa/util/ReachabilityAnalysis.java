@@ -0,0 +1,484 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import de.learnlib.spa.TransformationUtil;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.automata.concepts.StateIDs;
+import net.automatalib.automata.fsa.DFA;
+
+/**
+ * Reachability properties of the procedures of a system of procedural automata:
+ * <ul>
+ * <li>co-reachability: a state is co-reachable if it can reach an accepting state of its procedure (via internal
+ * symbols and calls to any procedure of the system).</li>
+ * <li>termination: a state can terminate if it can reach an accepting state of its procedure via internal symbols and
+ * calls to terminating procedures only. A procedure terminates if its initial state can terminate, i.e. if it accepts
+ * at least one well-matched word.</li>
+ * <li>reachability: a procedure is reachable if it is invoked by a word of the language of the system, i.e. if it
+ * terminates and is called from a reachable procedure in a context that eventually returns.</li>
+ * </ul>
+ * All properties are computed once upon construction. Procedural states are indexed via their {@link DFA#stateIDs()
+ * state IDs}, so that sets of states are represented as {@link BitSet}s and co-reachability and termination of all
+ * procedures are determined by a single reverse breadth-first search each (instead of one search per state).
+ * Transitions labeled with calls to procedures that are not (yet) known to terminate are suspended until the called
+ * procedure terminates.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public final class ReachabilityAnalysis<I> {
+
+    private final TransformationUtil<I> transformationUtil;
+    private final Map<I, Local<?, I>> locals;
+
+    private final Set<I> terminatingProcedures;
+    private final Set<I> reachableProcedures;
+
+    private ReachabilityAnalysis(SPAAlphabet<I> alphabet,
+                                 @Nullable I initialProcedure,
+                                 Map<I, ? extends DFA<?, I>> procedures) {
+        this.transformationUtil = new TransformationUtil<>(alphabet);
+        this.locals = Maps.newHashMapWithExpectedSize(procedures.size());
+
+        final int numSymbols = alphabet.getNumInternals() + alphabet.getNumCalls();
+        final BitSet availableSymbols = getAvailableSymbols(this.transformationUtil, alphabet, procedures.keySet());
+
+        @SuppressWarnings("unchecked")
+        final Local<?, I>[] indexedLocals = (Local<?, I>[]) new Local<?, ?>[numSymbols];
+
+        for (final Map.Entry<I, ? extends DFA<?, I>> e : procedures.entrySet()) {
+            final int index = this.transformationUtil.encode(e.getKey());
+            final Local<?, I> local = new Local<>(e.getValue(),
+                                                   this.transformationUtil,
+                                                   availableSymbols,
+                                                   alphabet.getNumInternals(),
+                                                   numSymbols);
+            this.locals.put(e.getKey(), local);
+            indexedLocals[index] = local;
+        }
+
+        for (final Local<?, I> local : this.locals.values()) {
+            local.computeCoReachability();
+        }
+
+        final BitSet terminating = computeTermination(indexedLocals, alphabet.getNumInternals(), numSymbols);
+        this.terminatingProcedures = decode(terminating);
+
+        final BitSet reachable = new BitSet(numSymbols);
+        if (initialProcedure != null) {
+            final int initialIndex = this.transformationUtil.encode(initialProcedure);
+            if (terminating.get(initialIndex)) {
+                computeReachability(indexedLocals, initialIndex, terminating, reachable);
+            }
+        }
+        this.reachableProcedures = decode(reachable);
+    }
+
+    public static <I> ReachabilityAnalysis<I> analyze(SPA<?, I> spa) {
+        return analyze(spa.getInputAlphabet(), spa.getInitialProcedure(), spa.getProcedures());
+    }
+
+    /**
+     * Analyzes the given procedures.
+     *
+     * @param alphabet
+     *         the alphabet of the system
+     * @param initialProcedure
+     *         the initial procedure of the system. May be {@code null}, in which case no procedure is reachable
+     * @param procedures
+     *         the procedural automata of the system. Calls to procedures without an automaton are treated as
+     *         undefined transitions
+     *
+     * @return the analysis
+     */
+    public static <I> ReachabilityAnalysis<I> analyze(SPAAlphabet<I> alphabet,
+                                                      @Nullable I initialProcedure,
+                                                      Map<I, ? extends DFA<?, I>> procedures) {
+        return new ReachabilityAnalysis<>(alphabet, initialProcedure, procedures);
+    }
+
+    /**
+     * Determines the co-reachable states of a single procedure, i.e. the states that can reach an accepting state via
+     * internal symbols and calls to any of the given procedures. This allows to inspect procedures one after another
+     * without analyzing the complete system.
+     *
+     * @param alphabet
+     *         the alphabet of the system
+     * @param procedures
+     *         the procedures of the system. Calls to other procedures are treated as undefined transitions
+     * @param dfa
+     *         the automaton of the procedure
+     *
+     * @return the co-reachable states, indexed by their {@link DFA#stateIDs() state IDs}
+     */
+    public static <I> BitSet computeCoReachableStates(SPAAlphabet<I> alphabet,
+                                                      Collection<? extends I> procedures,
+                                                      DFA<?, I> dfa) {
+        final TransformationUtil<I> transformationUtil = new TransformationUtil<>(alphabet);
+        final Local<?, I> local = new Local<>(dfa,
+                                              transformationUtil,
+                                              getAvailableSymbols(transformationUtil, alphabet, procedures),
+                                              alphabet.getNumInternals(),
+                                              alphabet.getNumInternals() + alphabet.getNumCalls());
+        local.computeCoReachability();
+        return local.coReachable;
+    }
+
+    private static <I> BitSet getAvailableSymbols(TransformationUtil<I> transformationUtil,
+                                                  SPAAlphabet<I> alphabet,
+                                                  Collection<? extends I> procedures) {
+        final BitSet result = new BitSet(alphabet.getNumInternals() + alphabet.getNumCalls());
+        result.set(0, alphabet.getNumInternals());
+        for (final I procedure : procedures) {
+            result.set(transformationUtil.encode(procedure));
+        }
+        return result;
+    }
+
+    private BitSet computeTermination(Local<?, I>[] indexedLocals, int numInternals, int numSymbols) {
+
+        final BitSet terminating = new BitSet(numSymbols);
+        // for each (not yet terminating) procedure, the states whose transitions for calling it are suspended
+        final long[][] pending = new long[numSymbols][];
+        final int[] pendingSizes = new int[numSymbols];
+        final Deque<Long> queue = new ArrayDeque<>();
+
+        for (int p = 0; p < indexedLocals.length; p++) {
+            final Local<?, I> local = indexedLocals[p];
+            if (local != null) {
+                for (int s = local.accepting.nextSetBit(0); s >= 0; s = local.accepting.nextSetBit(s + 1)) {
+                    markTerminating(indexedLocals, p, s, terminating, pending, pendingSizes, queue);
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final long entry = queue.poll();
+            final int p = (int) (entry >>> 32);
+            final int target = (int) entry;
+            final Local<?, I> local = indexedLocals[p];
+
+            for (int i = local.reverseOffsets[target]; i < local.reverseOffsets[target + 1]; i++) {
+                final int source = local.reverseSources[i];
+                final int symbol = local.reverseSymbols[i];
+
+                if (symbol < numInternals || terminating.get(symbol)) {
+                    markTerminating(indexedLocals, p, source, terminating, pending, pendingSizes, queue);
+                } else {
+                    long[] list = pending[symbol];
+                    if (list == null) {
+                        list = new long[4];
+                    } else if (pendingSizes[symbol] == list.length) {
+                        list = Arrays.copyOf(list, list.length * 2);
+                    }
+                    list[pendingSizes[symbol]++] = encode(p, source);
+                    pending[symbol] = list;
+                }
+            }
+        }
+
+        return terminating;
+    }
+
+    private static void markTerminating(Local<?, ?>[] indexedLocals,
+                                        int procedure,
+                                        int state,
+                                        BitSet terminating,
+                                        long[][] pending,
+                                        int[] pendingSizes,
+                                        Deque<Long> queue) {
+
+        final Local<?, ?> local = indexedLocals[procedure];
+
+        if (local.terminating.get(state)) {
+            return;
+        }
+
+        local.terminating.set(state);
+        queue.add(encode(procedure, state));
+
+        if (state == local.initial && !terminating.get(procedure)) {
+            terminating.set(procedure);
+
+            // resume the suspended call transitions
+            final long[] list = pending[procedure];
+            final int size = pendingSizes[procedure];
+            pending[procedure] = null;
+
+            for (int i = 0; i < size; i++) {
+                final long entry = list[i];
+                markTerminating(indexedLocals,
+                                (int) (entry >>> 32),
+                                (int) entry,
+                                terminating,
+                                pending,
+                                pendingSizes,
+                                queue);
+            }
+        }
+    }
+
+    private void computeReachability(Local<?, I>[] indexedLocals,
+                                     int initialProcedure,
+                                     BitSet terminating,
+                                     BitSet reachable) {
+
+        final Deque<Integer> queue = new ArrayDeque<>();
+        reachable.set(initialProcedure);
+        queue.add(initialProcedure);
+
+        while (!queue.isEmpty()) {
+            final Local<?, I> local = indexedLocals[queue.poll()];
+            final BitSet forward = local.computeForwardReachability(terminating);
+
+            for (int s = forward.nextSetBit(0); s >= 0; s = forward.nextSetBit(s + 1)) {
+                for (int q = terminating.nextSetBit(0); q >= 0; q = terminating.nextSetBit(q + 1)) {
+                    if (!reachable.get(q)) {
+                        final int succ = local.successors[s * local.numSymbols + q];
+                        if (succ >= 0 && local.terminating.get(succ)) {
+                            reachable.set(q);
+                            queue.add(q);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<I> decode(BitSet procedures) {
+        final Set<I> result = Sets.newHashSetWithExpectedSize(procedures.cardinality());
+        for (int p = procedures.nextSetBit(0); p >= 0; p = procedures.nextSetBit(p + 1)) {
+            result.add(this.transformationUtil.decode(p));
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static long encode(int procedure, int state) {
+        return ((long) procedure << 32) | (state & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the procedures that accept at least one well-matched word
+     */
+    public Set<I> getTerminatingProcedures() {
+        return this.terminatingProcedures;
+    }
+
+    public boolean isTerminating(I procedure) {
+        return this.terminatingProcedures.contains(procedure);
+    }
+
+    /**
+     * @return the procedures that are invoked by at least one word of the language of the system
+     */
+    public Set<I> getReachableProcedures() {
+        return this.reachableProcedures;
+    }
+
+    public boolean isReachable(I procedure) {
+        return this.reachableProcedures.contains(procedure);
+    }
+
+    /**
+     * Checks whether the given state can reach an accepting state of its procedure.
+     *
+     * @param procedure
+     *         the procedure
+     * @param state
+     *         a state of the automaton of the given procedure
+     *
+     * @return {@code true} if the state is co-reachable, {@code false} otherwise (or if the procedure is unknown)
+     */
+    public <S> boolean isCoReachable(I procedure, S state) {
+        final Local<S, I> local = getLocal(procedure);
+        return local != null && local.coReachable.get(local.stateIDs.getStateId(state));
+    }
+
+    /**
+     * Checks whether the given state can reach an accepting state of its procedure using only internal symbols and
+     * calls to terminating procedures. States for which this is not the case are dead, as no word of the language of
+     * the system can visit them.
+     *
+     * @param procedure
+     *         the procedure
+     * @param state
+     *         a state of the automaton of the given procedure
+     *
+     * @return {@code true} if the state can terminate, {@code false} otherwise (or if the procedure is unknown)
+     */
+    public <S> boolean canTerminate(I procedure, S state) {
+        final Local<S, I> local = getLocal(procedure);
+        return local != null && local.terminating.get(local.stateIDs.getStateId(state));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S> Local<S, I> getLocal(I procedure) {
+        return (Local<S, I>) this.locals.get(procedure);
+    }
+
+    private static final class Local<S, I> {
+
+        private final StateIDs<S> stateIDs;
+        private final int numInternals;
+        private final int numSymbols;
+        private final int initial;
+        private final BitSet accepting;
+
+        // successors[s * numSymbols + sym] is the successor of s for symbol sym, or -1 if undefined
+        private final int[] successors;
+
+        // the predecessors of state t are reverseSources[reverseOffsets[t]..reverseOffsets[t + 1])
+        private final int[] reverseOffsets;
+        private final int[] reverseSources;
+        private final int[] reverseSymbols;
+
+        private final BitSet coReachable;
+        private final BitSet terminating;
+
+        Local(DFA<S, I> dfa,
+              TransformationUtil<I> transformationUtil,
+              BitSet availableSymbols,
+              int numInternals,
+              int numSymbols) {
+            final int size = dfa.size();
+
+            this.stateIDs = dfa.stateIDs();
+            this.numInternals = numInternals;
+            this.numSymbols = numSymbols;
+            this.accepting = new BitSet(size);
+            this.successors = new int[size * numSymbols];
+            this.reverseOffsets = new int[size + 1];
+            this.coReachable = new BitSet(size);
+            this.terminating = new BitSet(size);
+
+            final S init = dfa.getInitialState();
+            this.initial = init == null ? -1 : this.stateIDs.getStateId(init);
+
+            Arrays.fill(this.successors, -1);
+            int numEdges = 0;
+
+            for (int s = 0; s < size; s++) {
+                final S state = this.stateIDs.getState(s);
+
+                if (dfa.isAccepting(state)) {
+                    this.accepting.set(s);
+                }
+
+                for (int sym = availableSymbols.nextSetBit(0); sym >= 0; sym = availableSymbols.nextSetBit(sym + 1)) {
+                    final S succ = dfa.getSuccessor(state, transformationUtil.decode(sym));
+                    if (succ != null) {
+                        final int succId = this.stateIDs.getStateId(succ);
+                        this.successors[s * numSymbols + sym] = succId;
+                        this.reverseOffsets[succId + 1]++;
+                        numEdges++;
+                    }
+                }
+            }
+
+            for (int s = 0; s < size; s++) {
+                this.reverseOffsets[s + 1] += this.reverseOffsets[s];
+            }
+
+            this.reverseSources = new int[numEdges];
+            this.reverseSymbols = new int[numEdges];
+            final int[] fill = Arrays.copyOf(this.reverseOffsets, size);
+
+            for (int s = 0; s < size; s++) {
+                for (int sym = 0; sym < numSymbols; sym++) {
+                    final int succ = this.successors[s * numSymbols + sym];
+                    if (succ >= 0) {
+                        final int pos = fill[succ]++;
+                        this.reverseSources[pos] = s;
+                        this.reverseSymbols[pos] = sym;
+                    }
+                }
+            }
+        }
+
+        void computeCoReachability() {
+            final int[] queue = new int[this.reverseOffsets.length - 1];
+            int head = 0;
+            int tail = 0;
+
+            for (int s = this.accepting.nextSetBit(0); s >= 0; s = this.accepting.nextSetBit(s + 1)) {
+                this.coReachable.set(s);
+                queue[tail++] = s;
+            }
+
+            while (head < tail) {
+                final int target = queue[head++];
+
+                for (int i = this.reverseOffsets[target]; i < this.reverseOffsets[target + 1]; i++) {
+                    final int source = this.reverseSources[i];
+                    if (!this.coReachable.get(source)) {
+                        this.coReachable.set(source);
+                        queue[tail++] = source;
+                    }
+                }
+            }
+        }
+
+        BitSet computeForwardReachability(BitSet terminatingProcedures) {
+            final int size = this.reverseOffsets.length - 1;
+            final BitSet result = new BitSet(size);
+
+            if (this.initial < 0) {
+                return result;
+            }
+
+            final int[] queue = new int[size];
+            int head = 0;
+            int tail = 0;
+
+            result.set(this.initial);
+            queue[tail++] = this.initial;
+
+            while (head < tail) {
+                final int source = queue[head++];
+
+                for (int sym = 0; sym < this.numSymbols; sym++) {
+                    final int succ = this.successors[source * this.numSymbols + sym];
+                    if (succ >= 0 && !result.get(succ) && (isInternal(sym) || terminatingProcedures.get(sym))) {
+                        result.set(succ);
+                        queue[tail++] = succ;
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        private boolean isInternal(int symbol) {
+            return symbol < this.numInternals;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.api.oracle.EquivalenceOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.spa.TransformationUtil;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.commons.util.Pair;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+
+/**
+ * An equivalence checker for systems of procedural automata. In contrast to returning the first counterexample found,
+ * this engine
+ * <ul>
+ * <li>computes the access, terminating and return sequences of the reference system only once (upon construction),</li>
+ * <li>checks the procedures independently of each other (concurrently, if an {@link Executor} is given) and</li>
+ * <li>returns the shortest (global) separating word among all procedures.</li>
+ * </ul>
+ * For each procedure, the separating word is determined by a shortest-path search on the product of the reference and
+ * the hypothesis procedure, in which calls are weighted with the length of their expansion (i.e. the terminating
+ * sequence of the called procedure plus call and return symbol). Positive counterexamples (accepted by the reference)
+ * are embedded via the sequences of the reference, negative ones via the sequences of the hypothesis, so that the
+ * discrepancy is only caused by the respective procedure.
+ * <p>
+ * This class is thread-safe, if the reference system is.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class SPAEquivalence<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
+
+    private final SPA<?, I> reference;
+    private final SPAAlphabet<I> alphabet;
+    private final TransformationUtil<I> transformationUtil;
+    private final ATRSequences<I> referenceSequences;
+
+    @Nullable
+    private final Executor executor;
+
+    public SPAEquivalence(SPA<?, I> reference) {
+        this(reference, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reference
+     *         the reference system
+     * @param executor
+     *         the executor for checking the procedures concurrently. May be {@code null}, in which case the procedures
+     *         are checked sequentially by the calling thread
+     */
+    public SPAEquivalence(SPA<?, I> reference, @Nullable Executor executor) {
+        this.reference = reference;
+        this.alphabet = reference.getInputAlphabet();
+        this.transformationUtil = new TransformationUtil<>(this.alphabet);
+        this.referenceSequences = ATRSequences.compute(reference);
+        this.executor = executor;
+    }
+
+    /**
+     * Checks whether the given system is equivalent to the reference system.
+     *
+     * @param hypothesis
+     *         the system to check
+     *
+     * @return {@code true} if both systems are equivalent, {@code false} otherwise
+     */
+    public boolean testEquivalence(SPA<?, I> hypothesis) {
+        return findSeparatingWord(hypothesis) == null;
+    }
+
+    @Nullable
+    @Override
+    public DefaultQuery<I, Boolean> findCounterExample(SPA<?, I> hypothesis, Collection<? extends I> inputs) {
+        final Word<I> separatingWord = findSeparatingWord(hypothesis);
+
+        if (separatingWord == null) {
+            return null;
+        }
+
+        return new DefaultQuery<>(separatingWord, this.reference.accepts(separatingWord));
+    }
+
+    /**
+     * Computes the shortest word (with respect to the access, terminating and return sequences of the reference and the
+     * given system) on which the given system and the reference system disagree.
+     *
+     * @param hypothesis
+     *         the system to check
+     *
+     * @return the shortest separating word, or {@code null} if both systems are equivalent
+     */
+    @Nullable
+    public Word<I> findSeparatingWord(SPA<?, I> hypothesis) {
+
+        final Supplier<ATRSequences<I>> hypothesisSequences = new Supplier<ATRSequences<I>>() {
+
+            private ATRSequences<I> sequences;
+
+            @Override
+            public synchronized ATRSequences<I> get() {
+                if (sequences == null) {
+                    sequences = ATRSequences.compute(hypothesis);
+                }
+                return sequences;
+            }
+        };
+
+        final List<I> procedures = new ArrayList<>(this.alphabet.getCallAlphabet());
+        final List<Word<I>> candidates = new ArrayList<>(procedures.size());
+
+        if (this.executor == null) {
+            for (final I procedure : procedures) {
+                candidates.add(findSeparatingWord(hypothesis, procedure, hypothesisSequences));
+            }
+        } else {
+            final List<CompletableFuture<Word<I>>> futures = new ArrayList<>(procedures.size());
+
+            for (final I procedure : procedures) {
+                futures.add(CompletableFuture.supplyAsync(() -> findSeparatingWord(hypothesis,
+                                                                                   procedure,
+                                                                                   hypothesisSequences),
+                                                          this.executor));
+            }
+
+            try {
+                for (final CompletableFuture<Word<I>> f : futures) {
+                    candidates.add(f.join());
+                }
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ce.getCause();
+                }
+                throw ce;
+            }
+        }
+
+        Word<I> result = null;
+
+        for (final Word<I> candidate : candidates) {
+            if (candidate != null && (result == null || candidate.length() < result.length())) {
+                result = candidate;
+            }
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private Word<I> findSeparatingWord(SPA<?, I> hypothesis,
+                                       I procedure,
+                                       Supplier<ATRSequences<I>> hypothesisSequences) {
+
+        final DFA<?, I> referenceProcedure = this.reference.getProcedures().get(procedure);
+        final DFA<?, I> hypothesisProcedure = hypothesis.getProcedures().get(procedure);
+
+        if (referenceProcedure == null && hypothesisProcedure == null) {
+            return null;
+        }
+
+        // positive counterexamples: local words accepted by the reference, expanded with the reference sequences
+        final Word<I> positive = findShortestEmbeddedWord(hypothesis, procedure, true, this.referenceSequences);
+
+        // negative counterexamples: local words accepted by the hypothesis, expanded with the hypothesis sequences. We
+        // only compute the sequences of the hypothesis if the procedures do disagree on such a word
+        final Word<I> negative;
+        if (hypothesisProcedure != null && findShortestLocalWord(hypothesis, procedure, false, null) != null) {
+            negative = findShortestEmbeddedWord(hypothesis, procedure, false, hypothesisSequences.get());
+        } else {
+            negative = null;
+        }
+
+        if (positive == null) {
+            return negative;
+        } else if (negative == null) {
+            return positive;
+        } else {
+            return positive.length() <= negative.length() ? positive : negative;
+        }
+    }
+
+    @Nullable
+    private Word<I> findShortestEmbeddedWord(SPA<?, I> hypothesis,
+                                             I procedure,
+                                             boolean positive,
+                                             ATRSequences<I> sequences) {
+
+        final Word<I> accessSequence = sequences.getAccessSequence(procedure);
+        final Word<I> returnSequence = sequences.getReturnSequence(procedure);
+
+        if (accessSequence == null || returnSequence == null) {
+            return null;
+        }
+
+        final Word<I> localWord =
+                findShortestLocalWord(hypothesis, procedure, positive, sequences);
+
+        if (localWord == null) {
+            return null;
+        }
+
+        final Word<I> expanded = this.transformationUtil.expand(localWord, sequences::getTerminatingSequence);
+        final WordBuilder<I> builder =
+                new WordBuilder<>(accessSequence.length() + expanded.length() + returnSequence.length() + 2);
+
+        builder.append(accessSequence);
+        builder.append(procedure);
+        builder.append(expanded);
+        builder.append(this.alphabet.getReturnSymbol());
+        builder.append(returnSequence);
+
+        return builder.toWord();
+    }
+
+    /**
+     * Dijkstra search on the product of both procedures for the cheapest local word that is accepted by the reference
+     * (positive) or the hypothesis (negative) but not the other one. If sequences are given, only calls to
+     * procedures with a terminating sequence are considered and each call is weighted with the length of its
+     * expansion. Otherwise, all symbols have unit weight.
+     */
+    @Nullable
+    private Word<I> findShortestLocalWord(SPA<?, I> hypothesis,
+                                          I procedure,
+                                          boolean positive,
+                                          @Nullable ATRSequences<I> sequences) {
+
+        final Map<I, DFA<?, I>> referenceProcedures = this.reference.getProcedures();
+        final Map<I, DFA<?, I>> hypothesisProcedures = hypothesis.getProcedures();
+        final DFA<?, I> referenceProcedure = referenceProcedures.get(procedure);
+        final DFA<?, I> hypothesisProcedure = hypothesisProcedures.get(procedure);
+
+        final List<I> symbols = new ArrayList<>(this.alphabet.getNumInternals() + this.alphabet.getNumCalls());
+        final List<Integer> weights = new ArrayList<>(symbols.size());
+
+        for (final I i : this.alphabet.getInternalAlphabet()) {
+            symbols.add(i);
+            weights.add(1);
+        }
+
+        for (final I i : this.alphabet.getCallAlphabet()) {
+            if (sequences == null) {
+                symbols.add(i);
+                weights.add(1);
+            } else {
+                final Word<I> ts = sequences.getTerminatingSequence(i);
+                if (ts != null) {
+                    symbols.add(i);
+                    weights.add(ts.length() + 2);
+                }
+            }
+        }
+
+        final ProductState init = new ProductState(initialState(referenceProcedure),
+                                                   initialState(hypothesisProcedure),
+                                                   null,
+                                                   null,
+                                                   0);
+
+        final Map<Pair<Object, Object>, Integer> distances = new HashMap<>();
+        final PriorityQueue<ProductState> queue = new PriorityQueue<>((s1, s2) -> Integer.compare(s1.cost, s2.cost));
+
+        distances.put(Pair.make(init.referenceState, init.hypothesisState), 0);
+        queue.add(init);
+
+        while (!queue.isEmpty()) {
+            final ProductState current = queue.poll();
+
+            if (current.cost > distances.get(Pair.make(current.referenceState, current.hypothesisState))) {
+                continue;
+            }
+
+            final boolean referenceAccepts = isAccepting(referenceProcedure, current.referenceState);
+            final boolean hypothesisAccepts = isAccepting(hypothesisProcedure, current.hypothesisState);
+
+            if (referenceAccepts != hypothesisAccepts && referenceAccepts == positive) {
+                return current.toWord();
+            }
+
+            // both procedures are in their (implicit) sink
+            if (current.referenceState == null && current.hypothesisState == null) {
+                continue;
+            }
+
+            for (int idx = 0; idx < symbols.size(); idx++) {
+                final I i = symbols.get(idx);
+                // procedures are only defined for calls to procedures of their system
+                final boolean internal = this.alphabet.isInternalSymbol(i);
+                final Object referenceSucc = internal || referenceProcedures.containsKey(i) ?
+                        getSuccessor(referenceProcedure, current.referenceState, i) : null;
+                final Object hypothesisSucc = internal || hypothesisProcedures.containsKey(i) ?
+                        getSuccessor(hypothesisProcedure, current.hypothesisState, i) : null;
+                final Pair<Object, Object> key = Pair.make(referenceSucc, hypothesisSucc);
+                final int cost = current.cost + weights.get(idx);
+                final Integer known = distances.get(key);
+
+                if (known == null || cost < known) {
+                    distances.put(key, cost);
+                    queue.add(new ProductState(referenceSucc, hypothesisSucc, current, i, cost));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static <S, I> Object initialState(@Nullable DFA<S, I> dfa) {
+        return dfa == null ? null : dfa.getInitialState();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S, I> boolean isAccepting(@Nullable DFA<S, I> dfa, @Nullable Object state) {
+        return state != null && dfa.isAccepting((S) state);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static <S, I> Object getSuccessor(@Nullable DFA<S, I> dfa, @Nullable Object state, I input) {
+        return state == null ? null : dfa.getSuccessor((S) state, input);
+    }
+
+    private final class ProductState {
+
+        private final Object referenceState;
+        private final Object hypothesisState;
+        private final ProductState predecessor;
+        private final I symbol;
+        private final int cost;
+
+        ProductState(Object referenceState, Object hypothesisState, ProductState predecessor, I symbol, int cost) {
+            this.referenceState = referenceState;
+            this.hypothesisState = hypothesisState;
+            this.predecessor = predecessor;
+            this.symbol = symbol;
+            this.cost = cost;
+        }
+
+        Word<I> toWord() {
+            final List<I> symbols = new ArrayList<>();
+
+            for (ProductState s = this; s.predecessor != null; s = s.predecessor) {
+                symbols.add(s.symbol);
+            }
+
+            final WordBuilder<I> builder = new WordBuilder<>(symbols.size());
+            for (int i = symbols.size() - 1; i >= 0; i--) {
+                builder.append(symbols.get(i));
+            }
+
+            return builder.toWord();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+import net.automatalib.words.impl.SimpleAlphabet;
+
+/**
+ * Generator for random, but well-formed systems of procedural automata of controllable shape. In contrast to purely
+ * random procedures, the generated systems guarantee that
+ * <ul>
+ * <li>every procedure can terminate (via a sequence of internal symbols),</li>
+ * <li>every procedure is reachable from the initial procedure, and</li>
+ * <li>every edge of the call graph is used on a path that directly leads to an accepting state of the calling
+ * procedure,</li>
+ * </ul>
+ * so that every procedure of the system is relevant for learning. Calls to procedures that are not part of the call
+ * graph lead to a (rejecting) sink state.
+ *
+ * @author frohme
+ */
+public final class SPAGenerator {
+
+    private static final double ACCEPTANCE_PROBABILITY = 0.3;
+    private static final int MAX_TERMINATION_LENGTH = 3;
+
+    private SPAGenerator() {}
+
+    /**
+     * The shape of the call graph of a generated system.
+     */
+    public enum CallGraphShape {
+        /**
+         * Each procedure calls (only) its successor procedure. The nesting depth equals the number of procedures.
+         */
+        CHAIN,
+        /**
+         * The procedures are distributed among a given number of layers and each procedure may only call procedures of
+         * deeper layers.
+         */
+        DAG,
+        /**
+         * Like {@link #DAG}, but procedures may additionally call procedures of their own or of higher layers, which
+         * introduces (mutual) recursion.
+         */
+        RECURSIVE
+    }
+
+    /**
+     * Creates an SPA alphabet with integer symbols. Internal symbols are {@code 0, ..., numInternals - 1}, call symbols
+     * are {@code numInternals, ..., numInternals + numProcedures - 1} and the return symbol is {@code numInternals +
+     * numProcedures}.
+     *
+     * @param numInternals
+     *         the number of internal symbols
+     * @param numProcedures
+     *         the number of procedures
+     *
+     * @return the alphabet
+     */
+    public static SPAAlphabet<Integer> createAlphabet(int numInternals, int numProcedures) {
+        return new DefaultSPAAlphabet<>(Alphabets.integers(0, numInternals - 1),
+                                        Alphabets.integers(numInternals, numInternals + numProcedures - 1),
+                                        numInternals + numProcedures);
+    }
+
+    /**
+     * Generates a random SPA. The first call symbol of the alphabet denotes the initial procedure.
+     *
+     * @param random
+     *         the source of randomness
+     * @param alphabet
+     *         the alphabet of the system. Determines the number of procedures
+     * @param shape
+     *         the shape of the call graph
+     * @param depth
+     *         the number of layers of the call graph (i.e. the maximum nesting depth of non-recursive calls). Ignored
+     *         for {@link CallGraphShape#CHAIN}
+     * @param maxCallees
+     *         the maximum number of (distinct) procedures each procedure may call. Ignored for {@link
+     *         CallGraphShape#CHAIN}
+     * @param procedureSize
+     *         the number of states of each procedure, including the sink state. Must be at least 3
+     * @param <I>
+     *         input symbol type
+     *
+     * @return the generated SPA
+     */
+    public static <I> SPA<?, I> generate(Random random,
+                                         SPAAlphabet<I> alphabet,
+                                         CallGraphShape shape,
+                                         int depth,
+                                         int maxCallees,
+                                         int procedureSize) {
+
+        if (procedureSize < 3) {
+            throw new IllegalArgumentException("Procedures need at least 3 states");
+        }
+        if (alphabet.getNumInternals() < 1) {
+            throw new IllegalArgumentException("Procedures need at least one internal symbol");
+        }
+
+        final List<I> procedures = new ArrayList<>(alphabet.getCallAlphabet());
+        final Map<I, Set<I>> callGraph = generateCallGraph(random, procedures, shape, depth, maxCallees);
+
+        final Alphabet<I> proceduralAlphabet = new SimpleAlphabet<>();
+        proceduralAlphabet.addAll(alphabet.getInternalAlphabet());
+        proceduralAlphabet.addAll(alphabet.getCallAlphabet());
+
+        final Map<I, DFA<Integer, I>> dfas = Maps.newHashMapWithExpectedSize(procedures.size());
+
+        for (final I procedure : procedures) {
+            dfas.put(procedure,
+                     generateProcedure(random,
+                                       alphabet,
+                                       proceduralAlphabet,
+                                       new ArrayList<>(callGraph.get(procedure)),
+                                       procedureSize));
+        }
+
+        return new DefaultSPA<>(alphabet, procedures.get(0), dfas);
+    }
+
+    private static <I> Map<I, Set<I>> generateCallGraph(Random random,
+                                                        List<I> procedures,
+                                                        CallGraphShape shape,
+                                                        int depth,
+                                                        int maxCallees) {
+
+        final int n = procedures.size();
+        final Map<I, Set<I>> result = Maps.newHashMapWithExpectedSize(n);
+
+        for (final I p : procedures) {
+            result.put(p, new LinkedHashSet<>());
+        }
+
+        if (shape == CallGraphShape.CHAIN) {
+            for (int i = 0; i < n - 1; i++) {
+                result.get(procedures.get(i)).add(procedures.get(i + 1));
+            }
+            return result;
+        }
+
+        // the initial procedure needs to call at least one other layer
+        final int numLayers = n == 1 ? 1 : Math.max(2, Math.min(depth, n));
+
+        // layer 0 only contains the initial procedure, every other layer contains at least one procedure
+        final List<List<I>> layers = new ArrayList<>(numLayers);
+        for (int l = 0; l < numLayers; l++) {
+            layers.add(new ArrayList<>());
+        }
+        layers.get(0).add(procedures.get(0));
+        for (int i = 1; i < n; i++) {
+            final int layer = i < numLayers ? i : 1 + random.nextInt(numLayers - 1);
+            layers.get(layer).add(procedures.get(i));
+        }
+
+        // guarantee reachability: every procedure is called by some procedure of the previous layer
+        for (int l = 1; l < numLayers; l++) {
+            final List<I> callers = layers.get(l - 1);
+            for (final I callee : layers.get(l)) {
+                result.get(callers.get(random.nextInt(callers.size()))).add(callee);
+            }
+        }
+
+        // additional edges
+        for (int l = 0; l < numLayers; l++) {
+            final List<I> candidates = new ArrayList<>();
+
+            if (shape == CallGraphShape.RECURSIVE) {
+                for (int k = 0; k <= l; k++) {
+                    candidates.addAll(layers.get(k));
+                }
+            }
+            for (int k = l + 1; k < numLayers; k++) {
+                candidates.addAll(layers.get(k));
+            }
+
+            if (candidates.isEmpty()) {
+                continue;
+            }
+
+            for (final I caller : layers.get(l)) {
+                final Set<I> callees = result.get(caller);
+                final int additional = random.nextInt(Math.max(1, maxCallees - callees.size() + 1));
+
+                for (int i = 0; i < additional && callees.size() < maxCallees; i++) {
+                    callees.add(candidates.get(random.nextInt(candidates.size())));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static <I> CompactDFA<I> generateProcedure(Random random,
+                                                       SPAAlphabet<I> alphabet,
+                                                       Alphabet<I> proceduralAlphabet,
+                                                       List<I> callees,
+                                                       int size) {
+
+        final CompactDFA<I> dfa = new CompactDFA<>(proceduralAlphabet, size);
+        final int sink = size - 1;
+        final int numRegular = size - 1;
+
+        dfa.addInitialState(false);
+        for (int i = 1; i < size; i++) {
+            dfa.addState(false);
+        }
+
+        // calls to procedures outside the call graph and the sink's own transitions lead to the sink
+        for (final I call : alphabet.getCallAlphabet()) {
+            if (!callees.contains(call)) {
+                for (int s = 0; s < numRegular; s++) {
+                    dfa.setTransition(s, call, sink);
+                }
+            }
+        }
+        for (final I i : proceduralAlphabet) {
+            dfa.setTransition(sink, i, sink);
+        }
+
+        final List<I> localAlphabet = new ArrayList<>(alphabet.getInternalAlphabet());
+        localAlphabet.addAll(callees);
+
+        // a terminating chain of internal symbols
+        final int chainLength = 1 + random.nextInt(Math.min(MAX_TERMINATION_LENGTH, numRegular - 1));
+        for (int s = 0; s < chainLength; s++) {
+            final I internal = alphabet.getInternalSymbol(random.nextInt(alphabet.getNumInternals()));
+            dfa.setTransition(s, internal, s + 1);
+        }
+        dfa.setAccepting(chainLength, true);
+
+        // make every call of the call graph productive by leading to the accepting state of the terminating chain
+        for (final I callee : callees) {
+            final List<Integer> candidates = new ArrayList<>(chainLength + 1);
+            for (int s = 0; s <= chainLength; s++) {
+                if (dfa.getTransition(s, callee) == null) {
+                    candidates.add(s);
+                }
+            }
+            final int src = candidates.get(random.nextInt(candidates.size()));
+            dfa.setTransition(src, callee, chainLength);
+        }
+
+        // connect the remaining states via a random spanning tree
+        for (int s = chainLength + 1; s < numRegular; s++) {
+            while (true) {
+                final int parent = random.nextInt(s);
+                final I sym = localAlphabet.get(random.nextInt(localAlphabet.size()));
+
+                if (dfa.getTransition(parent, sym) == null) {
+                    dfa.setTransition(parent, sym, s);
+                    break;
+                }
+            }
+            dfa.setAccepting(s, random.nextDouble() < ACCEPTANCE_PROBABILITY);
+        }
+
+        // complete the remaining transitions randomly
+        for (int s = 0; s < numRegular; s++) {
+            for (final I sym : localAlphabet) {
+                if (dfa.getTransition(s, sym) == null) {
+                    dfa.setTransition(s, sym, random.nextInt(size));
+                }
+            }
+        }
+
+        return dfa;
+    }
+}
@@ -0,0 +1,128 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.EmptySPA;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.SimpleAlphabet;
+
+/**
+ * Minimization of systems of procedural automata. Based on a {@link ReachabilityAnalysis}, the minimizer
+ * <ul>
+ * <li>removes all procedures that are not reachable (or do not terminate),</li>
+ * <li>removes all dead states (i.e. states that cannot terminate) and states that are only reachable via such states or
+ * via calls to non-terminating procedures,</li>
+ * <li>and finally minimizes each remaining procedure.</li>
+ * </ul>
+ * The resulting procedures are partial: all removed transitions are undefined, which the {@link DefaultSPA} semantics
+ * treats as rejection. Hence, the minimized system accepts the same language as the original one.
+ *
+ * @author frohme
+ */
+public final class SPAMinimizer {
+
+    private SPAMinimizer() {
+        // prevent instantiation
+    }
+
+    public static <I> SPA<?, I> minimize(SPA<?, I> spa) {
+        return minimize(spa.getInputAlphabet(), spa.getInitialProcedure(), spa.getProcedures());
+    }
+
+    public static <I> SPA<?, I> minimize(SPAAlphabet<I> alphabet,
+                                         @Nullable I initialProcedure,
+                                         Map<I, ? extends DFA<?, I>> procedures) {
+
+        final ReachabilityAnalysis<I> analysis = ReachabilityAnalysis.analyze(alphabet, initialProcedure, procedures);
+
+        if (initialProcedure == null || !analysis.isReachable(initialProcedure)) {
+            return new EmptySPA<>(alphabet);
+        }
+
+        // the automata need to be defined over all procedural symbols, since the SPA semantics queries them with
+        // arbitrary call symbols. Transitions for calls to removed procedures simply remain undefined
+        final Alphabet<I> proceduralAlphabet = new SimpleAlphabet<>(alphabet.getInternalAlphabet());
+        proceduralAlphabet.addAll(alphabet.getCallAlphabet());
+
+        final Map<I, CompactDFA<I>> minimized =
+                Maps.newHashMapWithExpectedSize(analysis.getReachableProcedures().size());
+
+        for (final I procedure : analysis.getReachableProcedures()) {
+            final CompactDFA<I> pruned =
+                    prune(analysis, alphabet, proceduralAlphabet, procedure, procedures.get(procedure));
+            minimized.put(procedure,
+                          Automata.minimize(pruned, proceduralAlphabet, new CompactDFA<>(proceduralAlphabet)));
+        }
+
+        return new DefaultSPA<>(alphabet, initialProcedure, minimized);
+    }
+
+    /**
+     * Copies all states of the given procedure that can terminate and are reachable via transitions between such
+     * states (labeled with internal symbols or calls to reachable procedures).
+     */
+    private static <S, I> CompactDFA<I> prune(ReachabilityAnalysis<I> analysis,
+                                              SPAAlphabet<I> alphabet,
+                                              Alphabet<I> proceduralAlphabet,
+                                              I procedure,
+                                              DFA<S, I> dfa) {
+
+        final CompactDFA<I> result = new CompactDFA<>(proceduralAlphabet);
+        final Map<S, Integer> mapping = Maps.newHashMapWithExpectedSize(dfa.size());
+        final Deque<S> queue = new ArrayDeque<>();
+
+        final S init = dfa.getInitialState();
+        mapping.put(init, result.addInitialState(dfa.isAccepting(init)));
+        queue.add(init);
+
+        while (!queue.isEmpty()) {
+            final S state = queue.poll();
+            final int source = mapping.get(state);
+
+            for (final I i : proceduralAlphabet) {
+                final S succ = dfa.getSuccessor(state, i);
+
+                if (succ == null || !analysis.canTerminate(procedure, succ) ||
+                    (alphabet.isCallSymbol(i) && !analysis.isReachable(i))) {
+                    continue;
+                }
+
+                Integer target = mapping.get(succ);
+                if (target == null) {
+                    target = result.addState(dfa.isAccepting(succ));
+                    mapping.put(succ, target);
+                    queue.add(succ);
+                }
+
+                result.setTransition(source, i, target);
+            }
+        }
+
+        return result;
+    }
+}
@@ -19,17 +19,12 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
-import com.google.common.collect.Maps;
 import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.ReachabilityAnalysis;
 import net.automatalib.automata.fsa.DFA;
-import net.automatalib.automata.graphs.TransitionEdge;
 import net.automatalib.commons.util.Pair;
 import net.automatalib.graphs.Graph;
-import net.automatalib.util.graphs.Path;
-import net.automatalib.util.graphs.ShortestPaths;
 import net.automatalib.visualization.VisualizationHelper;
 
 /**
@@ -48,7 +43,7 @@ public class ReachabilityView<S, I> implements Graph<Pair<I, S>, Pair<Pair<I, S>
     private final Map<I, ? extends DFA<S, I>> subModels;
 
     private final List<I> proceduralAlphabet;
-    private final Map<I, Map<S, Boolean>> displayableNodesMap;
+    private final ReachabilityAnalysis<I> analysis;
 
     public ReachabilityView(final SPAAlphabet<I> alphabet, final Map<I, ? extends DFA<S, I>> subModels) {
         this.alphabet = alphabet;
@@ -58,38 +53,7 @@ public class ReachabilityView<S, I> implements Graph<Pair<I, S>, Pair<Pair<I, S>
         this.proceduralAlphabet.addAll(alphabet.getInternalAlphabet());
         this.proceduralAlphabet.addAll(subModels.keySet());
 
-        this.displayableNodesMap = Maps.newHashMapWithExpectedSize(alphabet.getNumCalls());
-        this.computeNodesToDisplay();
-    }
-
-    private void computeNodesToDisplay() {
-
-        for (final Map.Entry<I, ? extends DFA<S, I>> e : subModels.entrySet()) {
-            final I symbol = e.getKey();
-            final DFA<S, I> subModel = e.getValue();
-
-            final Graph<S, TransitionEdge<I, S>> subModelAsGraph =
-                    subModel.transitionGraphView(this.proceduralAlphabet);
-            final Set<S> acceptingStates =
-                    subModel.getStates().stream().filter(subModel::isAccepting).collect(Collectors.toSet());
-
-            final Map<S, Boolean> displayMap = Maps.newHashMapWithExpectedSize(this.proceduralAlphabet.size());
-
-            for (final S s : subModel.getStates()) {
-                if (subModel.isAccepting(s)) {
-                    displayMap.put(s, true);
-                } else {
-                    // can reach an accepting state?
-                    final Iterable<Path<S, TransitionEdge<I, S>>> shortestPaths =
-                            ShortestPaths.shortestPaths(subModelAsGraph, s, subModel.size(), acceptingStates);
-                    if (shortestPaths.iterator().hasNext()) {
-                        displayMap.put(s, true);
-                    }
-                }
-            }
-
-            this.displayableNodesMap.put(symbol, displayMap);
-        }
+        this.analysis = ReachabilityAnalysis.analyze(alphabet, null, subModels);
     }
 
     @Override
@@ -100,12 +64,9 @@ public class ReachabilityView<S, I> implements Graph<Pair<I, S>, Pair<Pair<I, S>
             final I procedure = e.getKey();
             final DFA<S, I> subModel = e.getValue();
 
-            final Map<S, Boolean> localDisplayMap = this.displayableNodesMap.get(procedure);
-
             subModel.getStates()
                     .stream()
-                    .filter(localDisplayMap::containsKey)
-                    .filter(localDisplayMap::get)
+                    .filter(s -> this.analysis.isCoReachable(procedure, s))
                     .forEach(s -> result.add(new Pair<>(procedure, s)));
         }
 
@@ -119,14 +80,12 @@ public class ReachabilityView<S, I> implements Graph<Pair<I, S>, Pair<Pair<I, S>
         final S state = node.getSecond();
 
         final DFA<S, I> subModel = this.subModels.get(procedure);
-        final Map<S, Boolean> localDisplayMap = this.displayableNodesMap.get(procedure);
-
         final List<Pair<Pair<I, S>, I>> result = new LinkedList<>();
 
         for (final I i : this.proceduralAlphabet) {
-            final Boolean isDisplayed = localDisplayMap.get(subModel.getSuccessor(state, i));
+            final S succ = subModel.getSuccessor(state, i);
 
-            if (isDisplayed != null && isDisplayed) {
+            if (succ != null && this.analysis.isCoReachable(procedure, succ)) {
                 result.add(new Pair<>(node, i));
             }
         }
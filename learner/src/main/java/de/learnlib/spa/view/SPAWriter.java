@@ -0,0 +1,258 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.view;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.ReachabilityAnalysis;
+import net.automatalib.automata.concepts.StateIDs;
+import net.automatalib.automata.fsa.DFA;
+
+/**
+ * Streaming serialization of systems of procedural automata in the DOT and GraphML format. In contrast to rendering a
+ * {@link ReachabilityView}, the procedures are written one after another directly to the given {@link Appendable},
+ * without materializing collections of nodes and edges. This allows to export large hypotheses (e.g. for offline
+ * inspection), as the additional memory only depends on the size of the procedure that is currently written.
+ * <p>
+ * Like the {@link ReachabilityView}, only states that can reach an accepting state of their procedure (and the
+ * transitions between them) are written. The co-reachable states of a procedure are determined (via
+ * {@link ReachabilityAnalysis#computeCoReachableStates(SPAAlphabet, java.util.Collection, DFA)}) just before the
+ * procedure is written. Nodes are identified by the index of their procedure in the call alphabet
+ * and their {@link DFA#stateIDs() state ID}.
+ *
+ * @author frohme
+ */
+public final class SPAWriter {
+
+    private SPAWriter() {
+        // prevent instantiation
+    }
+
+    public static <I> void writeDOT(SPA<?, I> spa, Appendable a) throws IOException {
+        writeDOT(spa.getInputAlphabet(), spa.getProcedures(), a);
+    }
+
+    public static <I> void writeDOT(SPAAlphabet<I> alphabet, Map<I, ? extends DFA<?, I>> procedures, Appendable a)
+            throws IOException {
+
+        final List<I> proceduralAlphabet = getProceduralAlphabet(alphabet, procedures);
+
+        a.append("digraph g {\n");
+        a.append("rankdir=LR;\n");
+
+        for (int i = 0; i < alphabet.getNumCalls(); i++) {
+            final I procedure = alphabet.getCallSymbol(i);
+            final DFA<?, I> dfa = procedures.get(procedure);
+
+            if (dfa != null) {
+                final BitSet coReachable =
+                        ReachabilityAnalysis.computeCoReachableStates(alphabet, procedures.keySet(), dfa);
+
+                a.append("subgraph cluster_").append(Integer.toString(i)).append(" {\n");
+                a.append("label=\"").append(escapeDOT(String.valueOf(procedure))).append("\";\n");
+                writeDOTProcedure(alphabet, proceduralAlphabet, procedure, i, dfa, coReachable, a);
+                a.append("}\n");
+            }
+        }
+
+        a.append("}\n");
+    }
+
+    private static <S, I> void writeDOTProcedure(SPAAlphabet<I> alphabet,
+                                                 List<I> proceduralAlphabet,
+                                                 I procedure,
+                                                 int procedureIdx,
+                                                 DFA<S, I> dfa,
+                                                 BitSet coReachable,
+                                                 Appendable a) throws IOException {
+
+        final StateIDs<S> stateIDs = dfa.stateIDs();
+        final S init = dfa.getInitialState();
+
+        for (final S s : dfa) {
+            if (!coReachable.get(stateIDs.getStateId(s))) {
+                continue;
+            }
+
+            final int id = stateIDs.getStateId(s);
+
+            appendNodeId(a, procedureIdx, id);
+            a.append(" [shape=\"").append(dfa.isAccepting(s) ? "doublecircle" : "circle");
+            a.append("\" label=\"").append(escapeDOT(procedure + " " + s)).append("\"];\n");
+
+            if (s.equals(init)) {
+                a.append("__start").append(Integer.toString(procedureIdx)).append(" [label=\"\" shape=\"none\"];\n");
+                a.append("__start").append(Integer.toString(procedureIdx)).append(" -> ");
+                appendNodeId(a, procedureIdx, id);
+                a.append(";\n");
+            }
+
+            for (final I i : proceduralAlphabet) {
+                final S succ = dfa.getSuccessor(s, i);
+
+                if (succ != null && coReachable.get(stateIDs.getStateId(succ))) {
+                    appendNodeId(a, procedureIdx, id);
+                    a.append(" -> ");
+                    appendNodeId(a, procedureIdx, stateIDs.getStateId(succ));
+                    a.append(" [label=\"").append(escapeDOT(String.valueOf(i))).append('"');
+                    if (alphabet.isCallSymbol(i)) {
+                        a.append(" style=\"dashed\"");
+                    }
+                    a.append("];\n");
+                }
+            }
+        }
+    }
+
+    public static <I> void writeGraphML(SPA<?, I> spa, Appendable a) throws IOException {
+        writeGraphML(spa.getInputAlphabet(), spa.getProcedures(), a);
+    }
+
+    public static <I> void writeGraphML(SPAAlphabet<I> alphabet, Map<I, ? extends DFA<?, I>> procedures, Appendable a)
+            throws IOException {
+
+        final List<I> proceduralAlphabet = getProceduralAlphabet(alphabet, procedures);
+
+        a.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        a.append("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        a.append("  <key id=\"procedure\" for=\"node\" attr.name=\"procedure\" attr.type=\"string\"/>\n");
+        a.append("  <key id=\"state\" for=\"node\" attr.name=\"state\" attr.type=\"string\"/>\n");
+        a.append("  <key id=\"initial\" for=\"node\" attr.name=\"initial\" attr.type=\"boolean\"/>\n");
+        a.append("  <key id=\"accepting\" for=\"node\" attr.name=\"accepting\" attr.type=\"boolean\"/>\n");
+        a.append("  <key id=\"input\" for=\"edge\" attr.name=\"input\" attr.type=\"string\"/>\n");
+        a.append("  <key id=\"call\" for=\"edge\" attr.name=\"call\" attr.type=\"boolean\"/>\n");
+        a.append("  <graph id=\"spa\" edgedefault=\"directed\">\n");
+
+        for (int i = 0; i < alphabet.getNumCalls(); i++) {
+            final I procedure = alphabet.getCallSymbol(i);
+            final DFA<?, I> dfa = procedures.get(procedure);
+
+            if (dfa != null) {
+                final BitSet coReachable =
+                        ReachabilityAnalysis.computeCoReachableStates(alphabet, procedures.keySet(), dfa);
+                writeGraphMLProcedure(alphabet, proceduralAlphabet, procedure, i, dfa, coReachable, a);
+            }
+        }
+
+        a.append("  </graph>\n");
+        a.append("</graphml>\n");
+    }
+
+    private static <S, I> void writeGraphMLProcedure(SPAAlphabet<I> alphabet,
+                                                     List<I> proceduralAlphabet,
+                                                     I procedure,
+                                                     int procedureIdx,
+                                                     DFA<S, I> dfa,
+                                                     BitSet coReachable,
+                                                     Appendable a) throws IOException {
+
+        final StateIDs<S> stateIDs = dfa.stateIDs();
+        final S init = dfa.getInitialState();
+        final String escapedProcedure = escapeXML(String.valueOf(procedure));
+
+        for (final S s : dfa) {
+            if (!coReachable.get(stateIDs.getStateId(s))) {
+                continue;
+            }
+
+            a.append("    <node id=\"");
+            appendNodeId(a, procedureIdx, stateIDs.getStateId(s));
+            a.append("\">\n");
+            a.append("      <data key=\"procedure\">").append(escapedProcedure).append("</data>\n");
+            a.append("      <data key=\"state\">").append(escapeXML(String.valueOf(s))).append("</data>\n");
+            a.append("      <data key=\"initial\">").append(Boolean.toString(s.equals(init))).append("</data>\n");
+            a.append("      <data key=\"accepting\">").append(Boolean.toString(dfa.isAccepting(s))).append("</data>\n");
+            a.append("    </node>\n");
+        }
+
+        for (final S s : dfa) {
+            if (!coReachable.get(stateIDs.getStateId(s))) {
+                continue;
+            }
+
+            final int id = stateIDs.getStateId(s);
+
+            for (final I i : proceduralAlphabet) {
+                final S succ = dfa.getSuccessor(s, i);
+
+                if (succ != null && coReachable.get(stateIDs.getStateId(succ))) {
+                    a.append("    <edge source=\"");
+                    appendNodeId(a, procedureIdx, id);
+                    a.append("\" target=\"");
+                    appendNodeId(a, procedureIdx, stateIDs.getStateId(succ));
+                    a.append("\">\n");
+                    a.append("      <data key=\"input\">").append(escapeXML(String.valueOf(i))).append("</data>\n");
+                    a.append("      <data key=\"call\">")
+                     .append(Boolean.toString(alphabet.isCallSymbol(i)))
+                     .append("</data>\n");
+                    a.append("    </edge>\n");
+                }
+            }
+        }
+    }
+
+    private static <I> List<I> getProceduralAlphabet(SPAAlphabet<I> alphabet, Map<I, ?> procedures) {
+        final List<I> result = new ArrayList<>(alphabet.getNumInternals() + procedures.size());
+        result.addAll(alphabet.getInternalAlphabet());
+
+        for (final I call : alphabet.getCallAlphabet()) {
+            if (procedures.containsKey(call)) {
+                result.add(call);
+            }
+        }
+
+        return result;
+    }
+
+    private static void appendNodeId(Appendable a, int procedureIdx, int stateId) throws IOException {
+        a.append('p').append(Integer.toString(procedureIdx)).append("_s").append(Integer.toString(stateId));
+    }
+
+    private static String escapeDOT(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeXML(String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+}
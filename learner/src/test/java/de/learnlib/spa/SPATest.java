@@ -21,9 +21,7 @@ import java.util.function.Function;
 import de.learnlib.api.AccessSequenceTransformer;
 import de.learnlib.api.algorithm.LearningAlgorithm;
 import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
-import de.learnlib.api.oracle.EquivalenceOracle;
 import de.learnlib.api.oracle.MembershipOracle;
-import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.oracle.membership.SimulatorOracle;
 import de.learnlib.spa.api.ATRProvider;
 import de.learnlib.spa.api.SPA;
@@ -38,7 +36,6 @@ import de.learnlib.spa.impl.DefaultSPAAlphabet;
 import de.learnlib.spa.impl.OptimizingATRProvider;
 import de.learnlib.spa.learner.SPALearner;
 import de.learnlib.spa.util.Generator;
-import de.learnlib.spa.util.SPAEQ;
 import de.learnlib.spa.util.Util;
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.impl.Alphabets;
@@ -102,25 +99,12 @@ public class SPATest {
 
         final SPAAlphabet<I> alphabet = system.getInputAlphabet();
         final MembershipOracle<I, Boolean> mqOracle = new SimulatorOracle<>(system);
-        final EquivalenceOracle<SPA<?, I>, I, Boolean> eqOracle = new SPAEQ<>(system);
 
         final SPALearner<I, L> learner =
                 new SPALearner<>(alphabet, mqOracle, learnerProvider, atrProvider.apply(alphabet));
         learner.startLearning();
 
-        SPA<?, I> hyp = learner.getHypothesisModel();
-        DefaultQuery<I, Boolean> ce;
-
-        while ((ce = eqOracle.findCounterExample(hyp, alphabet)) != null) {
-            boolean refined = false;
-            while (learner.refineHypothesis(ce)) {
-                refined = true;
-            }
-            Assert.assertTrue(refined);
-            hyp = learner.getHypothesisModel();
-        }
-
-        return hyp;
+        return Util.learn(system, learner);
     }
 
     private static class DefaultSetup<I> implements Function<SPAAlphabet<I>, ATRProvider<I>> {
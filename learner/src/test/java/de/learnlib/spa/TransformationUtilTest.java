@@ -0,0 +1,179 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TransformationUtilTest {
+
+    private SPAAlphabet<Integer> alphabet;
+    private TransformationUtil<Integer> transformationUtil;
+
+    @BeforeClass
+    public void setUp() {
+        alphabet = new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 9), 16);
+        transformationUtil = new TransformationUtil<>(alphabet);
+    }
+
+    @DataProvider(name = "words")
+    public Object[][] dataProvider() {
+        final Random random = new Random(42);
+        final Object[][] result = new Object[50][];
+
+        for (int i = 0; i < result.length; i++) {
+            final WordBuilder<Integer> builder = new WordBuilder<>();
+            builder.append(alphabet.getCallSymbol(random.nextInt(alphabet.getNumCalls())));
+            appendWellMatched(random, builder, 0);
+            builder.append(alphabet.getReturnSymbol());
+            result[i] = new Object[] {builder.toWord()};
+        }
+
+        return result;
+    }
+
+    @Test
+    public void testSymbolEncoding() {
+        for (final Integer i : alphabet) {
+            final int sym = transformationUtil.encode(i);
+
+            Assert.assertEquals(transformationUtil.decode(sym), i);
+            Assert.assertEquals(transformationUtil.isInternalSymbol(sym), alphabet.isInternalSymbol(i));
+            Assert.assertEquals(transformationUtil.isCallSymbol(sym), alphabet.isCallSymbol(i));
+            Assert.assertEquals(transformationUtil.isReturnSymbol(sym), alphabet.isReturnSymbol(i));
+        }
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> transformationUtil.encode(42));
+    }
+
+    @Test(dataProvider = "words")
+    public void testRoundTrip(Word<Integer> word) {
+        final IntWord encoded = transformationUtil.encode(word);
+
+        Assert.assertEquals(encoded.length(), word.length());
+        Assert.assertEquals(transformationUtil.decode(encoded), word);
+
+        final IntWord.Builder builder = new IntWord.Builder();
+        builder.addAll(encoded.prefix(word.length() / 2)).addAll(encoded.subWord(word.length() / 2));
+        Assert.assertEquals(builder.toWord(), encoded);
+        Assert.assertEquals(builder.toWord().hashCode(), encoded.hashCode());
+
+        final IntWord compacted = encoded.compact();
+        Assert.assertSame(compacted, encoded);
+
+        for (int i = 0; i <= word.length(); i++) {
+            final IntWord suffix = encoded.subWord(i);
+            final IntWord compactedSuffix = suffix.compact();
+            Assert.assertEquals(compactedSuffix, suffix);
+            Assert.assertSame(compactedSuffix.compact(), compactedSuffix);
+        }
+    }
+
+    @Test(dataProvider = "words")
+    public void testIndices(Word<Integer> word) {
+        final IntWord encoded = transformationUtil.encode(word);
+        final IntWord.Builder builder = new IntWord.Builder();
+        builder.addAll(encoded);
+
+        for (int i = 0; i <= word.length(); i++) {
+            final int callIdx = transformationUtil.findCallIndex(word, i);
+            Assert.assertEquals(transformationUtil.findCallIndex(encoded, i), callIdx);
+            Assert.assertEquals(transformationUtil.findCallIndex(builder, i), callIdx);
+
+            final int returnIdx = transformationUtil.findReturnIndex(word, i);
+            Assert.assertEquals(transformationUtil.findReturnIndex(encoded, i), returnIdx);
+            Assert.assertEquals(transformationUtil.findReturnIndex(builder, i), returnIdx);
+        }
+    }
+
+    @Test(dataProvider = "words")
+    public void testNormalizeAndExpand(Word<Integer> word) {
+        final IntWord encoded = transformationUtil.encode(word);
+        final int returnIdx = transformationUtil.findReturnIndex(word, 1);
+
+        final Word<Integer> localWord = word.subWord(1, returnIdx);
+        final IntWord encodedLocalWord = encoded.subWord(1, returnIdx);
+
+        final Word<Integer> normalized = transformationUtil.normalize(localWord, 0);
+        Assert.assertEquals(transformationUtil.encode(normalized), transformationUtil.normalize(encodedLocalWord, 0));
+
+        for (final Integer i : normalized) {
+            Assert.assertFalse(alphabet.isReturnSymbol(i));
+        }
+
+        final Word<Integer> ts = Word.fromSymbols(alphabet.getInternalSymbol(0));
+        final Word<Integer> expanded = transformationUtil.expand(normalized, p -> ts);
+        final IntWord encodedExpanded =
+                transformationUtil.expand(transformationUtil.encode(normalized), p -> transformationUtil.encode(ts));
+
+        Assert.assertEquals(transformationUtil.encode(expanded), encodedExpanded);
+        Assert.assertEquals(transformationUtil.normalize(expanded, 0), normalized);
+    }
+
+    @Test(dataProvider = "words")
+    public void testExpandedCost(Word<Integer> word) {
+        final IntWord encoded = transformationUtil.encode(word);
+        final IntWord normalized =
+                transformationUtil.normalize(encoded.subWord(1, transformationUtil.findReturnIndex(word, 1)), 0);
+
+        // terminating sequences of different lengths (and costs) per procedure
+        final IntFunction<IntWord> tsProvider = sym -> {
+            final IntWord.Builder builder = new IntWord.Builder();
+            for (int i = 0; i < sym % 3; i++) {
+                builder.add(transformationUtil.encode(alphabet.getInternalSymbol(i)));
+            }
+            return builder.toWord();
+        };
+
+        for (final SymbolCostModel<Integer> costModel : Arrays.asList(SymbolCostModel.<Integer>uniform(),
+                                                                      SymbolCostModel.bySymbolType(alphabet, 1, 5, 3),
+                                                                      i -> i)) {
+            final long[] costs = transformationUtil.encodeCosts(costModel);
+            final IntToLongFunction tsCosts = sym -> transformationUtil.getCost(tsProvider.apply(sym), costs);
+
+            Assert.assertEquals(transformationUtil.getExpandedCost(normalized, costs, tsCosts),
+                                transformationUtil.getCost(transformationUtil.expand(normalized, tsProvider), costs));
+            Assert.assertEquals(transformationUtil.getCost(normalized, costs),
+                                costModel.getCost(transformationUtil.decode(normalized)));
+        }
+    }
+
+    private void appendWellMatched(Random random, WordBuilder<Integer> builder, int depth) {
+        final int length = random.nextInt(6);
+
+        for (int i = 0; i < length; i++) {
+            if (depth < 3 && random.nextInt(3) == 0) {
+                builder.append(alphabet.getCallSymbol(random.nextInt(alphabet.getNumCalls())));
+                appendWellMatched(random, builder, depth + 1);
+                builder.append(alphabet.getReturnSymbol());
+            } else {
+                builder.append(alphabet.getInternalSymbol(random.nextInt(alphabet.getNumInternals())));
+            }
+        }
+    }
+}
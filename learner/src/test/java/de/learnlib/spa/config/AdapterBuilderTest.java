@@ -0,0 +1,128 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import de.learnlib.acex.AcexAnalyzer;
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.algorithm.LearningAlgorithm;
+import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.LocalRefinementCounter;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import de.learnlib.spa.learner.SPALearner;
+import de.learnlib.spa.util.Generator;
+import de.learnlib.spa.util.Util;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class AdapterBuilderTest {
+
+    private SPA<?, Integer> spa;
+
+    @BeforeClass
+    public void setUp() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 4), 16);
+        spa = Generator.create(new Random(42), alphabet, 10);
+    }
+
+    @DataProvider(name = "builders")
+    public Object[][] dataProvider() {
+        final List<NamedSetup> setups = new ArrayList<>();
+        setups.add(new NamedSetup(DiscriminationTreeAdapter::builder, "DiscriminationTreeAdapter"));
+        setups.add(new NamedSetup(KearnsVaziraniAdapter::builder, "KearnsVaziraniAdapter"));
+        setups.add(new NamedSetup(RivestSchapireAdapter::builder, "RivestSchapireAdapter"));
+        setups.add(new NamedSetup(TTTAdapter::builder, "TTTAdapter"));
+        setups.add(new NamedSetup(() -> SharedSuffixAdapter.builder(new SharedSuffixPool<>()), "SharedSuffixAdapter"));
+
+        final AcexAnalyzer[] analyzers = {AcexAnalyzers.LINEAR_FWD,
+                                          AcexAnalyzers.LINEAR_BWD,
+                                          AcexAnalyzers.BINARY_SEARCH_FWD,
+                                          AcexAnalyzers.BINARY_SEARCH_BWD,
+                                          AcexAnalyzers.EXPONENTIAL_FWD,
+                                          AcexAnalyzers.EXPONENTIAL_BWD};
+
+        final Object[][] result = new Object[setups.size() * analyzers.length][];
+        int i = 0;
+        for (final NamedSetup setup : setups) {
+            for (final AcexAnalyzer analyzer : analyzers) {
+                result[i++] = new Object[] {setup, analyzer};
+            }
+        }
+
+        return result;
+    }
+
+    @Test(dataProvider = "builders")
+    public void testAnalyzer(NamedSetup setup, AcexAnalyzer analyzer) {
+        final SPA<?, Integer> hyp = setup.learn(spa, analyzer);
+        Assert.assertTrue(Util.testEquivalence(spa, hyp));
+    }
+
+    @Test
+    public void testDefaultAnalyzer() {
+        Assert.assertSame(TTTAdapter.<Integer>builder().getAnalyzer(), AcexAnalyzers.BINARY_SEARCH_BWD);
+        Assert.assertSame(KearnsVaziraniAdapter.<Integer>builder().getAnalyzer(), AcexAnalyzers.LINEAR_FWD);
+        Assert.assertSame(SharedSuffixAdapter.builder(new SharedSuffixPool<Integer>()).getAnalyzer(),
+                          AcexAnalyzers.BINARY_SEARCH_BWD);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullAnalyzer() {
+        TTTAdapter.<Integer>builder().withAnalyzer(null);
+    }
+
+    private static final class NamedSetup {
+
+        private final BiFunction<SPA<?, Integer>, AcexAnalyzer, SPA<?, Integer>> learnFunction;
+        private final String name;
+
+        <L extends LearningAlgorithm.DFALearner<Integer> & SupportsGrowingAlphabet<Integer> & AccessSequenceTransformer<Integer> & LocalRefinementCounter> NamedSetup(
+                Supplier<AdapterBuilder<Integer, L>> builderSupplier,
+                String name) {
+            this.name = name;
+            this.learnFunction = (system, analyzer) -> {
+                final AdapterBuilder<Integer, L> builder = builderSupplier.get().withAnalyzer(analyzer);
+                Assert.assertSame(builder.getAnalyzer(), analyzer);
+
+                final SPALearner<Integer, L> learner =
+                        new SPALearner<>(system.getInputAlphabet(), new SimulatorOracle<>(system), builder::create);
+                learner.startLearning();
+                return Util.learn(system, learner);
+            };
+        }
+
+        SPA<?, Integer> learn(SPA<?, Integer> system, AcexAnalyzer analyzer) {
+            return this.learnFunction.apply(system, analyzer);
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import de.learnlib.spa.learner.SPALearner;
+import de.learnlib.spa.util.Generator;
+import de.learnlib.spa.util.Util;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SharedSuffixPoolTest {
+
+    private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'c');
+
+    @Test
+    public void testCandidates() {
+        final SharedSuffixPool<Character> pool = new SharedSuffixPool<>(2);
+        final Word<Character> a = Word.fromString("a");
+        final Word<Character> ab = Word.fromString("ab");
+        final Word<Character> ba = Word.fromString("ba");
+        final Word<Character> ax = Word.fromString("ax");
+
+        pool.reward(a);
+        pool.reward(ab);
+        pool.reward(ba);
+        pool.reward(ba);
+        pool.reward(ax);
+        pool.reward(ax);
+        pool.reward(ax);
+
+        Assert.assertEquals(pool.size(), 4);
+
+        // ax is not defined over the alphabet, ties are broken by insertion order
+        Assert.assertEquals(pool.getCandidates(ALPHABET, Collections.emptyList()), Arrays.asList(ba, a));
+        Assert.assertEquals(pool.getCandidates(ALPHABET, Collections.singleton(ba)), Arrays.asList(a, ab));
+        Assert.assertEquals(pool.getCandidates(ALPHABET, Arrays.asList(a, ab, ba)), Collections.emptyList());
+    }
+
+    @Test
+    public void testLearning() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(new Random(42), alphabet, 15);
+
+        final SharedSuffixPool<Integer> pool = new SharedSuffixPool<>();
+        final SPALearner<Integer, SharedSuffixAdapter<Integer>> learner =
+                new SPALearner<>(alphabet, new SimulatorOracle<>(spa), pool::createAdapter);
+        learner.startLearning();
+
+        Assert.assertTrue(Util.testEquivalence(spa, Util.learn(spa, learner)));
+        Assert.assertTrue(pool.size() > 0);
+    }
+}
@@ -0,0 +1,170 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.spa.api.ATRListener;
+import de.learnlib.spa.api.ATRListener.SequenceType;
+import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.SPAAlphabet;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ATRProviderTest {
+
+    private static final SPAAlphabet<Character> ALPHABET =
+            new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.fromArray('M', 'P'), 'R');
+
+    @Test
+    public void testVersionsAndListeners() {
+        final DefaultATRProvider<Character> provider = new DefaultATRProvider<>(ALPHABET);
+        final List<SequenceType> events = new ArrayList<>();
+        final ATRListener<Character> listener = (procedure, type, sequence) -> events.add(type);
+
+        provider.addATRListener(listener);
+
+        Assert.assertEquals(provider.scanPositiveCounterexample(Word.fromString("MaRR")), Collections.singleton('M'));
+        Assert.assertEquals(provider.getVersion(), 3);
+        Assert.assertEquals(provider.getVersion('M'), 3);
+        Assert.assertEquals(provider.getVersion('P'), 0);
+        Assert.assertEquals(events,
+                            Arrays.asList(SequenceType.ACCESS, SequenceType.TERMINATING, SequenceType.RETURN));
+
+        provider.removeATRListener(listener);
+
+        Assert.assertEquals(provider.scanPositiveCounterexample(Word.fromString("MPbRR")), Collections.singleton('P'));
+        Assert.assertEquals(provider.getVersion(), 6);
+        Assert.assertEquals(provider.getVersion('M'), 3);
+        Assert.assertEquals(provider.getVersion('P'), 3);
+        Assert.assertEquals(events.size(), 3);
+    }
+
+    @Test
+    public void testConcurrentVersions() throws InterruptedException {
+        final int threads = 4;
+        final int changes = 10000;
+
+        final ChangingATRProvider provider = new ChangingATRProvider();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            final Character procedure = i % 2 == 0 ? 'M' : 'P';
+            executor.execute(() -> {
+                for (int j = 0; j < changes; j++) {
+                    provider.change(procedure);
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assert.assertEquals(provider.getVersion(), threads * changes);
+        Assert.assertEquals(provider.getVersion('M'), threads / 2 * changes);
+        Assert.assertEquals(provider.getVersion('P'), threads / 2 * changes);
+    }
+
+    @Test
+    public void testDefaults() {
+        final ATRProvider<Character> provider = new StaticATRProvider();
+        final ATRListener<Character> listener = (procedure, type, sequence) -> Assert.fail();
+
+        provider.addATRListener(listener);
+        provider.removeATRListener(listener);
+
+        Assert.assertEquals(provider.getVersion(), ATRProvider.UNVERSIONED);
+        Assert.assertEquals(provider.getVersion('M'), ATRProvider.UNVERSIONED);
+    }
+
+    private static class StaticATRProvider implements ATRProvider<Character> {
+
+        @Override
+        public Word<Character> getAccessSequence(Character procedure) {
+            return Word.epsilon();
+        }
+
+        @Override
+        public Word<Character> getTerminatingSequence(Character procedure) {
+            return Word.epsilon();
+        }
+
+        @Override
+        public Word<Character> getReturnSequence(Character procedure) {
+            return Word.epsilon();
+        }
+
+        @Override
+        public Set<Character> scanPositiveCounterexample(Word<Character> counterexample) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void scanRefinedProcedures(Map<Character, ? extends DFA<?, Character>> procedures,
+                                          Map<Character, ? extends AccessSequenceTransformer<Character>> providers,
+                                          Collection<Character> inputs) {}
+    }
+
+    private static class ChangingATRProvider extends AbstractATRProvider<Character> {
+
+        private final StaticATRProvider delegate = new StaticATRProvider();
+
+        ChangingATRProvider() {
+            super(ALPHABET);
+        }
+
+        void change(Character procedure) {
+            super.sequenceChanged(procedure, SequenceType.ACCESS, Word.epsilon());
+        }
+
+        @Override
+        public Word<Character> getAccessSequence(Character procedure) {
+            return this.delegate.getAccessSequence(procedure);
+        }
+
+        @Override
+        public Word<Character> getTerminatingSequence(Character procedure) {
+            return this.delegate.getTerminatingSequence(procedure);
+        }
+
+        @Override
+        public Word<Character> getReturnSequence(Character procedure) {
+            return this.delegate.getReturnSequence(procedure);
+        }
+
+        @Override
+        public Set<Character> scanPositiveCounterexample(Word<Character> counterexample) {
+            return this.delegate.scanPositiveCounterexample(counterexample);
+        }
+
+        @Override
+        public void scanRefinedProcedures(Map<Character, ? extends DFA<?, Character>> procedures,
+                                          Map<Character, ? extends AccessSequenceTransformer<Character>> providers,
+                                          Collection<Character> inputs) {}
+    }
+}
@@ -0,0 +1,91 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.SUL;
+import de.learnlib.spa.api.CopyableSUL;
+import net.automatalib.ts.acceptors.DeterministicAcceptorTS;
+
+/**
+ * A {@link SUL} that simulates an acceptor and outputs after each step whether the input read so far is accepted.
+ * Keeps track of the number of active (i.e. not yet {@link #post() shut down}) instances.
+ *
+ * @param <S>
+ *         state type
+ * @param <I>
+ *         input symbol type
+ */
+class AcceptorSUL<S, I> implements SUL<I, Boolean> {
+
+    protected final DeterministicAcceptorTS<S, I> acceptor;
+    protected final AtomicInteger active;
+    protected S state;
+
+    AcceptorSUL(DeterministicAcceptorTS<S, I> acceptor) {
+        this(acceptor, new AtomicInteger(), null);
+    }
+
+    protected AcceptorSUL(DeterministicAcceptorTS<S, I> acceptor, AtomicInteger active, S state) {
+        this.acceptor = acceptor;
+        this.active = active;
+        this.state = state;
+    }
+
+    @Override
+    public void pre() {
+        this.active.incrementAndGet();
+        this.state = this.acceptor.getInitialState();
+    }
+
+    @Override
+    public void post() {
+        this.active.decrementAndGet();
+        this.state = null;
+    }
+
+    @Override
+    public Boolean step(I in) {
+        this.state = this.acceptor.getSuccessor(this.state, in);
+        return this.acceptor.isAccepting(this.state);
+    }
+
+    int getNumberOfActiveInstances() {
+        return this.active.get();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+    static class Copyable<S, I> extends AcceptorSUL<S, I> implements CopyableSUL<I, Boolean> {
+
+        Copyable(DeterministicAcceptorTS<S, I> acceptor) {
+            super(acceptor);
+        }
+
+        private Copyable(DeterministicAcceptorTS<S, I> acceptor, AtomicInteger active, S state) {
+            super(acceptor, active, state);
+        }
+
+        @Override
+        public CopyableSUL<I, Boolean> copy() {
+            this.active.incrementAndGet();
+            return new Copyable<>(this.acceptor, this.active, this.state);
+        }
+    }
+}
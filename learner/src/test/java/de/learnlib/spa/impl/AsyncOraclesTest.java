@@ -0,0 +1,125 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.AsyncMembershipOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.Generator;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class AsyncOraclesTest {
+
+    private SPA<?, Integer> spa;
+    private List<Word<Integer>> words;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp() {
+        final Random random = new Random(42);
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 9), 16);
+        spa = Generator.create(random, alphabet, 10);
+
+        words = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final List<Integer> symbols = new ArrayList<>();
+            final int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                symbols.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+            }
+            words.add(Word.fromList(symbols));
+        }
+
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @DataProvider(name = "pipelines")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {1, 1}, new Object[] {7, 2}, new Object[] {16, 8}, new Object[] {500, 4}};
+    }
+
+    @Test(dataProvider = "pipelines")
+    public void testPipelinedAnswers(int batchSize, int maxInFlight) {
+        final SimulatorOracle<Integer, Boolean> reference = new SimulatorOracle<>(spa);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObserved = new AtomicInteger();
+        final AtomicInteger maxBatch = new AtomicInteger();
+
+        final AsyncMembershipOracle<Integer, Boolean> async =
+                AsyncOracles.asynchronous(new SimulatorOracle<>(spa), executor);
+        final AsyncMembershipOracle<Integer, Boolean> tracking = queries -> {
+            maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxBatch.accumulateAndGet(queries.size(), Math::max);
+            return async.processQueriesAsync(queries).whenComplete((r, t) -> inFlight.decrementAndGet());
+        };
+
+        final MembershipOracle<Integer, Boolean> oracle = AsyncOracles.pipelined(tracking, batchSize, maxInFlight);
+
+        final List<DefaultQuery<Integer, Boolean>> queries = new ArrayList<>(words.size());
+        for (final Word<Integer> w : words) {
+            queries.add(new DefaultQuery<>(w));
+        }
+        oracle.processQueries(queries);
+
+        for (final DefaultQuery<Integer, Boolean> q : queries) {
+            Assert.assertEquals(q.getOutput(), reference.answerQuery(q.getInput()));
+        }
+
+        Assert.assertTrue(maxObserved.get() <= maxInFlight);
+        Assert.assertTrue(maxBatch.get() <= batchSize);
+        Assert.assertEquals(oracle.answerQuery(words.get(0)), reference.answerQuery(words.get(0)));
+    }
+
+    @Test
+    public void testExceptionPropagation() {
+        final AsyncMembershipOracle<Integer, Boolean> failing = queries -> {
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            result.completeExceptionally(new IllegalStateException("Broken connection"));
+            return result;
+        };
+
+        final MembershipOracle<Integer, Boolean> oracle = AsyncOracles.pipelined(failing, 4, 2);
+
+        Assert.assertThrows(IllegalStateException.class, () -> oracle.answerQuery(words.get(0)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidArguments() {
+        AsyncOracles.pipelined(AsyncOracles.asynchronous(new SimulatorOracle<>(spa), executor), 0, 1);
+    }
+}
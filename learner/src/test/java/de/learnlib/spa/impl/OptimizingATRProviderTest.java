@@ -0,0 +1,217 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OptimizingATRProviderTest {
+
+    private static final SPAAlphabet<Character> ALPHABET =
+            new DefaultSPAAlphabet<>(Alphabets.characters('a', 'd'), Alphabets.fromArray('M', 'P', 'Q'), 'R');
+    private static final Alphabet<Character> PROCEDURAL_ALPHABET =
+            Alphabets.fromArray('a', 'b', 'c', 'd', 'M', 'P', 'Q');
+
+    /**
+     * Scans counterexamples that only reveal the long access and return sequences of P in M and checks that the
+     * shorter embedding of P into Q is adopted.
+     */
+    @Test
+    public void testOptimization() {
+        // M -> a a P a a | Q, P -> c, Q -> P | d
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('M', createM());
+        procedures.put('P', createP());
+        procedures.put('Q', createQ(false));
+
+        final SPA<?, Character> spa = new DefaultSPA<>(ALPHABET, 'M', procedures);
+        final RecordingOracle oracle = new RecordingOracle(spa);
+        final OptimizingATRProvider<Character> provider = createProvider();
+
+        Assert.assertTrue(spa.accepts(Word.fromString("MaaPcRaaR")));
+        Assert.assertTrue(spa.accepts(Word.fromString("MQdRR")));
+        provider.scanPositiveCounterexample(Word.fromString("MaaPcRaaR"));
+        provider.scanPositiveCounterexample(Word.fromString("MQdRR"));
+
+        Assert.assertEquals(provider.getAccessSequence('P'), Word.fromString("Maa"));
+        Assert.assertEquals(provider.getReturnSequence('P'), Word.fromString("aaR"));
+
+        provider.optimizeAccessAndReturnSequences(procedures, PROCEDURAL_ALPHABET, oracle);
+
+        Assert.assertEquals(provider.getAccessSequence('P'), Word.fromString("MQ"));
+        Assert.assertEquals(provider.getReturnSequence('P'), Word.fromString("RR"));
+        Assert.assertEquals(oracle.queries, Collections.singletonList(Word.fromString("MQPcRRR")));
+
+        // the sequences of the other procedures cannot be improved
+        Assert.assertEquals(provider.getAccessSequence('Q'), Word.fromString("M"));
+        Assert.assertEquals(provider.getReturnSequence('Q'), Word.fromString("R"));
+    }
+
+    /**
+     * Checks that a candidate of an incorrect hypothesis is rejected by the system, is not adopted and is not queried
+     * again.
+     */
+    @Test
+    public void testRejectedCandidate() {
+        // M -> a a P a a | Q, P -> c, Q -> b P | d
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('M', createM());
+        procedures.put('P', createP());
+        procedures.put('Q', createQ(true));
+
+        final SPA<?, Character> spa = new DefaultSPA<>(ALPHABET, 'M', procedures);
+        final RecordingOracle oracle = new RecordingOracle(spa);
+        final OptimizingATRProvider<Character> provider = createProvider();
+
+        Assert.assertTrue(spa.accepts(Word.fromString("MaaPcRaaR")));
+        Assert.assertTrue(spa.accepts(Word.fromString("MQdRR")));
+        provider.scanPositiveCounterexample(Word.fromString("MaaPcRaaR"));
+        provider.scanPositiveCounterexample(Word.fromString("MQdRR"));
+
+        // the hypothesis of Q (incorrectly) embeds P without the preceding b
+        final Map<Character, CompactDFA<Character>> hypotheses = new HashMap<>(procedures);
+        hypotheses.put('Q', createQ(false));
+
+        provider.optimizeAccessAndReturnSequences(hypotheses, PROCEDURAL_ALPHABET, oracle);
+
+        Assert.assertEquals(provider.getAccessSequence('P'), Word.fromString("Maa"));
+        Assert.assertEquals(provider.getReturnSequence('P'), Word.fromString("aaR"));
+        Assert.assertEquals(oracle.queries, Collections.singletonList(Word.fromString("MQPcRRR")));
+
+        // the rejected candidate is not verified again
+        provider.optimizeAccessAndReturnSequences(hypotheses, PROCEDURAL_ALPHABET, oracle);
+
+        Assert.assertEquals(provider.getAccessSequence('P'), Word.fromString("Maa"));
+        Assert.assertEquals(provider.getReturnSequence('P'), Word.fromString("aaR"));
+        Assert.assertEquals(oracle.queries.size(), 1);
+
+        // the correct hypothesis still yields a (valid) cheaper candidate
+        provider.optimizeAccessAndReturnSequences(procedures, PROCEDURAL_ALPHABET, oracle);
+
+        Assert.assertEquals(provider.getAccessSequence('P'), Word.fromString("MQb"));
+        Assert.assertEquals(provider.getReturnSequence('P'), Word.fromString("RR"));
+        Assert.assertEquals(oracle.queries.size(), 2);
+        Assert.assertEquals(oracle.queries.get(1), Word.fromString("MQbPcRRR"));
+    }
+
+    /**
+     * Scans two terminating sequences of Q: the shorter one calls P and is more expensive if calls and returns are
+     * costly, the longer one only consists of (cheap) internal symbols.
+     */
+    @Test
+    public void testTerminatingSequenceCosts() {
+        final Word<Character> shortCE = Word.fromString("MQPcRRR");
+        final Word<Character> cheapCE = Word.fromString("MQaaaaRR");
+        final SymbolCostModel<Character> costModel = SymbolCostModel.bySymbolType(ALPHABET, 1, 10, 10);
+
+        Assert.assertTrue(costModel.getCost(Word.fromString("PcR")) > costModel.getCost(Word.fromString("aaaa")));
+
+        for (final boolean cheapFirst : new boolean[] {false, true}) {
+            final OptimizingATRProvider<Character> uniform = createProvider();
+            final OptimizingATRProvider<Character> byType = new OptimizingATRProvider<>(ALPHABET, costModel);
+
+            final List<Word<Character>> ces =
+                    cheapFirst ? Arrays.asList(cheapCE, shortCE) : Arrays.asList(shortCE, cheapCE);
+
+            for (final Word<Character> ce : ces) {
+                uniform.scanPositiveCounterexample(ce);
+                byType.scanPositiveCounterexample(ce);
+            }
+
+            Assert.assertEquals(uniform.getTerminatingSequence('Q'), Word.fromString("PcR"));
+            Assert.assertEquals(byType.getTerminatingSequence('Q'), Word.fromString("aaaa"));
+        }
+    }
+
+    private static OptimizingATRProvider<Character> createProvider() {
+        return new OptimizingATRProvider<>(ALPHABET);
+    }
+
+    private static CompactDFA<Character> createM() {
+        final CompactDFA<Character> m = new CompactDFA<>(PROCEDURAL_ALPHABET);
+        final int m0 = m.addInitialState(false);
+        final int m1 = m.addState(false);
+        final int m2 = m.addState(false);
+        final int m3 = m.addState(false);
+        final int m4 = m.addState(false);
+        final int m5 = m.addState(true);
+        m.addTransition(m0, 'a', m1);
+        m.addTransition(m1, 'a', m2);
+        m.addTransition(m2, 'P', m3);
+        m.addTransition(m3, 'a', m4);
+        m.addTransition(m4, 'a', m5);
+        m.addTransition(m0, 'Q', m5);
+        return m;
+    }
+
+    private static CompactDFA<Character> createP() {
+        final CompactDFA<Character> p = new CompactDFA<>(PROCEDURAL_ALPHABET);
+        final int p0 = p.addInitialState(false);
+        p.addTransition(p0, 'c', p.addState(true));
+        return p;
+    }
+
+    private static CompactDFA<Character> createQ(boolean prefixed) {
+        final CompactDFA<Character> q = new CompactDFA<>(PROCEDURAL_ALPHABET);
+        final int q0 = q.addInitialState(false);
+        final int q1 = q.addState(true);
+        q.addTransition(q0, 'd', q1);
+
+        if (prefixed) {
+            final int q2 = q.addState(false);
+            q.addTransition(q0, 'b', q2);
+            q.addTransition(q2, 'P', q1);
+        } else {
+            q.addTransition(q0, 'P', q1);
+        }
+
+        return q;
+    }
+
+    private static final class RecordingOracle implements MembershipOracle<Character, Boolean> {
+
+        private final SPA<?, Character> spa;
+        private final List<Word<Character>> queries = new ArrayList<>();
+
+        RecordingOracle(SPA<?, Character> spa) {
+            this.spa = spa;
+        }
+
+        @Override
+        public void processQueries(Collection<? extends Query<Character, Boolean>> collection) {
+            for (final Query<Character, Boolean> q : collection) {
+                this.queries.add(q.getInput());
+                q.answer(this.spa.accepts(q.getInput()));
+            }
+        }
+    }
+}
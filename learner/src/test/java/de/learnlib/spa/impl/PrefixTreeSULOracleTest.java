@@ -0,0 +1,105 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.Generator;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class PrefixTreeSULOracleTest {
+
+    private SPA<?, Integer> spa;
+    private List<Word<Integer>> words;
+
+    @BeforeClass
+    public void setUp() {
+        final Random random = new Random(42);
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 9), 16);
+        spa = Generator.create(random, alphabet, 10);
+
+        words = new ArrayList<>();
+        words.add(Word.epsilon());
+        for (int i = 0; i < 100; i++) {
+            final List<Integer> symbols = new ArrayList<>();
+            final int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                symbols.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+            }
+            final Word<Integer> word = Word.fromList(symbols);
+            words.add(word);
+            // add prefixes and duplicates, which need to be answered along the way
+            words.add(word.prefix(random.nextInt(length + 1)));
+            words.add(word);
+        }
+    }
+
+    @DataProvider(name = "suls")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {new AcceptorSUL<>(spa)}, new Object[] {new AcceptorSUL.Copyable<>(spa)}};
+    }
+
+    @Test(dataProvider = "suls")
+    public void testAnswers(AcceptorSUL<?, Integer> sul) {
+        final SimulatorOracle<Integer, Boolean> reference = new SimulatorOracle<>(spa);
+        final PrefixTreeSULOracle<Integer, Boolean> oracle = new PrefixTreeSULOracle<>(sul, false);
+
+        final List<DefaultQuery<Integer, Boolean>> queries = new ArrayList<>(words.size());
+        for (final Word<Integer> w : words) {
+            queries.add(new DefaultQuery<>(w));
+        }
+        oracle.processQueries(queries);
+
+        for (final DefaultQuery<Integer, Boolean> q : queries) {
+            Assert.assertEquals(q.getOutput(), reference.answerQuery(q.getInput()), q.toString());
+        }
+
+        // count the inner nodes and leaves of the prefix tree
+        final Set<Word<Integer>> prefixes = new HashSet<>();
+        for (final Word<Integer> w : words) {
+            for (int i = 1; i <= w.length(); i++) {
+                prefixes.add(w.prefix(i));
+            }
+        }
+        final Set<Word<Integer>> leaves = new HashSet<>(prefixes);
+        for (final Word<Integer> p : prefixes) {
+            leaves.remove(p.prefix(p.length() - 1));
+        }
+
+        if (sul instanceof AcceptorSUL.Copyable) {
+            Assert.assertEquals(oracle.getNumberOfResets(), 1);
+            Assert.assertEquals(oracle.getNumberOfSteps(), prefixes.size());
+        } else {
+            Assert.assertEquals(oracle.getNumberOfResets(), leaves.size());
+            Assert.assertTrue(oracle.getNumberOfSteps() < words.stream().mapToInt(Word::length).sum());
+        }
+
+        Assert.assertEquals(sul.getNumberOfActiveInstances(), 0);
+    }
+}
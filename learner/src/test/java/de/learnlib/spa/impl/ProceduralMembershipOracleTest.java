@@ -0,0 +1,243 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.config.TTTAdapter;
+import de.learnlib.spa.learner.SPALearner;
+import de.learnlib.spa.util.Util;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.fsa.MutableDFAs;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ProceduralMembershipOracleTest {
+
+    private SPAAlphabet<Character> alphabet;
+    private SPA<?, Character> spa;
+
+    /**
+     * Creates the system F -> a | G, G -> b | c c.
+     */
+    @BeforeClass
+    public void setUp() {
+        alphabet = new DefaultSPAAlphabet<>(Alphabets.characters('a', 'c'), Alphabets.characters('F', 'G'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'c', 'F', 'G');
+
+        final CompactDFA<Character> f = new CompactDFA<>(proceduralAlphabet);
+        final int f0 = f.addInitialState(false);
+        final int f1 = f.addState(true);
+        f.addTransition(f0, 'a', f1);
+        f.addTransition(f0, 'G', f1);
+
+        final CompactDFA<Character> g = new CompactDFA<>(proceduralAlphabet);
+        final int g0 = g.addInitialState(false);
+        final int g1 = g.addState(true);
+        final int g2 = g.addState(false);
+        g.addTransition(g0, 'b', g1);
+        g.addTransition(g0, 'c', g2);
+        g.addTransition(g2, 'c', g1);
+
+        MutableDFAs.complete(f, proceduralAlphabet);
+        MutableDFAs.complete(g, proceduralAlphabet);
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', f);
+        procedures.put('G', g);
+
+        spa = new DefaultSPA<>(alphabet, 'F', procedures);
+    }
+
+    @DataProvider(name = "providers")
+    public Object[][] dataProvider() {
+        final NamedProvider versioned = new NamedProvider("versioned", OptimizingATRProvider::new);
+        final NamedProvider unversioned =
+                new NamedProvider("unversioned", a -> new UnversionedATRProvider<>(new OptimizingATRProvider<>(a)));
+
+        return new Object[][] {new Object[] {versioned}, new Object[] {unversioned}};
+    }
+
+    /**
+     * Checks that transformed queries reflect changes of the sequences, i.e. newly discovered procedures and cheaper
+     * sequences.
+     */
+    @Test(dataProvider = "providers")
+    public void testSequenceChanges(NamedProvider namedProvider) {
+        final ATRProvider<Character> provider = namedProvider.factory.apply(alphabet);
+        final RecordingOracle delegate = new RecordingOracle();
+        final ProceduralMembershipOracle<Character> oracle =
+                new ProceduralMembershipOracle<>(alphabet, delegate, 'F', provider);
+
+        provider.scanPositiveCounterexample(Word.fromString("FaR"));
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("a")));
+        Assert.assertEquals(delegate.getLastQuery(), Word.fromString("FaR"));
+
+        // G is discovered after the first query has been transformed
+        provider.scanPositiveCounterexample(Word.fromString("FGccRR"));
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+        Assert.assertEquals(delegate.getLastQuery(), Word.fromString("FGccRR"));
+
+        // G's terminating sequence is replaced by a cheaper one
+        provider.scanPositiveCounterexample(Word.fromString("FGbRR"));
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+        Assert.assertEquals(delegate.getLastQuery(), Word.fromString("FGbRR"));
+    }
+
+    @Test
+    public void testCache() {
+        final ATRProvider<Character> provider = new OptimizingATRProvider<>(alphabet);
+        final RecordingOracle delegate = new RecordingOracle();
+        final ProceduralMembershipOracle<Character> oracle =
+                new ProceduralMembershipOracle<>(alphabet, delegate, 'F', provider, true);
+
+        provider.scanPositiveCounterexample(Word.fromString("FGccRR"));
+
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+        Assert.assertFalse(oracle.answerQuery(Word.fromString("b")));
+        Assert.assertEquals(delegate.queries.size(), 2);
+
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+        Assert.assertFalse(oracle.answerQuery(Word.fromString("b")));
+        Assert.assertEquals(delegate.queries.size(), 2);
+
+        // answers of local queries do not depend on the sequences, so they remain cached
+        provider.scanPositiveCounterexample(Word.fromString("FGbRR"));
+
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+        Assert.assertEquals(delegate.queries.size(), 2);
+
+        Assert.assertTrue(oracle.answerQuery(Word.fromString("a")));
+        Assert.assertEquals(delegate.queries.size(), 3);
+        Assert.assertEquals(delegate.getLastQuery(), Word.fromString("FaR"));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        final ATRProvider<Character> provider = new OptimizingATRProvider<>(alphabet);
+        final RecordingOracle delegate = new RecordingOracle();
+        final ProceduralMembershipOracle<Character> oracle =
+                new ProceduralMembershipOracle<>(alphabet, delegate, 'F', provider, false);
+
+        provider.scanPositiveCounterexample(Word.fromString("FGccRR"));
+
+        for (int i = 1; i <= 3; i++) {
+            Assert.assertTrue(oracle.answerQuery(Word.fromString("G")));
+            Assert.assertEquals(delegate.queries.size(), i);
+        }
+    }
+
+    @Test(dataProvider = "providers")
+    public void testLearning(NamedProvider namedProvider) {
+        final ATRProvider<Character> provider = namedProvider.factory.apply(alphabet);
+        final SPALearner<Character, TTTAdapter<Character>> learner =
+                new SPALearner<>(alphabet, new SimulatorOracle<>(spa), TTTAdapter::new, provider);
+        learner.startLearning();
+
+        Assert.assertTrue(Util.testEquivalence(spa, Util.learn(spa, learner)));
+    }
+
+    private final class RecordingOracle implements MembershipOracle<Character, Boolean> {
+
+        private final List<Word<Character>> queries = new ArrayList<>();
+
+        @Override
+        public void processQueries(Collection<? extends Query<Character, Boolean>> collection) {
+            for (final Query<Character, Boolean> q : collection) {
+                this.queries.add(q.getInput());
+                q.answer(spa.accepts(q.getInput()));
+            }
+        }
+
+        Word<Character> getLastQuery() {
+            return this.queries.get(this.queries.size() - 1);
+        }
+    }
+
+    private static final class NamedProvider {
+
+        private final String name;
+        private final Function<SPAAlphabet<Character>, ATRProvider<Character>> factory;
+
+        NamedProvider(String name, Function<SPAAlphabet<Character>, ATRProvider<Character>> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
+    /**
+     * An {@link ATRProvider} that only implements the mandatory methods by delegation, i.e. that does not track
+     * versions.
+     */
+    private static final class UnversionedATRProvider<I> implements ATRProvider<I> {
+
+        private final ATRProvider<I> delegate;
+
+        UnversionedATRProvider(ATRProvider<I> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Word<I> getAccessSequence(I procedure) {
+            return this.delegate.getAccessSequence(procedure);
+        }
+
+        @Override
+        public Word<I> getTerminatingSequence(I procedure) {
+            return this.delegate.getTerminatingSequence(procedure);
+        }
+
+        @Override
+        public Word<I> getReturnSequence(I procedure) {
+            return this.delegate.getReturnSequence(procedure);
+        }
+
+        @Override
+        public Set<I> scanPositiveCounterexample(Word<I> counterexample) {
+            return this.delegate.scanPositiveCounterexample(counterexample);
+        }
+
+        @Override
+        public void scanRefinedProcedures(Map<I, ? extends DFA<?, I>> procedures,
+                                          Map<I, ? extends AccessSequenceTransformer<I>> providers,
+                                          Collection<I> inputs) {
+            this.delegate.scanRefinedProcedures(procedures, providers, inputs);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.ATRSequences;
+import de.learnlib.spa.util.Generator;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SnapshotSULOracleTest {
+
+    private SPAAlphabet<Integer> alphabet;
+    private SPA<?, Integer> spa;
+    private List<Word<Integer>> words;
+
+    @BeforeClass
+    public void setUp() {
+        final Random random = new Random(42);
+        alphabet = new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 9), 16);
+        spa = Generator.create(random, alphabet, 10);
+
+        final ATRSequences<Integer> sequences = ATRSequences.compute(spa);
+
+        // local queries of each procedure share the access sequence and call symbol of the procedure
+        words = new ArrayList<>();
+        words.add(Word.epsilon());
+        for (final Integer procedure : spa.getProcedures().keySet()) {
+            final Word<Integer> prefix = sequences.getAccessSequence(procedure).append(procedure);
+            words.add(prefix);
+
+            for (int i = 0; i < 20; i++) {
+                final WordBuilder<Integer> wb = new WordBuilder<>(prefix);
+                final int length = random.nextInt(15);
+                for (int j = 0; j < length; j++) {
+                    wb.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+                }
+                words.add(wb.toWord());
+            }
+
+            words.add(prefix.concat(sequences.getTerminatingSequence(procedure))
+                            .append(alphabet.getReturnSymbol())
+                            .concat(sequences.getReturnSequence(procedure)));
+        }
+    }
+
+    @DataProvider(name = "snapshots")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {1}, new Object[] {8}, new Object[] {1000}};
+    }
+
+    @Test(dataProvider = "snapshots")
+    public void testAnswers(int maxSnapshots) {
+        final AcceptorSUL<?, Integer> regularSUL = new AcceptorSUL<>(spa);
+        final AcceptorSUL<?, Integer> copyableSUL = new AcceptorSUL.Copyable<>(spa);
+
+        final SnapshotSULOracle<Integer> regular = new SnapshotSULOracle<>(alphabet, regularSUL, maxSnapshots);
+        final SnapshotSULOracle<Integer> copyable = new SnapshotSULOracle<>(alphabet, copyableSUL, maxSnapshots);
+
+        checkAnswers(regular);
+        checkAnswers(copyable);
+
+        Assert.assertEquals(regular.getNumberOfSnapshotHits(), 0);
+        Assert.assertTrue(copyable.getNumberOfSnapshotHits() > 0);
+        Assert.assertTrue(copyable.getNumberOfSteps() < regular.getNumberOfSteps());
+        Assert.assertTrue(copyable.getNumberOfResets() < regular.getNumberOfResets());
+
+        // all snapshots but the retained ones need to be shut down
+        Assert.assertEquals(regularSUL.getNumberOfActiveInstances(), 0);
+        Assert.assertTrue(copyableSUL.getNumberOfActiveInstances() <= maxSnapshots);
+
+        copyable.clearSnapshots();
+        Assert.assertEquals(copyableSUL.getNumberOfActiveInstances(), 0);
+    }
+
+    private void checkAnswers(SnapshotSULOracle<Integer> oracle) {
+        final SimulatorOracle<Integer, Boolean> reference = new SimulatorOracle<>(spa);
+
+        final List<DefaultQuery<Integer, Boolean>> queries = new ArrayList<>(words.size());
+        for (final Word<Integer> w : words) {
+            queries.add(new DefaultQuery<>(w));
+        }
+        oracle.processQueries(queries);
+
+        for (final DefaultQuery<Integer, Boolean> q : queries) {
+            Assert.assertEquals(q.getOutput(), reference.answerQuery(q.getInput()), q.toString());
+        }
+    }
+}
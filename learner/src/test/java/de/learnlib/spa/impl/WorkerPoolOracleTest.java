@@ -0,0 +1,155 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.util.Generator;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class WorkerPoolOracleTest {
+
+    private SPA<?, Integer> spa;
+    private List<Word<Integer>> words;
+
+    @BeforeClass
+    public void setUp() {
+        final Random random = new Random(42);
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 15), Alphabets.integers(0, 9), 16);
+        spa = Generator.create(random, alphabet, 10);
+
+        words = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final List<Integer> symbols = new ArrayList<>();
+            final int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                symbols.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+            }
+            words.add(Word.fromList(symbols));
+        }
+    }
+
+    @DataProvider(name = "concurrency")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {1}, new Object[] {4}, new Object[] {16}};
+    }
+
+    @Test(dataProvider = "concurrency")
+    public void testAnswers(int concurrency) {
+        final SimulatorOracle<Integer, Boolean> reference = new SimulatorOracle<>(spa);
+        final AtomicInteger createdWorkers = new AtomicInteger();
+
+        try (WorkerPoolOracle<Integer, Boolean> oracle = new WorkerPoolOracle<>(() -> {
+            createdWorkers.incrementAndGet();
+            return new SimulatorOracle<>(spa);
+        }, concurrency)) {
+
+            final List<DefaultQuery<Integer, Boolean>> queries = createQueries();
+            oracle.processQueries(queries);
+
+            for (final DefaultQuery<Integer, Boolean> q : queries) {
+                Assert.assertEquals(q.getOutput(), reference.answerQuery(q.getInput()));
+            }
+
+            Assert.assertTrue(createdWorkers.get() <= concurrency);
+        }
+    }
+
+    @Test(dataProvider = "concurrency")
+    public void testAsyncAnswers(int concurrency) {
+        final SimulatorOracle<Integer, Boolean> reference = new SimulatorOracle<>(spa);
+
+        try (WorkerPoolOracle<Integer, Boolean> oracle =
+                     new WorkerPoolOracle<>(() -> new SimulatorOracle<>(spa), concurrency)) {
+
+            final List<DefaultQuery<Integer, Boolean>> queries = createQueries();
+            oracle.processQueriesAsync(queries).join();
+
+            for (final DefaultQuery<Integer, Boolean> q : queries) {
+                Assert.assertEquals(q.getOutput(), reference.answerQuery(q.getInput()));
+            }
+        }
+    }
+
+    @Test
+    public void testFailingWorkerIsDiscarded() {
+        final List<FailingOracle> workers = Collections.synchronizedList(new ArrayList<>());
+
+        try (WorkerPoolOracle<Integer, Boolean> oracle = new WorkerPoolOracle<>(() -> {
+            final FailingOracle worker = new FailingOracle();
+            workers.add(worker);
+            return worker;
+        }, 1)) {
+
+            oracle.processQuery(new DefaultQuery<>(Word.fromSymbols(1)));
+            Assert.assertEquals(workers.size(), 1);
+
+            Assert.assertThrows(IllegalStateException.class,
+                                () -> oracle.processQuery(new DefaultQuery<>(Word.fromSymbols(-1))));
+
+            // the failed worker must not answer any further queries
+            oracle.processQuery(new DefaultQuery<>(Word.fromSymbols(1)));
+            Assert.assertEquals(workers.size(), 2);
+            Assert.assertEquals(workers.get(0).answered, 1);
+            Assert.assertEquals(workers.get(1).answered, 1);
+        }
+    }
+
+    private List<DefaultQuery<Integer, Boolean>> createQueries() {
+        final List<DefaultQuery<Integer, Boolean>> queries = new ArrayList<>(words.size());
+        for (final Word<Integer> w : words) {
+            queries.add(new DefaultQuery<>(w));
+        }
+        return queries;
+    }
+
+    private static final class FailingOracle implements MembershipOracle<Integer, Boolean> {
+
+        private int answered;
+        private boolean failed;
+
+        @Override
+        public void processQueries(Collection<? extends Query<Integer, Boolean>> queries) {
+            for (final Query<Integer, Boolean> q : queries) {
+                if (this.failed) {
+                    throw new AssertionError("Query answered by a failed worker");
+                }
+                if (q.getInput().firstSymbol() < 0) {
+                    this.failed = true;
+                    throw new IllegalStateException("Broken connection");
+                }
+                this.answered++;
+                q.answer(true);
+            }
+        }
+    }
+}
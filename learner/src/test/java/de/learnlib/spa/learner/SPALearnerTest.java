@@ -0,0 +1,311 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.learner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import de.learnlib.acex.analyzers.AcexAnalyzers;
+import de.learnlib.api.AccessSequenceTransformer;
+import de.learnlib.api.algorithm.LearningAlgorithm;
+import de.learnlib.api.algorithm.feature.SupportsGrowingAlphabet;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.LocalRefinementCounter;
+import de.learnlib.spa.api.ATRProvider;
+import de.learnlib.spa.api.MetricsListener;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.api.SymbolCostModel;
+import de.learnlib.spa.config.RivestSchapireAdapter;
+import de.learnlib.spa.config.TTTAdapter;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import de.learnlib.spa.impl.OptimizingATRProvider;
+import de.learnlib.spa.util.Generator;
+import de.learnlib.spa.util.Util;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.fsa.MutableDFAs;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SPALearnerTest {
+
+    private SPA<?, Integer> spa;
+
+    @BeforeClass
+    public void setUp() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        spa = Generator.create(new Random(42), alphabet, 15);
+    }
+
+    @DataProvider(name = "configurations")
+    public Object[][] dataProvider() {
+        final Adapter[] adapters = {new Adapter(RivestSchapireAdapter::new, "RivestSchapireAdapter"),
+                                    new Adapter(TTTAdapter::new, "TTTAdapter")};
+        final Configuration[] configurations = {new Configuration("default", l -> {}),
+                                                new Configuration("localCounterexampleReuse",
+                                                                  l -> l.setLocalCounterexampleReuse(true)),
+                                                new Configuration("decompositionWidth",
+                                                                  l -> l.setDecompositionWidth(4)),
+                                                new Configuration("analyzer",
+                                                                  l -> l.setAnalyzer(AcexAnalyzers.LINEAR_FWD)),
+                                                new Configuration("multiProcedureAnalysis",
+                                                                  l -> l.setMultiProcedureAnalysis(true)),
+                                                new Configuration("accessAndReturnSequenceOptimization",
+                                                                  l -> l.setAccessAndReturnSequenceOptimization(true)),
+                                                new Configuration("localQueryCache",
+                                                                  l -> l.setLocalQueryCache(true)),
+                                                new Configuration("symbolCostModel",
+                                                                  SPALearnerTest::createCostBasedProvider,
+                                                                  l -> {})};
+
+        final Object[][] result = new Object[adapters.length * configurations.length][];
+        int i = 0;
+        for (final Adapter adapter : adapters) {
+            for (final Configuration configuration : configurations) {
+                result[i++] = new Object[] {adapter, configuration};
+            }
+        }
+
+        return result;
+    }
+
+    @Test(dataProvider = "configurations")
+    public void testConfiguration(Adapter adapter, Configuration configuration) {
+        final SPALearner<Integer, ?> learner = adapter.create(spa, configuration);
+        learner.startLearning();
+
+        final SPA<?, Integer> hyp = Util.learn(spa, learner);
+        Assert.assertTrue(Util.testEquivalence(spa, hyp));
+    }
+
+    @Test
+    public void testLocalCounterexampleReuse() {
+        final Random random = new Random(10);
+        final SPA<?, Character> system = createSingleProcedureSystem(random);
+        final Word<Character> ce = Word.fromLetter('M').append('P').concat(sampleAcceptedWord(system, 'P', random))
+                                       .append('R').append('R');
+        Assert.assertTrue(system.accepts(ce));
+
+        final long regular = countGlobalRefinements(system, ce, false);
+        final long reusing = countGlobalRefinements(system, ce, true);
+
+        Assert.assertTrue(reusing < regular);
+    }
+
+    @Test
+    public void testMultiProcedureAnalysis() {
+        final Random random = new Random(7);
+        final SPA<?, Character> system = createTwoProcedureSystem(random);
+        final Word<Character> ce = Word.fromLetter('M')
+                                       .append('P')
+                                       .concat(sampleAcceptedWord(system, 'P', random))
+                                       .append('R')
+                                       .append('Q')
+                                       .concat(sampleAcceptedWord(system, 'Q', random))
+                                       .append('R')
+                                       .append('R');
+        Assert.assertTrue(system.accepts(ce));
+
+        // the number of global refinements when P and Q receive their first local counterexample
+        final Map<Character, Long> regularRefinements = new HashMap<>();
+        final Map<Character, Long> multiRefinements = new HashMap<>();
+
+        final long regular =
+                countGlobalRefinements(system, ce, l -> recordFirstLocalCounterexamples(l, regularRefinements));
+        final long multi = countGlobalRefinements(system, ce, l -> {
+            l.setMultiProcedureAnalysis(true);
+            recordFirstLocalCounterexamples(l, multiRefinements);
+        });
+
+        // the default analysis refines one procedure per pass, whereas both are refined in the first pass here
+        Assert.assertNotEquals(regularRefinements.get('P'), regularRefinements.get('Q'));
+        Assert.assertEquals(multiRefinements.get('P'), multiRefinements.get('Q'));
+        Assert.assertTrue(multi < regular);
+    }
+
+    private static void recordFirstLocalCounterexamples(SPALearner<Character, ?> learner,
+                                                        Map<Character, Long> result) {
+        learner.setMetricsListener(new MetricsListener<Character>() {
+
+            @Override
+            public void localCounterexampleProcessed(Character procedure, int length) {
+                result.putIfAbsent(procedure, learner.getNumberOfGlobalRefinements());
+            }
+        });
+    }
+
+    /**
+     * Creates an {@link OptimizingATRProvider} for which calls and returns are considerably more expensive than
+     * internal symbols.
+     */
+    private static ATRProvider<Integer> createCostBasedProvider(SPAAlphabet<Integer> alphabet) {
+        return new OptimizingATRProvider<>(alphabet, SymbolCostModel.bySymbolType(alphabet, 1, 10, 5));
+    }
+
+    private static long countGlobalRefinements(SPA<?, Character> system, Word<Character> ce, boolean reuse) {
+        return countGlobalRefinements(system, ce, l -> l.setLocalCounterexampleReuse(reuse));
+    }
+
+    private static long countGlobalRefinements(SPA<?, Character> system,
+                                               Word<Character> ce,
+                                               Consumer<SPALearner<Character, ?>> setup) {
+        final SPALearner<Character, RivestSchapireAdapter<Character>> learner =
+                new SPALearner<>(system.getInputAlphabet(), new SimulatorOracle<>(system), RivestSchapireAdapter::new);
+        setup.accept(learner);
+        learner.startLearning();
+
+        final DefaultQuery<Character, Boolean> query = new DefaultQuery<>(ce, true);
+        while (learner.refineHypothesis(query)) {
+            // repeat
+        }
+        final long result = learner.getNumberOfGlobalRefinements();
+
+        Assert.assertTrue(learner.getHypothesisModel().accepts(ce));
+        Assert.assertTrue(Util.testEquivalence(system, Util.learn(system, learner)));
+
+        return result;
+    }
+
+    /**
+     * Creates a system whose initial procedure M only calls P, which in turn is a random DFA over the internal
+     * symbols.
+     */
+    private static SPA<?, Character> createSingleProcedureSystem(Random random) {
+        final SPAAlphabet<Character> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.fromArray('M', 'P'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'M', 'P');
+
+        final CompactDFA<Character> m = new CompactDFA<>(proceduralAlphabet);
+        final int m0 = m.addInitialState(false);
+        m.addTransition(m0, 'P', m.addState(true));
+        MutableDFAs.complete(m, proceduralAlphabet);
+
+        final CompactDFA<Character> p = RandomAutomata.randomDFA(random, 12, proceduralAlphabet, false);
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('M', m);
+        procedures.put('P', p);
+
+        return new DefaultSPA<>(alphabet, 'M', procedures);
+    }
+
+    /**
+     * Creates a system whose initial procedure M calls P and then Q, which in turn are random DFAs over the internal
+     * symbols.
+     */
+    private static SPA<?, Character> createTwoProcedureSystem(Random random) {
+        final SPAAlphabet<Character> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.fromArray('M', 'P', 'Q'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'M', 'P', 'Q');
+
+        final CompactDFA<Character> m = new CompactDFA<>(proceduralAlphabet);
+        final int m0 = m.addInitialState(false);
+        final int m1 = m.addState(false);
+        m.addTransition(m0, 'P', m1);
+        m.addTransition(m1, 'Q', m.addState(true));
+        MutableDFAs.complete(m, proceduralAlphabet);
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('M', m);
+        procedures.put('P', RandomAutomata.randomDFA(random, 12, proceduralAlphabet, false));
+        procedures.put('Q', RandomAutomata.randomDFA(random, 12, proceduralAlphabet, false));
+
+        return new DefaultSPA<>(alphabet, 'M', procedures);
+    }
+
+    /**
+     * Samples a random internal word of length greater than 20 that is accepted by the given procedure.
+     */
+    private static Word<Character> sampleAcceptedWord(SPA<?, Character> system, Character procedure, Random random) {
+        final DFA<?, Character> p = system.getProcedures().get(procedure);
+        final WordBuilder<Character> wb = new WordBuilder<>();
+
+        do {
+            wb.add(random.nextBoolean() ? 'a' : 'b');
+        } while (wb.size() <= 21 || !p.accepts(wb));
+
+        return wb.toWord();
+    }
+
+    private static final class Configuration {
+
+        private final String name;
+        private final Function<SPAAlphabet<Integer>, ATRProvider<Integer>> atrProvider;
+        private final Consumer<SPALearner<Integer, ?>> setup;
+
+        Configuration(String name, Consumer<SPALearner<Integer, ?>> setup) {
+            this(name, OptimizingATRProvider::new, setup);
+        }
+
+        Configuration(String name,
+                      Function<SPAAlphabet<Integer>, ATRProvider<Integer>> atrProvider,
+                      Consumer<SPALearner<Integer, ?>> setup) {
+            this.name = name;
+            this.atrProvider = atrProvider;
+            this.setup = setup;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
+    private static final class Adapter {
+
+        private final BiFunction<SPA<?, Integer>, Configuration, SPALearner<Integer, ?>> factory;
+        private final String name;
+
+        <L extends LearningAlgorithm.DFALearner<Integer> & SupportsGrowingAlphabet<Integer> & AccessSequenceTransformer<Integer> & LocalRefinementCounter> Adapter(
+                BiFunction<Alphabet<Integer>, MembershipOracle<Integer, Boolean>, L> learnerProvider,
+                String name) {
+            this.name = name;
+            this.factory = (system, configuration) -> {
+                final SPAAlphabet<Integer> alphabet = system.getInputAlphabet();
+                final SPALearner<Integer, L> learner = new SPALearner<>(alphabet,
+                                                                        new SimulatorOracle<>(system),
+                                                                        learnerProvider,
+                                                                        configuration.atrProvider.apply(alphabet));
+                configuration.setup.accept(learner);
+                return learner;
+            };
+        }
+
+        SPALearner<Integer, ?> create(SPA<?, Integer> system, Configuration configuration) {
+            return this.factory.apply(system, configuration);
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+}
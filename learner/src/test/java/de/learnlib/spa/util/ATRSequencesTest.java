@@ -0,0 +1,118 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import net.automatalib.words.impl.SimpleAlphabet;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ATRSequencesTest {
+
+    private SPAAlphabet<Character> alphabet;
+    private Alphabet<Character> proceduralAlphabet;
+
+    @BeforeClass
+    public void setUp() {
+        alphabet = new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.characters('F', 'G'), 'R');
+        proceduralAlphabet = new SimpleAlphabet<>();
+        proceduralAlphabet.addAll(alphabet.getCallAlphabet());
+        proceduralAlphabet.addAll(alphabet.getInternalAlphabet());
+    }
+
+    @DataProvider(name = "systems")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {createSystem(false)}, new Object[] {createSystem(true)}};
+    }
+
+    @Test(dataProvider = "systems")
+    public void testSequences(SPA<?, Character> spa) {
+
+        final ATRSequences<Character> sequences = ATRSequences.compute(spa);
+
+        for (final Character procedure : spa.getProcedures().keySet()) {
+            final Word<Character> as = sequences.getAccessSequence(procedure);
+            final Word<Character> ts = sequences.getTerminatingSequence(procedure);
+            final Word<Character> rs = sequences.getReturnSequence(procedure);
+
+            Assert.assertNotNull(as);
+            Assert.assertNotNull(ts);
+            Assert.assertNotNull(rs);
+
+            final WordBuilder<Character> builder = new WordBuilder<>();
+            builder.append(as).append(procedure).append(ts).append(alphabet.getReturnSymbol()).append(rs);
+
+            Assert.assertTrue(spa.accepts(builder.toWord()));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testNonAccessibleProcedure() {
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', createTerminating());
+        procedures.put('G', createTerminating());
+
+        ATRSequences.compute(new DefaultSPA<>(alphabet, 'F', procedures));
+    }
+
+    /**
+     * Creates a system whose initial procedure F only calls G on a path that leaves the state cover, i.e. no accepted
+     * transition cover word of F contains a call to G.
+     */
+    private SPA<?, Character> createSystem(boolean recursive) {
+
+        // q0 -G-> q1, q0 -a-> q2, q1 -b-> q2, q2 -b-> q3
+        final CompactDFA<Character> f = new CompactDFA<>(proceduralAlphabet);
+        final int q0 = f.addInitialState(false);
+        final int q1 = f.addState(false);
+        final int q2 = f.addState(false);
+        final int q3 = f.addState(true);
+
+        f.addTransition(q0, 'G', q1);
+        f.addTransition(q0, 'a', q2);
+        f.addTransition(q1, 'b', q2);
+        f.addTransition(q2, 'b', q3);
+
+        if (recursive) {
+            f.addTransition(q3, 'F', q3);
+        }
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', f);
+        procedures.put('G', createTerminating());
+
+        return new DefaultSPA<>(alphabet, 'F', procedures);
+    }
+
+    private CompactDFA<Character> createTerminating() {
+        final CompactDFA<Character> dfa = new CompactDFA<>(proceduralAlphabet);
+        final int q0 = dfa.addInitialState(true);
+        dfa.addTransition(q0, 'a', q0);
+        return dfa;
+    }
+}
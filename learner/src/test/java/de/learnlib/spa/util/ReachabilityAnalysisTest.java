@@ -0,0 +1,154 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.Sets;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.automata.concepts.StateIDs;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ReachabilityAnalysisTest {
+
+    @Test
+    public void testAnalysis() {
+        final SPAAlphabet<Character> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.characters('F', 'H'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'F', 'G', 'H');
+
+        // F: a | G b | b H, where the state after b is co-reachable but cannot terminate
+        final CompactDFA<Character> f = new CompactDFA<>(proceduralAlphabet);
+        final int f0 = f.addInitialState(false);
+        final int f1 = f.addState(true);
+        final int f2 = f.addState(false);
+        final int f3 = f.addState(false);
+        final int f4 = f.addState(false);
+        f.addTransition(f0, 'a', f1);
+        f.addTransition(f0, 'G', f2);
+        f.addTransition(f2, 'b', f1);
+        f.addTransition(f0, 'b', f3);
+        f.addTransition(f3, 'H', f1);
+        f.addTransition(f1, 'b', f4);
+
+        // G: a
+        final CompactDFA<Character> g = new CompactDFA<>(proceduralAlphabet);
+        final int g0 = g.addInitialState(false);
+        g.addTransition(g0, 'a', g.addState(true));
+
+        // H: H (never terminates)
+        final CompactDFA<Character> h = new CompactDFA<>(proceduralAlphabet);
+        final int h0 = h.addInitialState(false);
+        h.addTransition(h0, 'H', h.addState(true));
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', f);
+        procedures.put('G', g);
+        procedures.put('H', h);
+
+        final ReachabilityAnalysis<Character> analysis =
+                ReachabilityAnalysis.analyze(new DefaultSPA<>(alphabet, 'F', procedures));
+
+        Assert.assertEquals(analysis.getTerminatingProcedures(), Sets.newHashSet('F', 'G'));
+        Assert.assertEquals(analysis.getReachableProcedures(), Sets.newHashSet('F', 'G'));
+        Assert.assertFalse(analysis.isTerminating('H'));
+        Assert.assertFalse(analysis.isReachable('H'));
+
+        for (final Integer s : new Integer[] {f0, f1, f2, f3}) {
+            Assert.assertTrue(analysis.isCoReachable('F', s));
+        }
+        Assert.assertFalse(analysis.isCoReachable('F', f4));
+
+        Assert.assertTrue(analysis.canTerminate('F', f0));
+        Assert.assertTrue(analysis.canTerminate('F', f2));
+        Assert.assertFalse(analysis.canTerminate('F', f3));
+        Assert.assertFalse(analysis.canTerminate('F', f4));
+
+        Assert.assertTrue(analysis.isCoReachable('H', h0));
+        Assert.assertFalse(analysis.canTerminate('H', h0));
+    }
+
+    @Test
+    public void testCoReachableStates() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(new Random(42), alphabet, 15);
+        final ReachabilityAnalysis<Integer> analysis = ReachabilityAnalysis.analyze(spa);
+
+        for (final Map.Entry<Integer, ? extends DFA<?, Integer>> e : spa.getProcedures().entrySet()) {
+            checkCoReachableStates(alphabet, spa.getProcedures().keySet(), e.getKey(), e.getValue(), analysis);
+        }
+
+        // without any procedures, only internal symbols may be used
+        final Map<Integer, DFA<?, Integer>> procedures = new HashMap<>();
+        for (final Map.Entry<Integer, ? extends DFA<?, Integer>> e : spa.getProcedures().entrySet()) {
+            procedures.clear();
+            procedures.put(e.getKey(), e.getValue());
+            final ReachabilityAnalysis<Integer> local = ReachabilityAnalysis.analyze(alphabet, null, procedures);
+            checkCoReachableStates(alphabet, Collections.emptySet(), e.getKey(), e.getValue(), local);
+        }
+    }
+
+    private static <S> void checkCoReachableStates(SPAAlphabet<Integer> alphabet,
+                                                   Collection<Integer> procedures,
+                                                   Integer procedure,
+                                                   DFA<S, Integer> dfa,
+                                                   ReachabilityAnalysis<Integer> expected) {
+        final BitSet coReachable = ReachabilityAnalysis.computeCoReachableStates(alphabet, procedures, dfa);
+        final StateIDs<S> stateIDs = dfa.stateIDs();
+
+        for (final S s : dfa) {
+            Assert.assertEquals(coReachable.get(stateIDs.getStateId(s)), expected.isCoReachable(procedure, s));
+        }
+    }
+
+    @Test
+    public void testUnknownInitialProcedure() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(new Random(42), alphabet, 15);
+
+        final ReachabilityAnalysis<Integer> analysis =
+                ReachabilityAnalysis.analyze(alphabet, null, spa.getProcedures());
+
+        Assert.assertEquals(analysis.getTerminatingProcedures(), spa.getProcedures().keySet());
+        Assert.assertTrue(analysis.getReachableProcedures().isEmpty());
+    }
+
+    @Test
+    public void testGeneratedSystem() {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(new Random(42), alphabet, 15);
+
+        final ReachabilityAnalysis<Integer> analysis = ReachabilityAnalysis.analyze(spa);
+
+        Assert.assertEquals(analysis.getTerminatingProcedures(), spa.getProcedures().keySet());
+        Assert.assertEquals(analysis.getReachableProcedures(), spa.getProcedures().keySet());
+    }
+}
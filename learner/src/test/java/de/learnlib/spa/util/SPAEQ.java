@@ -15,7 +15,6 @@
 package de.learnlib.spa.util;
 
 import java.util.Collection;
-import java.util.Map;
 
 import de.learnlib.api.oracle.EquivalenceOracle;
 import de.learnlib.api.query.DefaultQuery;
@@ -24,7 +23,6 @@ import de.learnlib.spa.api.SPA;
 import de.learnlib.spa.api.SPAAlphabet;
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.automata.fsa.impl.compact.CompactDFA;
-import net.automatalib.commons.util.Pair;
 import net.automatalib.util.automata.Automata;
 import net.automatalib.util.automata.copy.AutomatonCopyMethod;
 import net.automatalib.util.automata.copy.AutomatonLowLevelCopy;
@@ -39,9 +37,7 @@ public class SPAEQ<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
 
     private final SPA<?, I> spa;
 
-    private final Map<I, Word<I>> terminatingSequences;
-    private final Map<I, Word<I>> accessSequences;
-    private final Map<I, Word<I>> returnSequences;
+    private final ATRSequences<I> sequences;
     private final TransformationUtil<I> transformationUtil;
 
     private final CompactDFA<I> rejectAllAutomaton;
@@ -61,21 +57,7 @@ public class SPAEQ<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
         rejectAllAutomaton.addInitialState(false);
         MutableDFAs.complete(rejectAllAutomaton, proceduralAlphabet);
 
-        this.terminatingSequences = Util.computeTerminatingSequences(alphabet,
-                                                                     spa.getInitialProcedure(),
-                                                                     spa.getProcedures(),
-                                                                     transformationUtil);
-
-        final Pair<Map<I, Word<I>>, Map<I, Word<I>>> accessAndReturnSequences = Util.computeAccessAndReturnSequences(
-                alphabet,
-                spa.getInitialProcedure(),
-                proceduralAlphabet,
-                spa.getProcedures(),
-                terminatingSequences,
-                transformationUtil);
-
-        this.accessSequences = accessAndReturnSequences.getFirst();
-        this.returnSequences = accessAndReturnSequences.getSecond();
+        this.sequences = ATRSequences.compute(spa);
     }
 
     @Override
@@ -85,7 +67,7 @@ public class SPAEQ<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
             throw new IllegalArgumentException("Inputs are not an SPA alphabet");
         }
 
-        final SPAAlphabet<I> alphabet = (SPAAlphabet<I>) inputs;
+        final SPAAlphabet<I> alphabet = this.spa.getInputAlphabet();
         final GrowingAlphabet<I> proceduralAlphabet = new SimpleAlphabet<>();
 
         proceduralAlphabet.addAll(alphabet.getCallAlphabet());
@@ -124,26 +106,21 @@ public class SPAEQ<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
             final Word<I> sepWord = Automata.findSeparatingWord(proc_sul, proc_hyp, proceduralAlphabet);
 
             if (sepWord != null) {
-                final Map<I, Word<I>> as, ts, rs;
+                final ATRSequences<I> atr;
                 final boolean ce = proc_sul.accepts(sepWord);
 
                 if (ce) { // positive ce
-                    as = this.accessSequences;
-                    ts = this.terminatingSequences;
-                    rs = this.returnSequences;
+                    atr = this.sequences;
                 } else { // negative ce needs to compute as/ts/rs based on hypothesis so that the error is only in the detected procedure and the computed CE is in fact accepted by the hypothesis
-                    final ATRTuple<I> tuple = computeATRTuple(hypothesis);
-                    as = tuple.accessSequences;
-                    ts = tuple.terminatingSequences;
-                    rs = tuple.returnSequences;
+                    atr = ATRSequences.compute(hypothesis);
                 }
 
                 final WordBuilder<I> builder = new WordBuilder<>();
-                builder.append(as.get(procedure));
+                builder.append(atr.getAccessSequence(procedure));
                 builder.append(procedure);
-                builder.append(transformationUtil.expand(sepWord, ts::get));
+                builder.append(transformationUtil.expand(sepWord, atr::getTerminatingSequence));
                 builder.append(alphabet.getReturnSymbol());
-                builder.append(rs.get(procedure));
+                builder.append(atr.getReturnSequence(procedure));
 
                 assert ce || hypothesis.accepts(builder) : "Negative CE is not accepted by hypothesis";
 
@@ -154,46 +131,4 @@ public class SPAEQ<I> implements EquivalenceOracle<SPA<?, I>, I, Boolean> {
         return null;
     }
 
-    private ATRTuple<I> computeATRTuple(final SPA<?, I> spa) {
-
-        final SPAAlphabet<I> alphabet = spa.getInputAlphabet();
-        final Alphabet<I> proceduralAlphabet = new SimpleAlphabet<>();
-
-        proceduralAlphabet.addAll(spa.getProcedures().keySet());
-        proceduralAlphabet.addAll(alphabet.getInternalAlphabet());
-
-        Map<I, Word<I>> terminatingSequences = Util.computeTerminatingSequences(alphabet,
-                                                                                spa.getInitialProcedure(),
-                                                                                spa.getProcedures(),
-                                                                                this.transformationUtil);
-
-        final Pair<Map<I, Word<I>>, Map<I, Word<I>>> accessAndReturnSequences = Util.computeAccessAndReturnSequences(
-                alphabet,
-                spa.getInitialProcedure(),
-                proceduralAlphabet,
-                spa.getProcedures(),
-                terminatingSequences,
-                this.transformationUtil);
-
-        final Map<I, Word<I>> accessSequences = accessAndReturnSequences.getFirst();
-        final Map<I, Word<I>> returnSequences = accessAndReturnSequences.getSecond();
-
-        return new ATRTuple<>(accessSequences, terminatingSequences, returnSequences);
-    }
-
-    private static class ATRTuple<I> {
-
-        private final Map<I, Word<I>> accessSequences;
-        private final Map<I, Word<I>> terminatingSequences;
-        private final Map<I, Word<I>> returnSequences;
-
-        public ATRTuple(Map<I, Word<I>> accessSequences,
-                        Map<I, Word<I>> terminatingSequences,
-                        Map<I, Word<I>> returnSequences) {
-            this.accessSequences = accessSequences;
-            this.terminatingSequences = terminatingSequences;
-            this.returnSequences = returnSequences;
-        }
-    }
-
 }
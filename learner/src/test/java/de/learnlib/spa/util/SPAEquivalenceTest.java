@@ -0,0 +1,107 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.config.RivestSchapireAdapter;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import de.learnlib.spa.learner.SPALearner;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SPAEquivalenceTest {
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @DataProvider(name = "seeds")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {1}, new Object[] {42}, new Object[] {1337}};
+    }
+
+    /**
+     * Compares the verdicts of {@link SPAEquivalence} with {@link Util#testEquivalence(SPA, SPA)} and {@link SPAEQ} for
+     * all intermediate hypotheses of a learning process.
+     */
+    @Test(dataProvider = "seeds")
+    public void testIntermediateHypotheses(int seed) {
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(new Random(seed), alphabet, 15);
+
+        final SPAEquivalence<Integer> sequential = new SPAEquivalence<>(spa);
+        final SPAEquivalence<Integer> parallel = new SPAEquivalence<>(spa, executor);
+        final SPAEQ<Integer> reference = new SPAEQ<>(spa);
+
+        final SPALearner<Integer, RivestSchapireAdapter<Integer>> learner =
+                new SPALearner<>(alphabet, new SimulatorOracle<>(spa), RivestSchapireAdapter::new);
+        learner.startLearning();
+
+        int numberOfHypotheses = 0;
+
+        while (true) {
+            final SPA<?, Integer> hyp = learner.getHypothesisModel();
+            final Word<Integer> separatingWord = sequential.findSeparatingWord(hyp);
+            final DefaultQuery<Integer, Boolean> referenceCE = reference.findCounterExample(hyp, alphabet);
+
+            numberOfHypotheses++;
+
+            Assert.assertEquals(parallel.findSeparatingWord(hyp), separatingWord);
+            // Util#testEquivalence requires the hypothesis to provide all procedures
+            final boolean equivalent = hyp.getProcedures().keySet().equals(spa.getProcedures().keySet()) &&
+                                       Util.testEquivalence(spa, hyp);
+            Assert.assertEquals(separatingWord == null, equivalent);
+            Assert.assertEquals(separatingWord == null, referenceCE == null);
+
+            if (separatingWord == null) {
+                break;
+            }
+
+            Assert.assertNotEquals(hyp.accepts(separatingWord), spa.accepts(separatingWord));
+            Assert.assertTrue(separatingWord.length() <= referenceCE.getInput().length());
+
+            final DefaultQuery<Integer, Boolean> ce = sequential.findCounterExample(hyp, alphabet);
+            Assert.assertNotNull(ce);
+            Assert.assertEquals(ce.getInput(), separatingWord);
+
+            while (learner.refineHypothesis(ce)) {
+                // repeat
+            }
+        }
+
+        Assert.assertTrue(numberOfHypotheses > 1);
+    }
+}
@@ -0,0 +1,151 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.fsa.MutableDFAs;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SPAMinimizerTest {
+
+    @DataProvider(name = "seeds")
+    public Object[][] dataProvider() {
+        return new Object[][] {new Object[] {1}, new Object[] {42}, new Object[] {1337}};
+    }
+
+    @Test(dataProvider = "seeds")
+    public void testGeneratedSystem(int seed) {
+        final Random random = new Random(seed);
+        final SPAAlphabet<Integer> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.integers(10, 20), Alphabets.integers(0, 7), 21);
+        final SPA<?, Integer> spa = Generator.create(random, alphabet, 15);
+        final SPA<?, Integer> minimized = SPAMinimizer.minimize(spa);
+
+        Assert.assertTrue(minimized.size() <= spa.size());
+        Assert.assertNull(new SPAEQ<>(spa).findCounterExample(minimized, alphabet));
+        checkLanguage(spa, minimized, random);
+    }
+
+    @Test
+    public void testRemovedParts() {
+        final SPAAlphabet<Character> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.characters('F', 'H'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'F', 'G', 'H');
+
+        // F: a (F a)* | b H (F a)*, where the state after b can only be left via the non-terminating H
+        final CompactDFA<Character> f = new CompactDFA<>(proceduralAlphabet);
+        final int f0 = f.addInitialState(false);
+        final int f1 = f.addState(true);
+        final int f2 = f.addState(false);
+        final int f3 = f.addState(false);
+        f.addTransition(f0, 'a', f1);
+        f.addTransition(f1, 'F', f2);
+        f.addTransition(f2, 'a', f1);
+        f.addTransition(f0, 'b', f3);
+        f.addTransition(f3, 'H', f1);
+
+        // G: a (never called)
+        final CompactDFA<Character> g = new CompactDFA<>(proceduralAlphabet);
+        g.addTransition(g.addInitialState(false), 'a', g.addState(true));
+
+        // H: H (never terminates)
+        final CompactDFA<Character> h = new CompactDFA<>(proceduralAlphabet);
+        h.addTransition(h.addInitialState(false), 'H', h.addState(true));
+
+        MutableDFAs.complete(f, proceduralAlphabet);
+        MutableDFAs.complete(g, proceduralAlphabet);
+        MutableDFAs.complete(h, proceduralAlphabet);
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', f);
+        procedures.put('G', g);
+        procedures.put('H', h);
+
+        final SPA<?, Character> spa = new DefaultSPA<>(alphabet, 'F', procedures);
+        final SPA<?, Character> minimized = SPAMinimizer.minimize(spa);
+
+        Assert.assertEquals(minimized.getProcedures().keySet(), Collections.singleton('F'));
+        Assert.assertEquals(minimized.size(), 2);
+        checkLanguage(spa, minimized, new Random(42));
+    }
+
+    @Test
+    public void testEmptyLanguage() {
+        final SPAAlphabet<Character> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.characters('a', 'b'), Alphabets.characters('F', 'G'), 'R');
+        final Alphabet<Character> proceduralAlphabet = Alphabets.fromArray('a', 'b', 'F', 'G');
+
+        final CompactDFA<Character> f = new CompactDFA<>(proceduralAlphabet);
+        f.addTransition(f.addInitialState(false), 'G', f.addState(true));
+
+        final Map<Character, CompactDFA<Character>> procedures = new HashMap<>();
+        procedures.put('F', f);
+
+        final SPA<?, Character> minimized = SPAMinimizer.minimize(new DefaultSPA<>(alphabet, 'F', procedures));
+
+        Assert.assertEquals(minimized.size(), 0);
+        Assert.assertFalse(minimized.accepts(Word.fromString("FGRR")));
+    }
+
+    /**
+     * Checks that both systems agree on random mutations of accepted words. The accepted words are computed from the
+     * minimized system, since the original one may contain non-terminating procedures.
+     */
+    private static <I> void checkLanguage(SPA<?, I> original, SPA<?, I> minimized, Random random) {
+        final ATRSequences<I> sequences = ATRSequences.compute(minimized);
+        final List<I> symbols = new ArrayList<>(original.getInputAlphabet());
+        final List<Word<I>> accepted = new ArrayList<>();
+
+        for (final I procedure : minimized.getProcedures().keySet()) {
+            final WordBuilder<I> wb = new WordBuilder<>();
+            wb.append(sequences.getAccessSequence(procedure))
+              .append(procedure)
+              .append(sequences.getTerminatingSequence(procedure))
+              .append(original.getInputAlphabet().getReturnSymbol())
+              .append(sequences.getReturnSequence(procedure));
+            accepted.add(wb.toWord());
+        }
+
+        for (final Word<I> word : accepted) {
+            Assert.assertTrue(original.accepts(word));
+            Assert.assertTrue(minimized.accepts(word));
+
+            for (int i = 0; i < 100; i++) {
+                final int idx = random.nextInt(word.size() + 1);
+                final I symbol = symbols.get(random.nextInt(symbols.size()));
+                final Word<I> mutation = word.prefix(idx).append(symbol).concat(word.subWord(idx));
+
+                Assert.assertEquals(minimized.accepts(mutation), original.accepts(mutation), mutation.toString());
+            }
+        }
+    }
+}
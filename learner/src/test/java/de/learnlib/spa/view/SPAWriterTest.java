@@ -0,0 +1,147 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.view;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.learnlib.spa.api.SPA;
+import de.learnlib.spa.api.SPAAlphabet;
+import de.learnlib.spa.impl.DefaultSPA;
+import de.learnlib.spa.impl.DefaultSPAAlphabet;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class SPAWriterTest {
+
+    private static final String A = "a&";
+    private static final String B = "<b";
+    private static final String F = "F\"";
+    private static final String G = "G\\";
+
+    private SPA<?, String> spa;
+
+    @BeforeClass
+    public void setUp() {
+        final SPAAlphabet<String> alphabet =
+                new DefaultSPAAlphabet<>(Alphabets.fromArray(A, B), Alphabets.fromArray(F, G), "R");
+        final Alphabet<String> proceduralAlphabet = Alphabets.fromArray(A, B, F, G);
+
+        // F: a& | G\ <b, where the state after a& <b cannot reach an accepting state
+        final CompactDFA<String> f = new CompactDFA<>(proceduralAlphabet);
+        final int f0 = f.addInitialState(false);
+        final int f1 = f.addState(true);
+        final int f2 = f.addState(false);
+        final int f3 = f.addState(false);
+        f.addTransition(f0, A, f1);
+        f.addTransition(f0, G, f2);
+        f.addTransition(f2, B, f1);
+        f.addTransition(f1, B, f3);
+
+        // G: a&
+        final CompactDFA<String> g = new CompactDFA<>(proceduralAlphabet);
+        final int g0 = g.addInitialState(false);
+        g.addTransition(g0, A, g.addState(true));
+
+        final Map<String, CompactDFA<String>> procedures = new HashMap<>();
+        procedures.put(F, f);
+        procedures.put(G, g);
+
+        this.spa = new DefaultSPA<>(alphabet, F, procedures);
+    }
+
+    @Test
+    public void testDOT() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        SPAWriter.writeDOT(this.spa, sb);
+        final String dot = sb.toString();
+
+        Assert.assertTrue(dot.startsWith("digraph g {\n"));
+        Assert.assertTrue(dot.endsWith("}\n"));
+
+        Assert.assertTrue(dot.contains("subgraph cluster_0 {\nlabel=\"F\\\"\";\n"));
+        Assert.assertTrue(dot.contains("p0_s0 [shape=\"circle\" label=\"F\\\" 0\"];\n"));
+        Assert.assertTrue(dot.contains("p0_s1 [shape=\"doublecircle\" label=\"F\\\" 1\"];\n"));
+        Assert.assertTrue(dot.contains("p0_s2 [shape=\"circle\" label=\"F\\\" 2\"];\n"));
+        Assert.assertTrue(dot.contains("__start0 -> p0_s0;\n"));
+        Assert.assertTrue(dot.contains("p0_s0 -> p0_s1 [label=\"a&\"];\n"));
+        Assert.assertTrue(dot.contains("p0_s0 -> p0_s2 [label=\"G\\\\\" style=\"dashed\"];\n"));
+        Assert.assertTrue(dot.contains("p0_s2 -> p0_s1 [label=\"<b\"];\n"));
+
+        Assert.assertTrue(dot.contains("subgraph cluster_1 {\nlabel=\"G\\\\\";\n"));
+        Assert.assertTrue(dot.contains("p1_s0 -> p1_s1 [label=\"a&\"];\n"));
+
+        // the state after a& <b is not co-reachable
+        Assert.assertFalse(dot.contains("p0_s3"));
+        Assert.assertEquals(count(dot, " -> "), 4 + 2);
+    }
+
+    @Test
+    public void testGraphML() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        SPAWriter.writeGraphML(this.spa, sb);
+        final String graphML = sb.toString();
+
+        Assert.assertTrue(graphML.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"));
+        Assert.assertTrue(graphML.endsWith("</graphml>\n"));
+
+        Assert.assertTrue(graphML.contains("    <node id=\"p0_s0\">\n" +
+                                           "      <data key=\"procedure\">F&quot;</data>\n" +
+                                           "      <data key=\"state\">0</data>\n" +
+                                           "      <data key=\"initial\">true</data>\n" +
+                                           "      <data key=\"accepting\">false</data>\n" +
+                                           "    </node>\n"));
+        Assert.assertTrue(graphML.contains("    <node id=\"p1_s1\">\n" +
+                                           "      <data key=\"procedure\">G\\</data>\n" +
+                                           "      <data key=\"state\">1</data>\n" +
+                                           "      <data key=\"initial\">false</data>\n" +
+                                           "      <data key=\"accepting\">true</data>\n" +
+                                           "    </node>\n"));
+        Assert.assertTrue(graphML.contains("    <edge source=\"p0_s0\" target=\"p0_s2\">\n" +
+                                           "      <data key=\"input\">G\\</data>\n" +
+                                           "      <data key=\"call\">true</data>\n" +
+                                           "    </edge>\n"));
+        Assert.assertTrue(graphML.contains("    <edge source=\"p0_s2\" target=\"p0_s1\">\n" +
+                                           "      <data key=\"input\">&lt;b</data>\n" +
+                                           "      <data key=\"call\">false</data>\n" +
+                                           "    </edge>\n"));
+        Assert.assertTrue(graphML.contains("    <edge source=\"p1_s0\" target=\"p1_s1\">\n" +
+                                           "      <data key=\"input\">a&amp;</data>\n" +
+                                           "      <data key=\"call\">false</data>\n" +
+                                           "    </edge>\n"));
+
+        // the state after a& <b is not co-reachable
+        Assert.assertFalse(graphML.contains("p0_s3"));
+        Assert.assertEquals(count(graphML, "<node "), 3 + 2);
+        Assert.assertEquals(count(graphML, "<edge "), 3 + 1);
+    }
+
+    private static int count(String text, String pattern) {
+        int result = 0;
+        int idx = text.indexOf(pattern);
+
+        while (idx >= 0) {
+            result++;
+            idx = text.indexOf(pattern, idx + pattern.length());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+/* Copyright (C) 2019 Markus Frohme.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.learnlib.spa.metrics.micrometer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import de.learnlib.spa.api.MetricsListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A {@link MetricsListener} that publishes the metrics of a running learning process to a Micrometer {@link
+ * MeterRegistry}. Meters are prefixed with {@code spa.} and tagged with the (string representation of the) procedure
+ * where applicable. Global queries are tagged with the procedure {@code <global>}. As queries are reported in batches,
+ * latencies are recorded per batch (see {@code spa.queries.batch.latency}) rather than per query.
+ *
+ * @param <I>
+ *         input symbol type
+ *
+ * @author frohme
+ */
+public class MicrometerMetricsListener<I> implements MetricsListener<I> {
+
+    private static final String PROCEDURE_TAG = "procedure";
+    private static final String GLOBAL_PROCEDURE = "<global>";
+
+    private final MeterRegistry registry;
+
+    private final Counter queries;
+    private final Counter symbols;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary counterexampleLengths;
+
+    private final Map<String, Timer> batchLatencies;
+    private final Map<String, DistributionSummary> localCounterexampleLengths;
+    private final Map<String, AtomicInteger> hypothesisSizes;
+    private final Map<String, AtomicInteger[]> sequenceLengths;
+
+    public MicrometerMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+
+        this.queries = Counter.builder("spa.queries").description("number of membership queries").register(registry);
+        this.symbols = Counter.builder("spa.symbols")
+                              .description("number of symbols of membership queries")
+                              .register(registry);
+        this.batchSizes = DistributionSummary.builder("spa.queries.batch")
+                                             .description("sizes of query batches")
+                                             .publishPercentileHistogram()
+                                             .register(registry);
+        this.counterexampleLengths = DistributionSummary.builder("spa.counterexample.length")
+                                                        .description("lengths of global counterexamples")
+                                                        .register(registry);
+
+        this.batchLatencies = new ConcurrentHashMap<>();
+        this.localCounterexampleLengths = new ConcurrentHashMap<>();
+        this.hypothesisSizes = new ConcurrentHashMap<>();
+        this.sequenceLengths = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void queriesAnswered(@Nullable I procedure, int batchSize, long symbols, long nanos) {
+        this.queries.increment(batchSize);
+        this.symbols.increment(symbols);
+        this.batchSizes.record(batchSize);
+
+        if (batchSize > 0) {
+            final String tag = procedure == null ? GLOBAL_PROCEDURE : procedure.toString();
+            final Timer timer = this.batchLatencies.computeIfAbsent(tag,
+                                                                    k -> Timer.builder("spa.queries.batch.latency")
+                                                                              .description("latency per query batch")
+                                                                              .tag(PROCEDURE_TAG, k)
+                                                                              .publishPercentileHistogram()
+                                                                              .register(registry));
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void counterexampleProcessed(int length) {
+        this.counterexampleLengths.record(length);
+    }
+
+    @Override
+    public void localCounterexampleProcessed(I procedure, int length) {
+        final DistributionSummary summary =
+                this.localCounterexampleLengths.computeIfAbsent(procedure.toString(), this::buildLocalCESummary);
+        summary.record(length);
+    }
+
+    private DistributionSummary buildLocalCESummary(String procedure) {
+        return DistributionSummary.builder("spa.counterexample.local.length")
+                                  .description("lengths of local counterexamples")
+                                  .tag(PROCEDURE_TAG, procedure)
+                                  .register(registry);
+    }
+
+    @Override
+    public void hypothesisSizeChanged(I procedure, int size) {
+        this.hypothesisSizes.computeIfAbsent(procedure.toString(),
+                                             k -> registry.gauge("spa.hypothesis.size",
+                                                                 Tags.of(PROCEDURE_TAG, k),
+                                                                 new AtomicInteger()))
+                            .set(size);
+    }
+
+    @Override
+    public void sequencesUpdated(I procedure, int accessLength, int terminatingLength, int returnLength) {
+        final AtomicInteger[] gauges = this.sequenceLengths.computeIfAbsent(procedure.toString(), k -> {
+            final AtomicInteger[] result = new AtomicInteger[3];
+            result[0] = registry.gauge("spa.sequence.length",
+                                       Tags.of(PROCEDURE_TAG, k, "sequence", "access"),
+                                       new AtomicInteger());
+            result[1] = registry.gauge("spa.sequence.length",
+                                       Tags.of(PROCEDURE_TAG, k, "sequence", "terminating"),
+                                       new AtomicInteger());
+            result[2] = registry.gauge("spa.sequence.length",
+                                       Tags.of(PROCEDURE_TAG, k, "sequence", "return"),
+                                       new AtomicInteger());
+            return result;
+        });
+
+        gauges[0].set(accessLength);
+        gauges[1].set(terminatingLength);
+        gauges[2].set(returnLength);
+    }
+}